@@ -7,11 +7,11 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.session.data.redis.config.annotation.web.http.EnableRedisHttpSession;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Cart Service Application
- * Handles shopping cart management with session and database persistence
+ * Handles shopping cart management with database persistence and stateless guest tokens
  */
 @SpringBootApplication(scanBasePackages = {
     "com.mahabaleshwermart.cartservice",
@@ -21,8 +21,8 @@ import org.springframework.session.data.redis.config.annotation.web.http.EnableR
 @EnableJpaAuditing
 @EnableCaching
 @EnableAsync
+@EnableScheduling
 @EnableFeignClients
-@EnableRedisHttpSession(maxInactiveIntervalInSeconds = 3600) // 1 hour session timeout
 public class CartServiceApplication {
     
     public static void main(String[] args) {
@@ -2,11 +2,13 @@ package com.mahabaleshwermart.cartservice.controller;
 
 import com.mahabaleshwermart.cartservice.dto.*;
 import com.mahabaleshwermart.cartservice.service.CartService;
+import com.mahabaleshwermart.cartservice.service.GuestCartTokenService;
+import com.mahabaleshwermart.cartservice.service.GuestCartTokenService.GuestCartToken;
 import com.mahabaleshwermart.common.dto.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpSession;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,13 +16,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Cart Controller
- * Handles shopping cart operations for both guest and registered users
+ * Handles shopping cart operations for both guest and registered users.
+ * Guests are identified by a signed token in the X-Guest-Session header; every response to a guest
+ * request carries the token to use next, so no server-side session is needed.
  */
 @Slf4j
 @RestController
@@ -29,17 +33,14 @@ import java.nio.charset.StandardCharsets;
 @Tag(name = "Shopping Cart", description = "Shopping cart management endpoints")
 public class CartController {
     
+    private static final String GUEST_SESSION_HEADER = "X-Guest-Session";
+    
     private final CartService cartService;
+    private final GuestCartTokenService guestCartTokenService;
     
     @Value("${app.security.allow-session-id-query-param:false}")
     private boolean allowSessionIdQueryParam;
     
-    @Value("${app.security.session-id-query-secret:}")
-    private String sessionIdQuerySecret;
-    
-    @Value("${app.security.session-id-query-ttl-seconds:300}")
-    private long sessionIdQueryTtlSeconds;
-    
     /**
      * Get cart summary for authenticated user or guest session
      */
@@ -47,8 +48,8 @@ public class CartController {
     @Operation(summary = "Get cart", description = "Retrieve cart items for authenticated user or guest session")
     public ResponseEntity<ApiResponse<CartSummaryDto>> getUserCart(
             Authentication authentication,
-            HttpSession session,
             HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse,
             @RequestParam(value = "userId", required = false) String userIdParam,
             @RequestParam(value = "sessionId", required = false) String sessionIdQuery,
             @RequestParam(value = "ts", required = false) Long timestamp,
@@ -59,12 +60,14 @@ public class CartController {
                 : (userIdParam != null && !userIdParam.isBlank()
                     ? userIdParam
                     : (authentication != null ? authentication.getName() : null));
-        String headerSessionId = httpRequest.getHeader("X-Guest-Session");
+        String guestToken = httpRequest.getHeader(GUEST_SESSION_HEADER);
         
         // Optionally allow secure sessionId via query params (HMAC + TTL)
-        if (headerSessionId == null && userId == null && allowSessionIdQueryParam && sessionIdQuery != null && timestamp != null && signature != null) {
-            if (isValidSignedSessionId(sessionIdQuery, timestamp, signature)) {
-                headerSessionId = sessionIdQuery;
+        if (guestToken == null && userId == null && allowSessionIdQueryParam && sessionIdQuery != null && timestamp != null && signature != null) {
+            if (guestCartTokenService.isValidSignedSessionId(sessionIdQuery, timestamp, signature)) {
+                GuestCartToken issued = guestCartTokenService.issue(sessionIdQuery);
+                extendGuestCart(issued);
+                guestToken = issued.token();
             }
         }
         CartSummaryDto cart;
@@ -73,7 +76,7 @@ public class CartController {
             cart = cartService.getUserCart(userId);
             return ResponseEntity.ok(ApiResponse.success(cart, "Cart retrieved successfully"));
         } else {
-            String sessionId = (headerSessionId != null && !headerSessionId.isBlank()) ? headerSessionId : session.getId();
+            String sessionId = resolveGuestId(guestToken, httpResponse);
             log.info("Get cart request for guest session: {}", sessionId);
             cart = cartService.getGuestCart(sessionId);
             return ResponseEntity.ok(ApiResponse.success(cart, "Guest cart retrieved successfully"));
@@ -91,49 +94,23 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success(cart, "Cart retrieved successfully"));
     }
 
-    private boolean isValidSignedSessionId(String sessionId, long timestamp, String signature) {
-        try {
-            if (sessionIdQuerySecret == null || sessionIdQuerySecret.isBlank()) {
-                log.warn("SessionId query secret not configured; rejecting signed sessionId");
-                return false;
-            }
-            long now = System.currentTimeMillis() / 1000L;
-            if (Math.abs(now - timestamp) > sessionIdQueryTtlSeconds) {
-                log.warn("Signed sessionId expired or too far in future");
-                return false;
-            }
-            String data = sessionId + ":" + timestamp;
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(sessionIdQuerySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] raw = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            String expected = bytesToHex(raw);
-            boolean match = constantTimeEquals(expected, signature);
-            if (!match) {
-                log.warn("Invalid signature for signed sessionId");
-            }
-            return match;
-        } catch (Exception e) {
-            log.error("Error validating signed sessionId", e);
-            return false;
-        }
-    }
-
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+    /**
+     * Resolve the guest id from the guest token and hand the (possibly new or renewed) token back to the client
+     */
+    private String resolveGuestId(String guestToken, HttpServletResponse httpResponse) {
+        GuestCartToken guest = guestCartTokenService.resolveOrIssue(guestToken);
+        if (!guest.token().equals(guestToken)) {
+            extendGuestCart(guest);
         }
-        return sb.toString();
+        httpResponse.setHeader(GUEST_SESSION_HEADER, guest.token());
+        return guest.guestId();
     }
 
-    private static boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        if (a.length() != b.length()) return false;
-        int result = 0;
-        for (int i = 0; i < a.length(); i++) {
-            result |= a.charAt(i) ^ b.charAt(i);
-        }
-        return result == 0;
+    /**
+     * Keep the guest's cart for as long as a token just handed out for it stays valid
+     */
+    private void extendGuestCart(GuestCartToken guest) {
+        cartService.extendGuestCart(guest.guestId(), LocalDateTime.ofInstant(guest.expiresAt(), ZoneId.systemDefault()));
     }
     
     /**
@@ -141,9 +118,9 @@ public class CartController {
      */
     @GetMapping("/guest")
     @Operation(summary = "Get guest cart", description = "Retrieve cart items for guest session")
-    public ResponseEntity<ApiResponse<CartSummaryDto>> getGuestCart(HttpSession session, HttpServletRequest httpRequest) {
-        String headerSessionId = httpRequest.getHeader("X-Guest-Session");
-        String sessionId = (headerSessionId != null && !headerSessionId.isBlank()) ? headerSessionId : session.getId();
+    public ResponseEntity<ApiResponse<CartSummaryDto>> getGuestCart(HttpServletRequest httpRequest,
+                                                                    HttpServletResponse httpResponse) {
+        String sessionId = resolveGuestId(httpRequest.getHeader(GUEST_SESSION_HEADER), httpResponse);
         log.info("Get guest cart request for session: {}", sessionId);
         
         CartSummaryDto cart = cartService.getGuestCart(sessionId);
@@ -158,9 +135,9 @@ public class CartController {
     public ResponseEntity<ApiResponse<CartItemDto>> addToCart(
             @Valid @RequestBody AddToCartRequest request,
             Authentication authentication,
-            HttpSession session,
-            HttpServletRequest httpRequest) {
-        String headerSessionId = httpRequest.getHeader("X-Guest-Session");
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) {
+        String headerSessionId = httpRequest.getHeader(GUEST_SESSION_HEADER);
         String headerUserId = httpRequest.getHeader("X-User-Id");
         
         // Priority: 1. Authentication, 2. UserId from request body, 3. Guest session
@@ -174,9 +151,9 @@ public class CartController {
             cartItem = cartService.addToUserCart(userId, request.getProductId(), request.getQuantity());
         } else {
             String sessionIdBody = request.getSessionId();
-            String sessionId = (sessionIdBody != null && !sessionIdBody.isBlank()) ? sessionIdBody
-                    : (headerSessionId != null && !headerSessionId.isBlank()) ? headerSessionId
-                    : session.getId();
+            String sessionId = resolveGuestId(
+                    (sessionIdBody != null && !sessionIdBody.isBlank()) ? sessionIdBody : headerSessionId,
+                    httpResponse);
             log.info("Adding product {} to guest session {} cart", request.getProductId(), sessionId);
             cartItem = cartService.addToGuestCart(sessionId, request.getProductId(), request.getQuantity());
         }
@@ -218,10 +195,10 @@ public class CartController {
     @Operation(summary = "Clear cart", description = "Remove all items from cart")
     public ResponseEntity<ApiResponse<String>> clearCart(
             Authentication authentication,
-            HttpSession session,
             HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse,
             @RequestParam(value = "userId", required = false) String userIdParam) {
-        String headerSessionId = httpRequest.getHeader("X-Guest-Session");
+        String headerSessionId = httpRequest.getHeader(GUEST_SESSION_HEADER);
         String headerUserId = httpRequest.getHeader("X-User-Id");
         
         String userId = headerUserId != null && !headerUserId.isBlank()
@@ -234,7 +211,7 @@ public class CartController {
             log.info("Clearing cart for user: {}", userId);
             cartService.clearUserCart(userId);
         } else {
-            String sessionId = (headerSessionId != null && !headerSessionId.isBlank()) ? headerSessionId : session.getId();
+            String sessionId = resolveGuestId(headerSessionId, httpResponse);
             log.info("Clearing cart for session: {}", sessionId);
             cartService.clearGuestCart(sessionId);
         }
@@ -249,9 +226,9 @@ public class CartController {
     @Operation(summary = "Get cart item count", description = "Get total number of items in cart")
     public ResponseEntity<ApiResponse<Integer>> getCartItemCount(
             Authentication authentication,
-            HttpSession session,
-            HttpServletRequest httpRequest) {
-        String headerSessionId = httpRequest.getHeader("X-Guest-Session");
+            HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse) {
+        String headerSessionId = httpRequest.getHeader(GUEST_SESSION_HEADER);
         String headerUserId = httpRequest.getHeader("X-User-Id");
         
         String userId = headerUserId != null && !headerUserId.isBlank()
@@ -262,7 +239,7 @@ public class CartController {
         if (userId != null) {
             count = cartService.getUserCartItemCount(userId);
         } else {
-            String sessionId = (headerSessionId != null && !headerSessionId.isBlank()) ? headerSessionId : session.getId();
+            String sessionId = resolveGuestId(headerSessionId, httpResponse);
             count = cartService.getGuestCartItemCount(sessionId);
         }
         
@@ -283,8 +260,6 @@ public class CartController {
                 ? headerUserId
                 : (authentication != null ? authentication.getName() : request.getUserId());
 
-        log.info("Transferring cart from session {} to user {}", request.getSessionId(), userId);
-
         if (request.getSessionId() == null || request.getSessionId().isBlank()) {
             log.warn("Transfer request missing sessionId");
             return ResponseEntity.badRequest().body(ApiResponse.badRequest("Session ID is required"));
@@ -293,13 +268,19 @@ public class CartController {
             log.warn("Transfer request missing userId");
             return ResponseEntity.badRequest().body(ApiResponse.badRequest("User ID is required"));
         }
+        String guestId = guestCartTokenService.resolveGuestId(request.getSessionId()).orElse(null);
+        if (guestId == null) {
+            log.warn("Transfer request has an invalid or expired guest session token");
+            return ResponseEntity.badRequest().body(ApiResponse.badRequest("Invalid guest session"));
+        }
+        log.info("Transferring cart from session {} to user {}", guestId, userId);
         
         try {
             CartSummaryDto cart = cartService.transferGuestCartToUser(
-                request.getSessionId(), userId, request.isMergeWithExisting());
+                guestId, userId, request.isMergeWithExisting());
             return ResponseEntity.ok(ApiResponse.success(cart, "Cart transferred successfully"));
         } catch (Exception ex) {
-            log.error("Cart transfer failed for user {} and session {}: {}", userId, request.getSessionId(), ex.getMessage(), ex);
+            log.error("Cart transfer failed for user {} and session {}: {}", userId, guestId, ex.getMessage(), ex);
             return ResponseEntity.internalServerError().body(ApiResponse.internalServerError("Failed to transfer cart"));
         }
     }
@@ -311,10 +292,10 @@ public class CartController {
     @Operation(summary = "Validate cart", description = "Validate cart items for availability and price changes")
     public ResponseEntity<ApiResponse<CartSummaryDto>> validateCart(
             Authentication authentication,
-            HttpSession session,
             HttpServletRequest httpRequest,
+            HttpServletResponse httpResponse,
             @RequestParam(value = "userId", required = false) String userIdParam) {
-        String headerSessionId = httpRequest.getHeader("X-Guest-Session");
+        String headerSessionId = httpRequest.getHeader(GUEST_SESSION_HEADER);
         String headerUserId = httpRequest.getHeader("X-User-Id");
         String forceGuest = httpRequest.getHeader("X-Force-Guest");
 
@@ -327,9 +308,7 @@ public class CartController {
                         ? userIdParam
                         : (authentication != null ? authentication.getName() : null)));
 
-        String sessionId = userId == null
-                ? ((headerSessionId != null && !headerSessionId.isBlank()) ? headerSessionId : session.getId())
-                : null;
+        String sessionId = userId == null ? resolveGuestId(headerSessionId, httpResponse) : null;
         
         log.info("Validating cart for user: {} or session: {}", userId, sessionId);
         
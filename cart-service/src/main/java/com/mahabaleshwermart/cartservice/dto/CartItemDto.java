@@ -17,7 +17,7 @@ import java.util.List;
  * Cart Item Data Transfer Object
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -26,12 +26,17 @@ public class CartSummaryDto implements Serializable {
     private int totalItems;
     private int totalQuantity;
     private BigDecimal subtotal;
+    /** Sale savings plus promotion discounts */
     private BigDecimal totalSavings;
+    /** Promotion discounts deducted from the subtotal */
+    private BigDecimal discountAmount;
+    private BigDecimal taxAmount;
     private BigDecimal deliveryCharge;
     private BigDecimal totalAmount;
     private boolean hasOutOfStockItems;
     private boolean hasUnavailableItems;
     private LocalDateTime lastUpdated;
+    private List<String> appliedPromotions;
 
     // Helper methods
     public boolean isEmpty() {
@@ -39,6 +44,6 @@ public class CartSummaryDto implements Serializable {
     }
 
     public boolean isEligibleForFreeDelivery() {
-        return subtotal != null && subtotal.compareTo(BigDecimal.valueOf(500)) >= 0;
+        return !isEmpty() && deliveryCharge != null && deliveryCharge.signum() == 0;
     }
 }
@@ -21,6 +21,9 @@ import java.time.LocalDateTime;
     @Index(name = "idx_cart_session", columnList = "session_id"),
     @Index(name = "idx_cart_product", columnList = "product_id"),
     @Index(name = "idx_cart_active", columnList = "active")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cart_user_product_active", columnNames = {"user_id", "product_id", "active_marker"}),
+    @UniqueConstraint(name = "uk_cart_session_product_active", columnNames = {"session_id", "product_id", "active_marker"})
 })
 @Data
 @Builder
@@ -69,6 +72,14 @@ public class CartItem {
     @Builder.Default
     private boolean active = true;
     
+    /**
+     * Generated by the database: 1 for active rows, NULL otherwise. Backs the unique keys so that
+     * only one active row per (owner, product) can exist while soft-deleted rows never collide.
+     */
+    @Column(name = "active_marker", insertable = false, updatable = false,
+            columnDefinition = "TINYINT GENERATED ALWAYS AS (CASE WHEN active THEN 1 END)")
+    private Integer activeMarker;
+    
     @Builder.Default
     private boolean available = true; // Product availability
     
@@ -95,6 +106,12 @@ public class CartItem {
     @Column(name = "added_at")
     private LocalDateTime addedAt;
     
+    @Column(name = "price_synced_at")
+    private LocalDateTime priceSyncedAt; // Last time price/availability were confirmed with product service
+    
+    @Column(name = "guest_expires_at")
+    private LocalDateTime guestExpiresAt; // Expiry of the newest guest token issued for this cart (guest carts only)
+    
     // Business logic methods
     @PrePersist
     private void prePersist() {
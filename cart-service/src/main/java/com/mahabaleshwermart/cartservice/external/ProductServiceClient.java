@@ -5,6 +5,10 @@ import com.mahabaleshwermart.cartservice.external.dto.ProductDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 /**
  * Feign client for Product Service communication
@@ -23,4 +27,10 @@ public interface ProductServiceClient {
      */
     @GetMapping("/sku/{sku}")
     ApiResponse<ProductDto> getProductBySku(@PathVariable("sku") String sku);
+    
+    /**
+     * Get active products by IDs in one call
+     */
+    @PostMapping("/by-ids")
+    ApiResponse<List<ProductDto>> getProductsByIds(@RequestBody List<String> ids);
 } 
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.mahabaleshwermart.cartservice.listener;
+
+import com.mahabaleshwermart.cartservice.service.CartService;
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Product Change Listener
+ * Refreshes cart lines in bulk when product-service publishes a price or availability change
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductChangeListener {
+    
+    private final CartService cartService;
+    
+    /**
+     * Handle product price/availability changes
+     */
+    @KafkaListener(topics = ProductChangedEvent.TOPIC, groupId = "${spring.kafka.consumer.group-id}")
+    public void handleProductChanged(@Payload ProductChangedEvent event) {
+        log.info("Processing product change for product: {}", event.getProductId());
+        cartService.applyProductChange(event);
+    }
+}
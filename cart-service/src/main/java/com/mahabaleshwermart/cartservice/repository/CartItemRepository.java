@@ -37,6 +37,53 @@ public interface CartItemRepository extends JpaRepository<CartItem, String> {
      */
     Optional<CartItem> findBySessionIdAndProductIdAndActiveTrue(String sessionId, String productId);
     
+    /**
+     * Atomically insert a cart item or add its quantity to the existing active row for the same
+     * (user or session, product) pair. Relies on the active-row unique keys of cart_items.
+     * Clears the persistence context, so the row read afterwards is the stored one. Every assignment reads
+     * only the old row and the inserted values, as MySQL applies them left to right.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO cart_items (id, user_id, session_id, product_id, product_name, product_image, " +
+            "product_price, original_price, product_unit, quantity, selected_quantity, total_price, active, available, " +
+            "product_category, product_sku, organic, fresh, created_at, updated_at, added_at, price_synced_at) " +
+            "VALUES (:#{#item.id}, :#{#item.userId}, :#{#item.sessionId}, :#{#item.productId}, :#{#item.productName}, " +
+            ":#{#item.productImage}, :#{#item.productPrice}, :#{#item.originalPrice}, :#{#item.productUnit}, " +
+            ":#{#item.quantity}, :#{#item.selectedQuantity}, :#{#item.totalPrice}, true, :#{#item.available}, " +
+            ":#{#item.productCategory}, :#{#item.productSku}, :#{#item.organic}, :#{#item.fresh}, " +
+            ":#{#item.createdAt}, :#{#item.updatedAt}, :#{#item.addedAt}, :#{#item.priceSyncedAt}) " +
+            "ON DUPLICATE KEY UPDATE total_price = VALUES(product_price) * (quantity + VALUES(quantity)), " +
+            "quantity = quantity + VALUES(quantity), selected_quantity = selected_quantity + VALUES(quantity), " +
+            "product_price = VALUES(product_price), original_price = VALUES(original_price), " +
+            "available = VALUES(available), price_synced_at = VALUES(price_synced_at), " +
+            "updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    int upsertActiveItem(@Param("item") CartItem item);
+    
+    /**
+     * Set the quantity of an active cart item (used to write coalesced quantity updates)
+     *
+     * @return 0 when the item is gone or no longer active
+     */
+    @Modifying
+    @Query(value = "UPDATE cart_items SET quantity = :quantity, selected_quantity = :quantity, " +
+            "total_price = product_price * :quantity, updated_at = :updatedAt " +
+            "WHERE id = :id AND active = true",
+            nativeQuery = true)
+    int updateQuantity(@Param("id") String id, @Param("quantity") int quantity,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Record the expiry of a newly issued or renewed guest token on the guest's active items, which keeps
+     * the cart from being purged while that token is valid
+     */
+    @Modifying
+    @Query(value = "UPDATE cart_items SET guest_expires_at = :expiresAt " +
+            "WHERE session_id = :sessionId AND user_id IS NULL AND active = true " +
+            "AND (guest_expires_at IS NULL OR guest_expires_at < :expiresAt)",
+            nativeQuery = true)
+    int extendGuestCart(@Param("sessionId") String sessionId, @Param("expiresAt") LocalDateTime expiresAt);
+    
     /**
      * Count active cart items by user ID
      */
@@ -100,11 +147,15 @@ public interface CartItemRepository extends JpaRepository<CartItem, String> {
     void transferCartFromSessionToUser(@Param("sessionId") String sessionId, @Param("userId") String userId);
     
     /**
-     * Delete expired cart items (for guest sessions)
+     * Deactivate guest items whose product is already in the user's active cart, so a plain
+     * session-to-user transfer cannot violate the active (user, product) unique key
      */
     @Modifying
-    @Query("UPDATE CartItem c SET c.active = false WHERE c.sessionId IS NOT NULL AND c.createdAt < :expiredBefore")
-    void deleteExpiredGuestCartItems(@Param("expiredBefore") LocalDateTime expiredBefore);
+    @Query(value = "UPDATE cart_items g JOIN cart_items u ON u.product_id = g.product_id " +
+            "AND u.user_id = :userId AND u.active = true " +
+            "SET g.active = false WHERE g.session_id = :sessionId AND g.active = true",
+            nativeQuery = true)
+    void deactivateGuestItemsAlreadyInUserCart(@Param("sessionId") String sessionId, @Param("userId") String userId);
     
     /**
      * Find cart items by multiple product IDs
@@ -112,19 +163,29 @@ public interface CartItemRepository extends JpaRepository<CartItem, String> {
     @Query("SELECT c FROM CartItem c WHERE c.productId IN :productIds AND c.active = true")
     List<CartItem> findByProductIds(@Param("productIds") List<String> productIds);
     
+    /**
+     * Find users with the product in their active cart (for scoped cache eviction)
+     */
+    @Query("SELECT DISTINCT c.userId FROM CartItem c WHERE c.productId = :productId AND c.active = true AND c.userId IS NOT NULL")
+    List<String> findActiveUserIdsByProductId(@Param("productId") String productId);
+    
     /**
      * Update product availability in cart
      */
     @Modifying
-    @Query("UPDATE CartItem c SET c.available = :available WHERE c.productId = :productId")
-    void updateProductAvailability(@Param("productId") String productId, @Param("available") boolean available);
+    @Query("UPDATE CartItem c SET c.available = :available, c.priceSyncedAt = :syncedAt WHERE c.productId = :productId AND c.active = true")
+    int updateProductAvailability(@Param("productId") String productId, @Param("available") boolean available,
+                                  @Param("syncedAt") LocalDateTime syncedAt);
     
     /**
      * Update product price in cart
      */
     @Modifying
-    @Query("UPDATE CartItem c SET c.productPrice = :price, c.totalPrice = c.quantity * :price WHERE c.productId = :productId AND c.active = true")
-    void updateProductPrice(@Param("productId") String productId, @Param("price") java.math.BigDecimal price);
+    @Query("UPDATE CartItem c SET c.productPrice = :price, c.originalPrice = :originalPrice, c.totalPrice = c.quantity * :price, " +
+            "c.available = :available, c.priceSyncedAt = :syncedAt WHERE c.productId = :productId AND c.active = true")
+    int updateProductPrice(@Param("productId") String productId, @Param("price") java.math.BigDecimal price,
+                           @Param("originalPrice") java.math.BigDecimal originalPrice,
+                           @Param("available") boolean available, @Param("syncedAt") LocalDateTime syncedAt);
     
     /**
      * Find cart items that need price/availability update
@@ -0,0 +1,196 @@
+package com.mahabaleshwermart.cartservice.service;
+
+import com.mahabaleshwermart.cartservice.dto.CartItemDto;
+import com.mahabaleshwermart.cartservice.repository.CartItemRepository;
+import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cart Quantity Coalescer
+ * Merges rapid quantity updates for the same cart item into a single UPDATE. An update with no write of
+ * its item in flight is written at once by its own caller; updates that arrive while a write is in flight
+ * wait for it and are then written together by whichever of them gets the item next, with the latest
+ * quantity. Every caller is answered with the outcome of the write that carried its quantity, after it
+ * committed. Pending quantities are overlaid on cart reads in the meantime.
+ */
+@Slf4j
+@Component
+public class CartQuantityCoalescer {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    private final ConcurrentMap<String, PendingQuantity> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock[] writeLocks = new ReentrantLock[LOCK_STRIPES];
+
+    public CartQuantityCoalescer(CartItemRepository cartItemRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 CacheManager cacheManager) {
+        this.cartItemRepository = cartItemRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Writes commit on their own so they never depend on the outcome of a caller's transaction
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get the pending snapshot of a cart item, if it has an unwritten quantity update
+     */
+    public Optional<CartItemDto> getPending(String cartItemId) {
+        return Optional.ofNullable(pending.get(cartItemId))
+                .map(p -> withQuantity(p.item(), p.quantity()));
+    }
+
+    /**
+     * Write a quantity update, merged with the updates of the same item that arrive while another write
+     * of it is in flight; later updates replace the quantity
+     *
+     * @return the item as written
+     * @throws ResourceNotFoundException when the item was removed before the write
+     */
+    public CartItemDto update(CartItemDto item, int quantity) {
+        String itemId = item.getId();
+        PendingQuantity queued = pending.merge(itemId,
+                new PendingQuantity(item, quantity, new CompletableFuture<>()),
+                (existing, update) -> existing.replacedBy(quantity));
+        ReentrantLock lock = writeLocks[Math.floorMod(itemId.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            if (!queued.written().isDone()) {
+                write(itemId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return queued.written().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Overlay pending quantities on freshly loaded cart items
+     */
+    public void applyPending(List<CartItemDto> items) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (CartItemDto item : items) {
+            PendingQuantity p = pending.get(item.getId());
+            if (p != null) {
+                item.setQuantity(p.quantity());
+                item.setSelectedQuantity(p.quantity());
+                item.setTotalPrice(item.getProductPrice().multiply(BigDecimal.valueOf(p.quantity())));
+            }
+        }
+    }
+
+    /**
+     * Drop a pending update (item removed); its callers are told the item is gone
+     */
+    public void discard(String cartItemId) {
+        PendingQuantity removed = pending.remove(cartItemId);
+        if (removed != null) {
+            removed.written().completeExceptionally(new ResourceNotFoundException("Cart item", "id", cartItemId));
+        }
+    }
+
+    /**
+     * Drop all pending updates of a cart (cart cleared)
+     */
+    public void discardOwner(String userId, String sessionId) {
+        pending.values().stream()
+                .filter(p -> isOwnedBy(p, userId, sessionId))
+                .map(p -> p.item().getId())
+                .toList()
+                .forEach(this::discard);
+    }
+
+    /**
+     * Write the latest pending quantity of an item and complete every update it carries; called with the
+     * item's write lock held
+     */
+    private void write(String itemId) {
+        PendingQuantity latest = pending.remove(itemId);
+        if (latest == null) {
+            return; // discarded, its callers were already answered
+        }
+        int updated;
+        try {
+            updated = transactionTemplate.execute(status ->
+                    cartItemRepository.updateQuantity(itemId, latest.quantity(), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            log.error("Failed to write the quantity of cart item {}", itemId, e);
+            latest.written().completeExceptionally(e);
+            return;
+        }
+        if (updated == 0) {
+            // Removed after the caller read it
+            latest.written().completeExceptionally(new ResourceNotFoundException("Cart item", "id", itemId));
+            return;
+        }
+        // Committed: evict the cached cart before answering, so no caller reads its old cart back
+        Cache cache = cacheManager.getCache("user-cart");
+        if (cache != null && latest.item().getUserId() != null) {
+            cache.evict(latest.item().getUserId());
+        }
+        latest.written().complete(withQuantity(latest.item(), latest.quantity()));
+    }
+
+    private static boolean isOwnedBy(PendingQuantity p, String userId, String sessionId) {
+        return (userId != null && userId.equals(p.item().getUserId()))
+                || (sessionId != null && sessionId.equals(p.item().getSessionId()));
+    }
+
+    private static CartItemDto withQuantity(CartItemDto item, int quantity) {
+        return item.toBuilder()
+                .quantity(quantity)
+                .selectedQuantity(quantity)
+                .totalPrice(item.getProductPrice().multiply(BigDecimal.valueOf(quantity)))
+                .build();
+    }
+
+    /**
+     * @param written completed with the written item once this quantity, or one that replaced it, is committed
+     */
+    private record PendingQuantity(CartItemDto item, int quantity, CompletableFuture<CartItemDto> written) {
+
+        PendingQuantity replacedBy(int newQuantity) {
+            PendingQuantity next = new PendingQuantity(item, newQuantity, new CompletableFuture<>());
+            next.written().whenComplete((result, failure) -> {
+                if (failure != null) {
+                    written.completeExceptionally(failure);
+                } else {
+                    written.complete(result);
+                }
+            });
+            return next;
+        }
+    }
+}
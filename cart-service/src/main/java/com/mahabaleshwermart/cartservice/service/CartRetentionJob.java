@@ -0,0 +1,65 @@
+package com.mahabaleshwermart.cartservice.service;
+
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate;
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate.PurgeStep;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart Retention Job
+ * Hard-deletes removed cart items and expired guest carts so active-cart queries do not wade through dead rows.
+ * A guest cart expires with the last token issued for it, however long ago it was last changed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartRetentionJob {
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    // Guest items without a recorded token expiry were added after the newest token was issued, which
+    // therefore expires no later than one token lifetime after the item's last write
+    @Value("${app.security.guest-token-ttl-seconds:2592000}")
+    private long guestTokenTtlSeconds;
+
+    @Value("${app.cart.retention.inactive-days:7}")
+    private int inactiveRetentionDays;
+
+    @Value("${app.cart.retention.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.cart.retention.chunk-pause-ms:100}")
+    private long chunkPauseMillis;
+
+    @Scheduled(cron = "${app.cart.retention.cron:0 30 3 * * *}")
+    public void purge() {
+        log.info("Starting cart retention purge");
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Long> purged = new ChunkedPurgeTemplate(dataSource, "cart-service.retention", chunkSize, chunkPauseMillis)
+                .execute(List.of(
+                        new PurgeStep("inactive-cart-items",
+                                "DELETE FROM cart_items WHERE active = false " +
+                                        "AND COALESCE(updated_at, created_at) < ? ORDER BY id LIMIT ?",
+                                now.minusDays(inactiveRetentionDays)),
+                        new PurgeStep("expired-guest-cart-items",
+                                "DELETE FROM cart_items WHERE session_id IS NOT NULL AND user_id IS NULL " +
+                                        "AND (guest_expires_at < ? OR (guest_expires_at IS NULL " +
+                                        "AND COALESCE(updated_at, created_at) < ?)) ORDER BY id LIMIT ?",
+                                now, now.minusSeconds(guestTokenTtlSeconds))));
+
+        purged.forEach((step, rows) ->
+                meterRegistry.counter("retention.rows.purged", "step", step).increment(rows));
+        log.info("Cart retention purge completed: {}", purged);
+    }
+}
@@ -4,21 +4,36 @@ import com.mahabaleshwermart.cartservice.dto.CartItemDto;
 import com.mahabaleshwermart.cartservice.dto.CartSummaryDto;
 import com.mahabaleshwermart.cartservice.entity.CartItem;
 import com.mahabaleshwermart.cartservice.external.ProductServiceClient;
+import com.mahabaleshwermart.cartservice.external.dto.ProductDto;
 import com.mahabaleshwermart.cartservice.mapper.CartMapper;
 import com.mahabaleshwermart.cartservice.repository.CartItemRepository;
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
 import com.mahabaleshwermart.common.exception.BusinessException;
 import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import com.mahabaleshwermart.common.pricing.PriceLine;
+import com.mahabaleshwermart.common.pricing.PricingEngine;
+import com.mahabaleshwermart.common.pricing.PricingResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Cart Service
@@ -32,9 +47,12 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final CartMapper cartMapper;
     private final ProductServiceClient productServiceClient;
+    private final CartQuantityCoalescer quantityCoalescer;
+    private final CacheManager cacheManager;
+    private final PricingEngine pricingEngine;
     
-    private static final BigDecimal FREE_DELIVERY_THRESHOLD = BigDecimal.valueOf(500);
-    private static final BigDecimal STANDARD_DELIVERY_CHARGE = BigDecimal.valueOf(50);
+    @Value("${app.cart.product-sync.max-age-seconds:900}")
+    private long productSyncMaxAgeSeconds;
     
     /**
      * Get cart items for user
@@ -67,44 +85,11 @@ public class CartService {
     public CartItemDto addToUserCart(String userId, String productId, int quantity) {
         log.info("Adding product {} to user {} cart with quantity {}", productId, userId, quantity);
         
-        // Fetch product details
-        var productResponse = productServiceClient.getProductById(productId);
-        if (productResponse == null || !productResponse.isSuccess() || productResponse.getData() == null) {
-            throw new ResourceNotFoundException("Product", "id", productId);
-        }
-        var productDto = productResponse.getData();
-        
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByUserIdAndProductIdAndActiveTrue(userId, productId);
+        CartItem cartItem = newCartItem(productId, quantity);
+        cartItem.setUserId(userId);
         
-        CartItem cartItem;
-        if (existingItem.isPresent()) {
-            // Update existing item quantity
-            cartItem = existingItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItem.setSelectedQuantity(cartItem.getQuantity());
-        } else {
-            // Create new cart item
-            cartItem = CartItem.builder()
-                    .userId(userId)
-                    .productId(productId)
-                    .productName(productDto.getName())
-                    .productImage(productDto.getImage())
-                    .productPrice(productDto.getPrice())
-                    .originalPrice(productDto.getOriginalPrice())
-                    .productUnit(productDto.getUnit())
-                    .quantity(quantity)
-                    .selectedQuantity(quantity)
-                    .available(productDto.isInStock())
-                    .productCategory(productDto.getCategory())
-                    .productSku(productDto.getSku())
-                    .organic(productDto.isOrganic())
-                    .fresh(productDto.isFresh())
-                    .addedAt(LocalDateTime.now())
-                    .build();
-        }
-        
-        cartItem = cartItemRepository.save(cartItem);
+        cartItem = upsertCartItem(cartItem,
+                () -> cartItemRepository.findByUserIdAndProductIdAndActiveTrue(userId, productId));
         log.info("Product added to cart successfully: {}", cartItem.getId());
         
         return cartMapper.toDto(cartItem);
@@ -117,54 +102,29 @@ public class CartService {
     public CartItemDto addToGuestCart(String sessionId, String productId, int quantity) {
         log.info("Adding product {} to session {} cart with quantity {}", productId, sessionId, quantity);
         
-        // Fetch product details
-        var productResponse = productServiceClient.getProductById(productId);
-        if (productResponse == null || !productResponse.isSuccess() || productResponse.getData() == null) {
-            throw new ResourceNotFoundException("Product", "id", productId);
-        }
-        var productDto = productResponse.getData();
-        
-        // Check if item already exists in session cart
-        Optional<CartItem> existingItem = cartItemRepository.findBySessionIdAndProductIdAndActiveTrue(sessionId, productId);
+        CartItem cartItem = newCartItem(productId, quantity);
+        cartItem.setSessionId(sessionId);
         
-        CartItem cartItem;
-        if (existingItem.isPresent()) {
-            // Update existing item quantity
-            cartItem = existingItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItem.setSelectedQuantity(cartItem.getQuantity());
-        } else {
-            // Create new cart item
-            cartItem = CartItem.builder()
-                    .sessionId(sessionId)
-                    .productId(productId)
-                    .productName(productDto.getName())
-                    .productImage(productDto.getImage())
-                    .productPrice(productDto.getPrice())
-                    .originalPrice(productDto.getOriginalPrice())
-                    .productUnit(productDto.getUnit())
-                    .quantity(quantity)
-                    .selectedQuantity(quantity)
-                    .available(productDto.isInStock())
-                    .productCategory(productDto.getCategory())
-                    .productSku(productDto.getSku())
-                    .organic(productDto.isOrganic())
-                    .fresh(productDto.isFresh())
-                    .addedAt(LocalDateTime.now())
-                    .build();
-        }
-        
-        cartItem = cartItemRepository.save(cartItem);
+        cartItem = upsertCartItem(cartItem,
+                () -> cartItemRepository.findBySessionIdAndProductIdAndActiveTrue(sessionId, productId));
         log.info("Product added to guest cart successfully: {}", cartItem.getId());
         
         return cartMapper.toDto(cartItem);
     }
     
     /**
-     * Update cart item quantity
+     * Keep a guest cart until the guest token just issued or renewed for it expires
      */
-    @CacheEvict(value = "user-cart", allEntries = true)
     @Transactional
+    public void extendGuestCart(String sessionId, LocalDateTime expiresAt) {
+        int extended = cartItemRepository.extendGuestCart(sessionId, expiresAt);
+        log.debug("Extended {} items of guest cart {} until {}", extended, sessionId, expiresAt);
+    }
+    
+    /**
+     * Update cart item quantity
+     * The write is coalesced with concurrent updates of the same item and returns once it has committed
+     */
     public CartItemDto updateCartItemQuantity(String cartItemId, int quantity) {
         log.info("Updating cart item {} quantity to {}", cartItemId, quantity);
         
@@ -172,21 +132,20 @@ public class CartService {
             throw new BusinessException("Quantity must be greater than 0");
         }
         
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId));
+        CartItemDto cartItem = quantityCoalescer.getPending(cartItemId)
+                .orElseGet(() -> cartItemRepository.findById(cartItemId)
+                        .map(cartMapper::toDto)
+                        .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId)));
         
-        cartItem.setQuantity(quantity);
-        cartItem.setSelectedQuantity(quantity);
-        cartItem = cartItemRepository.save(cartItem);
+        cartItem = quantityCoalescer.update(cartItem, quantity);
         
-        log.info("Cart item quantity updated successfully: {}", cartItemId);
-        return cartMapper.toDto(cartItem);
+        log.info("Cart item quantity updated: {}", cartItemId);
+        return cartItem;
     }
     
     /**
      * Remove item from cart
      */
-    @CacheEvict(value = "user-cart", allEntries = true)
     @Transactional
     public void removeCartItem(String cartItemId) {
         log.info("Removing cart item: {}", cartItemId);
@@ -194,8 +153,10 @@ public class CartService {
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item", "id", cartItemId));
         
+        quantityCoalescer.discard(cartItemId);
         cartItem.setActive(false);
         cartItemRepository.save(cartItem);
+        evictUserCartAfterCommit(cartItem.getUserId());
         
         log.info("Cart item removed successfully: {}", cartItemId);
     }
@@ -208,6 +169,7 @@ public class CartService {
     public void clearUserCart(String userId) {
         log.info("Clearing cart for user: {}", userId);
         
+        quantityCoalescer.discardOwner(userId, null);
         cartItemRepository.clearCartByUserId(userId);
         
         log.info("User cart cleared successfully: {}", userId);
@@ -220,6 +182,7 @@ public class CartService {
     public void clearGuestCart(String sessionId) {
         log.info("Clearing cart for session: {}", sessionId);
         
+        quantityCoalescer.discardOwner(null, sessionId);
         cartItemRepository.clearCartBySessionId(sessionId);
         
         log.info("Guest cart cleared successfully: {}", sessionId);
@@ -259,7 +222,8 @@ public class CartService {
                 }
             }
         } else {
-            // Simple transfer without merging
+            // Simple transfer without merging; the user's existing line wins for duplicated products
+            cartItemRepository.deactivateGuestItemsAlreadyInUserCart(sessionId, userId);
             cartItemRepository.transferCartFromSessionToUser(sessionId, userId);
         }
         
@@ -297,65 +261,155 @@ public class CartService {
             cartItems = cartItemRepository.findBySessionIdAndActiveTrueOrderByCreatedAtDesc(sessionId);
         }
         
-        boolean cartUpdated = false;
-        
-        for (CartItem item : cartItems) {
-            try {
-                var productResponse = productServiceClient.getProductById(item.getProductId());
-                if (productResponse == null || !productResponse.isSuccess() || productResponse.getData() == null) {
-                    throw new RuntimeException("Product not found");
-                }
-                var productDto = productResponse.getData();
-                
-                // Update product information if changed
-                if (!item.getProductPrice().equals(productDto.getPrice()) ||
-                    item.isAvailable() != productDto.isInStock()) {
-                    
-                    item.setProductPrice(productDto.getPrice());
-                    item.setOriginalPrice(productDto.getOriginalPrice());
-                    item.setAvailable(productDto.isInStock());
-                    item.setProductName(productDto.getName());
-                    item.setProductImage(productDto.getImage());
-                    
-                    cartItemRepository.save(item);
-                    cartUpdated = true;
-                }
-            } catch (Exception e) {
-                log.warn("Product {} not found, marking as unavailable", item.getProductId());
-                item.setAvailable(false);
-                cartItemRepository.save(item);
-                cartUpdated = true;
-            }
-        }
+        // Items refreshed recently (on add or by a product change event) are trusted as is
+        LocalDateTime syncedAfter = LocalDateTime.now().minusSeconds(productSyncMaxAgeSeconds);
+        List<CartItem> staleItems = cartItems.stream()
+                .filter(item -> item.getPriceSyncedAt() == null || item.getPriceSyncedAt().isBefore(syncedAfter))
+                .toList();
         
-        if (cartUpdated) {
+        if (!staleItems.isEmpty() && refreshFromProductService(staleItems)) {
             log.info("Cart validation completed with updates");
-            // Clear cache to force refresh
-            if (userId != null) {
-                // Cache will be refreshed on next call
-            }
+            evictUserCartAfterCommit(userId);
         }
         
         return buildCartSummary(cartItems);
     }
     
     /**
-     * Clean up expired guest cart items
+     * Apply a product price/availability change to every active cart line of the product
      */
     @Transactional
-    public void cleanupExpiredGuestCarts() {
-        log.info("Cleaning up expired guest cart items");
-        
-        LocalDateTime expiredBefore = LocalDateTime.now().minusDays(7); // 7 days old
-        cartItemRepository.deleteExpiredGuestCartItems(expiredBefore);
-        
-        log.info("Expired guest cart items cleanup completed");
+    public void applyProductChange(ProductChangedEvent event) {
+        String productId = event.getProductId();
+        List<String> affectedUserIds = cartItemRepository.findActiveUserIdsByProductId(productId);
+        LocalDateTime now = LocalDateTime.now();
+        
+        int updated = event.getPrice() != null
+                ? cartItemRepository.updateProductPrice(productId, event.getPrice(), event.getOriginalPrice(),
+                        event.isAvailable(), now)
+                : cartItemRepository.updateProductAvailability(productId, event.isAvailable(), now);
+        log.info("Applied product change for product {} to {} cart items", productId, updated);
+        
+        affectedUserIds.forEach(this::evictUserCartAfterCommit);
     }
     
     // Private helper methods
     
+    /**
+     * Re-check stale cart items against product service with a single batch call
+     * @return true when any item changed
+     */
+    private boolean refreshFromProductService(List<CartItem> staleItems) {
+        List<String> productIds = staleItems.stream().map(CartItem::getProductId).distinct().toList();
+        Map<String, ProductDto> products;
+        try {
+            var productResponse = productServiceClient.getProductsByIds(productIds);
+            if (productResponse == null || !productResponse.isSuccess() || productResponse.getData() == null) {
+                log.warn("Product lookup for cart validation failed, keeping current cart data");
+                return false;
+            }
+            products = productResponse.getData().stream()
+                    .collect(Collectors.toMap(ProductDto::getId, Function.identity(), (a, b) -> a));
+        } catch (Exception e) {
+            log.warn("Product lookup for cart validation failed, keeping current cart data: {}", e.getMessage());
+            return false;
+        }
+        
+        boolean cartUpdated = false;
+        LocalDateTime now = LocalDateTime.now();
+        for (CartItem item : staleItems) {
+            ProductDto productDto = products.get(item.getProductId());
+            if (productDto == null) {
+                log.warn("Product {} not found, marking as unavailable", item.getProductId());
+                cartUpdated |= item.isAvailable();
+                item.setAvailable(false);
+            } else if (item.getProductPrice().compareTo(productDto.getPrice()) != 0 ||
+                    item.isAvailable() != productDto.isInStock()) {
+                // Update product information if changed
+                item.setProductPrice(productDto.getPrice());
+                item.setOriginalPrice(productDto.getOriginalPrice());
+                item.setAvailable(productDto.isInStock());
+                item.setProductName(productDto.getName());
+                item.setProductImage(productDto.getImage());
+                cartUpdated = true;
+            }
+            item.setPriceSyncedAt(now);
+        }
+        // Flush so totals are recalculated before the summary is built
+        cartItemRepository.saveAllAndFlush(staleItems);
+        return cartUpdated;
+    }
+    
+    /**
+     * Evict only the owning user's cached cart (guest carts are not cached)
+     */
+    private void evictUserCart(String userId) {
+        Cache cache = cacheManager.getCache("user-cart");
+        if (cache != null && userId != null) {
+            cache.evict(userId);
+        }
+    }
+    
+    /**
+     * Evict after commit so a concurrent read cannot cache the pre-update cart again
+     */
+    private void evictUserCartAfterCommit(String userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictUserCart(userId);
+            }
+        });
+    }
+    
+    /**
+     * Build a new, not yet persisted cart item from the current product details
+     */
+    private CartItem newCartItem(String productId, int quantity) {
+        var productResponse = productServiceClient.getProductById(productId);
+        if (productResponse == null || !productResponse.isSuccess() || productResponse.getData() == null) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        var productDto = productResponse.getData();
+        LocalDateTime now = LocalDateTime.now();
+        
+        return CartItem.builder()
+                .id(UUID.randomUUID().toString())
+                .productId(productId)
+                .productName(productDto.getName())
+                .productImage(productDto.getImage())
+                .productPrice(productDto.getPrice())
+                .originalPrice(productDto.getOriginalPrice())
+                .productUnit(productDto.getUnit())
+                .quantity(quantity)
+                .selectedQuantity(quantity)
+                .totalPrice(productDto.getPrice().multiply(BigDecimal.valueOf(quantity)))
+                .available(productDto.isInStock())
+                .productCategory(productDto.getCategory())
+                .productSku(productDto.getSku())
+                .organic(productDto.isOrganic())
+                .fresh(productDto.isFresh())
+                .createdAt(now)
+                .updatedAt(now)
+                .addedAt(now)
+                .priceSyncedAt(now)
+                .build();
+    }
+    
+    /**
+     * Insert the item or merge its quantity into the existing active row in a single statement, then read
+     * the row back. The affected-row count cannot tell the two apart reliably (it depends on the driver's
+     * found-rows setting), so the row is returned as stored either way.
+     */
+    private CartItem upsertCartItem(CartItem cartItem, Supplier<Optional<CartItem>> activeItem) {
+        cartItemRepository.upsertActiveItem(cartItem);
+        return activeItem.get()
+                .orElseThrow(() -> new BusinessException("Cart item could not be saved"));
+    }
+    
     private CartSummaryDto buildCartSummary(List<CartItem> cartItems) {
         List<CartItemDto> itemDtos = cartMapper.toDtoList(cartItems);
+        quantityCoalescer.applyPending(itemDtos);
         
         if (itemDtos.isEmpty()) {
             return CartSummaryDto.builder()
@@ -364,6 +418,8 @@ public class CartService {
                     .totalQuantity(0)
                     .subtotal(BigDecimal.ZERO)
                     .totalSavings(BigDecimal.ZERO)
+                    .discountAmount(BigDecimal.ZERO)
+                    .taxAmount(BigDecimal.ZERO)
                     .deliveryCharge(BigDecimal.ZERO)
                     .totalAmount(BigDecimal.ZERO)
                     .hasOutOfStockItems(false)
@@ -375,18 +431,11 @@ public class CartService {
         int totalItems = itemDtos.size();
         int totalQuantity = itemDtos.stream().mapToInt(CartItemDto::getQuantity).sum();
         
-        BigDecimal subtotal = itemDtos.stream()
-                .map(CartItemDto::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal totalSavings = itemDtos.stream()
-                .map(CartItemDto::getSavings)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal deliveryCharge = subtotal.compareTo(FREE_DELIVERY_THRESHOLD) >= 0 
-                ? BigDecimal.ZERO : STANDARD_DELIVERY_CHARGE;
-        
-        BigDecimal totalAmount = subtotal.add(deliveryCharge);
+        // Same engine and rules as order-service, so checkout charges exactly what the cart shows
+        PricingResult pricing = pricingEngine.price(itemDtos.stream()
+                .map(item -> new PriceLine(item.getProductId(), item.getProductCategory(),
+                        item.getProductPrice(), item.getOriginalPrice(), item.getQuantity()))
+                .toList());
         
         boolean hasOutOfStockItems = itemDtos.stream().anyMatch(item -> !item.isAvailable());
         boolean hasUnavailableItems = hasOutOfStockItems; // Same for now
@@ -400,10 +449,13 @@ public class CartService {
                 .items(itemDtos)
                 .totalItems(totalItems)
                 .totalQuantity(totalQuantity)
-                .subtotal(subtotal)
-                .totalSavings(totalSavings)
-                .deliveryCharge(deliveryCharge)
-                .totalAmount(totalAmount)
+                .subtotal(pricing.subtotal())
+                .totalSavings(pricing.totalSavings())
+                .discountAmount(pricing.discountAmount())
+                .taxAmount(pricing.taxAmount())
+                .deliveryCharge(pricing.deliveryCharge())
+                .totalAmount(pricing.totalAmount())
+                .appliedPromotions(pricing.appliedPromotions())
                 .hasOutOfStockItems(hasOutOfStockItems)
                 .hasUnavailableItems(hasUnavailableItems)
                 .lastUpdated(lastUpdated)
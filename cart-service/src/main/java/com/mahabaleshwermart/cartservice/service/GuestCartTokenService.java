@@ -0,0 +1,164 @@
+package com.mahabaleshwermart.cartservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Guest Cart Token Service
+ * Issues and verifies self-contained guest cart tokens of the form {@code <guestId>.<expiresAt>.<hmac>}.
+ * Any cart-service instance sharing the secret can verify a token, so guests need no server-side session.
+ */
+@Slf4j
+@Service
+public class GuestCartTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Value("${app.security.guest-token-secret:}")
+    private String guestTokenSecret;
+
+    @Value("${app.security.guest-token-ttl-seconds:2592000}")
+    private long guestTokenTtlSeconds;
+
+    @Value("${app.security.session-id-query-secret:}")
+    private String sessionIdQuerySecret;
+
+    @Value("${app.security.session-id-query-ttl-seconds:300}")
+    private long sessionIdQueryTtlSeconds;
+
+    /**
+     * A per-instance secret would make every other instance reject this one's tokens, emptying guest carts
+     * on each hop, so the service refuses to start without a shared one
+     */
+    @PostConstruct
+    void init() {
+        if (guestTokenSecret == null || guestTokenSecret.isBlank()) {
+            throw new IllegalStateException("app.security.guest-token-secret is not set; configure the same " +
+                    "GUEST_TOKEN_SECRET on every cart-service instance");
+        }
+    }
+
+    /**
+     * A verified or newly issued guest identity and the token the client should send next time
+     *
+     * @param expiresAt when {@code token} expires
+     */
+    public record GuestCartToken(String guestId, String token, Instant expiresAt) {
+    }
+
+    /**
+     * Verify the presented token; issue a token for a new guest when it is missing, invalid or expired.
+     * Tokens past half their lifetime are re-issued for the same guest so active carts never expire.
+     */
+    public GuestCartToken resolveOrIssue(String token) {
+        long now = System.currentTimeMillis() / 1000L;
+        return verify(token, now)
+                .map(guest -> guest.expiresAt() - now < guestTokenTtlSeconds / 2
+                        ? issue(guest.guestId(), now)
+                        : new GuestCartToken(guest.guestId(), token, Instant.ofEpochSecond(guest.expiresAt())))
+                .orElseGet(() -> issue(UUID.randomUUID().toString(), now));
+    }
+
+    /**
+     * Issue a token for an already known guest id
+     */
+    public GuestCartToken issue(String guestId) {
+        return issue(guestId, System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * Resolve the guest id of a token without issuing a new one
+     */
+    public Optional<String> resolveGuestId(String token) {
+        return verify(token, System.currentTimeMillis() / 1000L).map(VerifiedGuest::guestId);
+    }
+
+    /**
+     * Validate a sessionId passed through signed query parameters (HMAC + TTL)
+     */
+    public boolean isValidSignedSessionId(String sessionId, long timestamp, String signature) {
+        if (sessionIdQuerySecret == null || sessionIdQuerySecret.isBlank()) {
+            log.warn("SessionId query secret not configured; rejecting signed sessionId");
+            return false;
+        }
+        long now = System.currentTimeMillis() / 1000L;
+        if (Math.abs(now - timestamp) > sessionIdQueryTtlSeconds) {
+            log.warn("Signed sessionId expired or too far in future");
+            return false;
+        }
+        boolean match = constantTimeEquals(sign(sessionId + ":" + timestamp, sessionIdQuerySecret), signature);
+        if (!match) {
+            log.warn("Invalid signature for signed sessionId");
+        }
+        return match;
+    }
+
+    private GuestCartToken issue(String guestId, long now) {
+        long expiresAt = now + guestTokenTtlSeconds;
+        String token = guestId + "." + expiresAt + "." + sign(guestId + ":" + expiresAt, guestTokenSecret);
+        return new GuestCartToken(guestId, token, Instant.ofEpochSecond(expiresAt));
+    }
+
+    private Optional<VerifiedGuest> verify(String token, long now) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        // Split on the last two dots: guest ids issued from signed session ids may contain dots themselves
+        int signatureDot = token.lastIndexOf('.');
+        int expiryDot = signatureDot > 0 ? token.lastIndexOf('.', signatureDot - 1) : -1;
+        if (expiryDot <= 0) {
+            log.debug("Rejecting malformed guest token");
+            return Optional.empty();
+        }
+        String guestId = token.substring(0, expiryDot);
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(token.substring(expiryDot + 1, signatureDot));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (expiresAt < now) {
+            log.debug("Rejecting expired guest token");
+            return Optional.empty();
+        }
+        if (!constantTimeEquals(sign(guestId + ":" + expiresAt, guestTokenSecret), token.substring(signatureDot + 1))) {
+            log.warn("Invalid signature for guest token");
+            return Optional.empty();
+        }
+        return Optional.of(new VerifiedGuest(guestId, expiresAt));
+    }
+
+    private static String sign(String data, String secret) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute " + HMAC_ALGORITHM, e);
+        }
+    }
+
+    private static boolean constantTimeEquals(String a, String b) {
+        if (a == null || b == null) return false;
+        if (a.length() != b.length()) return false;
+        int result = 0;
+        for (int i = 0; i < a.length(); i++) {
+            result |= a.charAt(i) ^ b.charAt(i);
+        }
+        return result == 0;
+    }
+
+    private record VerifiedGuest(String guestId, long expiresAt) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.mahabaleshwermart.cartservice.repository;
+
+import com.mahabaleshwermart.cartservice.entity.CartItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Adding a product runs as one upsert against the active (owner, product) unique keys, so repeated and
+ * concurrent adds end in a single active line. Guest lines carry the expiry of the newest token issued for them, and product changes reach every active line
+ * of the product in one bulk update.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:cart;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = CartItemRepositoryTest.JpaConfiguration.class)
+class CartItemRepositoryTest {
+
+    @SpringBootConfiguration
+    @EntityScan("com.mahabaleshwermart.cartservice.entity")
+    @EnableJpaRepositories("com.mahabaleshwermart.cartservice.repository")
+    @EnableJpaAuditing
+    static class JpaConfiguration {
+    }
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> cartItemRepository.deleteAll());
+    }
+
+    @Test
+    void addingAProductAgainAddsToTheActiveLine() {
+        cartItemRepository.upsertActiveItem(item("user-1", null, 2));
+        cartItemRepository.upsertActiveItem(item("user-1", null, 3));
+
+        List<CartItem> active = cartItemRepository.findByUserIdAndActiveTrueOrderByCreatedAtDesc("user-1");
+        assertThat(active).hasSize(1);
+        assertThat(active.get(0).getQuantity()).isEqualTo(5);
+        assertThat(active.get(0).getSelectedQuantity()).isEqualTo(5);
+        assertThat(active.get(0).getTotalPrice()).isEqualByComparingTo("200.00");
+    }
+
+    @Test
+    void removedLinesDoNotBlockANewOne() {
+        cartItemRepository.upsertActiveItem(item("user-1", null, 2));
+        cartItemRepository.clearCartByUserId("user-1");
+
+        cartItemRepository.upsertActiveItem(item("user-1", null, 1));
+
+        assertThat(cartItemRepository.findByUserIdAndProductIdAndActiveTrue("user-1", "product-1"))
+                .get()
+                .extracting(CartItem::getQuantity)
+                .isEqualTo(1);
+        assertThat(cartItemRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void guestAndUserLinesOfOneProductAreSeparate() {
+        cartItemRepository.upsertActiveItem(item("user-1", null, 2));
+        cartItemRepository.upsertActiveItem(item(null, "guest-1", 4));
+
+        assertThat(cartItemRepository.findBySessionIdAndProductIdAndActiveTrue("guest-1", "product-1"))
+                .get()
+                .extracting(CartItem::getQuantity)
+                .isEqualTo(4);
+        assertThat(cartItemRepository.findByUserIdAndProductIdAndActiveTrue("user-1", "product-1"))
+                .get()
+                .extracting(CartItem::getQuantity)
+                .isEqualTo(2);
+    }
+
+    @Test
+    void quantityUpdateSkipsRemovedLines() {
+        CartItem item = item("user-1", null, 2);
+        cartItemRepository.upsertActiveItem(item);
+
+        assertThat(cartItemRepository.updateQuantity(item.getId(), 4, LocalDateTime.now())).isEqualTo(1);
+        assertThat(cartItemRepository.findById(item.getId()))
+                .get()
+                .extracting(CartItem::getTotalPrice)
+                .satisfies(total -> assertThat(total).isEqualByComparingTo("160.00"));
+
+        cartItemRepository.clearCartByUserId("user-1");
+        assertThat(cartItemRepository.updateQuantity(item.getId(), 5, LocalDateTime.now())).isZero();
+    }
+
+    @Test
+    void guestTokenExpiryOnlyMovesForward() {
+        CartItem guestLine = item(null, "guest-1", 1);
+        CartItem otherGuestLine = item(null, "guest-2", 1);
+        cartItemRepository.upsertActiveItem(guestLine);
+        cartItemRepository.upsertActiveItem(otherGuestLine);
+        LocalDateTime renewedUntil = LocalDateTime.now().plusDays(30).withNano(0);
+
+        assertThat(cartItemRepository.extendGuestCart("guest-1", renewedUntil)).isEqualTo(1);
+        assertThat(cartItemRepository.extendGuestCart("guest-1", renewedUntil.minusDays(10))).isZero();
+
+        assertThat(cartItemRepository.findById(guestLine.getId()))
+                .get()
+                .extracting(CartItem::getGuestExpiresAt)
+                .isEqualTo(renewedUntil);
+        assertThat(cartItemRepository.findById(otherGuestLine.getId()))
+                .get()
+                .extracting(CartItem::getGuestExpiresAt)
+                .isNull();
+    }
+
+    @Test
+    void priceChangeRepricesActiveLinesOfTheProduct() {
+        CartItem userLine = item("user-1", null, 3);
+        CartItem guestLine = item(null, "guest-1", 2);
+        CartItem removedLine = item("user-2", null, 1);
+        cartItemRepository.upsertActiveItem(userLine);
+        cartItemRepository.upsertActiveItem(guestLine);
+        cartItemRepository.upsertActiveItem(removedLine);
+        cartItemRepository.clearCartByUserId("user-2");
+
+        int updated = cartItemRepository.updateProductPrice("product-1", new BigDecimal("35.00"),
+                new BigDecimal("40.00"), false, LocalDateTime.now());
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(cartItemRepository.findById(userLine.getId())).get().satisfies(line -> {
+            assertThat(line.getProductPrice()).isEqualByComparingTo("35.00");
+            assertThat(line.getTotalPrice()).isEqualByComparingTo("105.00");
+            assertThat(line.isAvailable()).isFalse();
+        });
+        assertThat(cartItemRepository.findById(guestLine.getId())).get()
+                .extracting(CartItem::getTotalPrice)
+                .satisfies(total -> assertThat(total).isEqualByComparingTo("70.00"));
+        assertThat(cartItemRepository.findById(removedLine.getId())).get()
+                .extracting(CartItem::getProductPrice)
+                .satisfies(price -> assertThat(price).isEqualByComparingTo("40.00"));
+        assertThat(cartItemRepository.findActiveUserIdsByProductId("product-1")).containsExactly("user-1");
+    }
+
+    @Test
+    void availabilityChangeKeepsPrices() {
+        CartItem line = item("user-1", null, 3);
+        cartItemRepository.upsertActiveItem(line);
+
+        assertThat(cartItemRepository.updateProductAvailability("product-1", false, LocalDateTime.now())).isEqualTo(1);
+
+        assertThat(cartItemRepository.findById(line.getId())).get().satisfies(updated -> {
+            assertThat(updated.isAvailable()).isFalse();
+            assertThat(updated.getTotalPrice()).isEqualByComparingTo("120.00");
+        });
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentAddsEndInOneLineWithEveryQuantity() throws Exception {
+        int adds = 8;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(adds);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < adds; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    await(start);
+                    transactionTemplate.executeWithoutResult(status ->
+                            cartItemRepository.upsertActiveItem(item("user-1", null, 1)));
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<CartItem> active = cartItemRepository.findByUserIdAndActiveTrueOrderByCreatedAtDesc("user-1");
+        assertThat(active).hasSize(1);
+        assertThat(active.get(0).getQuantity()).isEqualTo(adds);
+    }
+
+    private static CartItem item(String userId, String sessionId, int quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal price = new BigDecimal("40.00");
+        return CartItem.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(userId)
+                .sessionId(sessionId)
+                .productId("product-1")
+                .productName("Strawberries")
+                .productImage("strawberries.png")
+                .productPrice(price)
+                .originalPrice(price)
+                .productUnit("box")
+                .quantity(quantity)
+                .selectedQuantity(quantity)
+                .totalPrice(price.multiply(BigDecimal.valueOf(quantity)))
+                .createdAt(now)
+                .updatedAt(now)
+                .addedAt(now)
+                .priceSyncedAt(now)
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
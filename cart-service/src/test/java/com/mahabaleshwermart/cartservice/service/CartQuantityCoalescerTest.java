@@ -0,0 +1,161 @@
+package com.mahabaleshwermart.cartservice.service;
+
+import com.mahabaleshwermart.cartservice.dto.CartItemDto;
+import com.mahabaleshwermart.cartservice.repository.CartItemRepository;
+import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Quantity updates are written by their caller without waiting for a timer, updates racing a write of the
+ * same item are merged into the next one, and every caller gets the outcome of its own item's write.
+ */
+@ExtendWith(MockitoExtension.class)
+class CartQuantityCoalescerTest {
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private CacheManager cacheManager;
+
+    private final Cache userCarts = new ConcurrentMapCache("user-cart");
+
+    private CartQuantityCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheManager.getCache("user-cart")).thenReturn(userCarts);
+        coalescer = new CartQuantityCoalescer(cartItemRepository, transactionManager, cacheManager);
+    }
+
+    @Test
+    void singleUpdateIsWrittenByItsCaller() {
+        when(cartItemRepository.updateQuantity(eq("item-1"), eq(3), any(LocalDateTime.class))).thenReturn(1);
+        userCarts.put("user-1", "cached cart");
+
+        CartItemDto written = coalescer.update(item("item-1"), 3);
+
+        assertThat(written.getQuantity()).isEqualTo(3);
+        assertThat(written.getTotalPrice()).isEqualByComparingTo("120.00");
+        assertThat(userCarts.get("user-1")).isNull();
+        assertThat(coalescer.getPending("item-1")).isEmpty();
+    }
+
+    @Test
+    void updateOfARemovedItemIsNotFound() {
+        when(cartItemRepository.updateQuantity(eq("item-1"), eq(3), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> coalescer.update(item("item-1"), 3))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void updatesDuringAWriteAreMergedIntoTheNextOne() throws Exception {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        when(cartItemRepository.updateQuantity(eq("item-1"), anyInt(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            if (invocation.<Integer>getArgument(1) == 1) {
+                firstWriteStarted.countDown();
+                releaseFirstWrite.await(5, TimeUnit.SECONDS);
+            }
+            return 1;
+        });
+
+        CompletableFuture<CartItemDto> first = CompletableFuture.supplyAsync(() -> coalescer.update(item("item-1"), 1));
+        assertThat(firstWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<CartItemDto> second = CompletableFuture.supplyAsync(() -> coalescer.update(item("item-1"), 2));
+        awaitPending("item-1", 2);
+        CompletableFuture<CartItemDto> third = CompletableFuture.supplyAsync(() -> coalescer.update(item("item-1"), 3));
+        awaitPending("item-1", 3);
+        releaseFirstWrite.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(1);
+        assertThat(second.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(3);
+        assertThat(third.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(3);
+        verify(cartItemRepository).updateQuantity(eq("item-1"), eq(1), any(LocalDateTime.class));
+        verify(cartItemRepository, never()).updateQuantity(eq("item-1"), eq(2), any(LocalDateTime.class));
+        verify(cartItemRepository).updateQuantity(eq("item-1"), eq(3), any(LocalDateTime.class));
+    }
+
+    @Test
+    void failedWriteOnlyFailsItsOwnItem() {
+        when(cartItemRepository.updateQuantity(eq("item-1"), anyInt(), any(LocalDateTime.class)))
+                .thenThrow(new QueryTimeoutException("lock wait timeout"));
+        when(cartItemRepository.updateQuantity(eq("item-2"), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+
+        assertThatThrownBy(() -> coalescer.update(item("item-1"), 2)).isInstanceOf(QueryTimeoutException.class);
+        assertThat(coalescer.update(item("item-2"), 2).getQuantity()).isEqualTo(2);
+        assertThat(coalescer.getPending("item-1")).isEmpty();
+    }
+
+    @Test
+    void discardedUpdateIsNotWritten() throws Exception {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        when(cartItemRepository.updateQuantity(eq("item-1"), eq(1), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            firstWriteStarted.countDown();
+            releaseFirstWrite.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+
+        CompletableFuture<CartItemDto> first = CompletableFuture.supplyAsync(() -> coalescer.update(item("item-1"), 1));
+        assertThat(firstWriteStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<CartItemDto> second = CompletableFuture.supplyAsync(() -> coalescer.update(item("item-1"), 2));
+        awaitPending("item-1", 2);
+        coalescer.discard("item-1");
+        releaseFirstWrite.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getQuantity()).isEqualTo(1);
+        assertThat(second).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableOfType(Exception.class)
+                .withRootCauseInstanceOf(ResourceNotFoundException.class);
+        verify(cartItemRepository, times(1)).updateQuantity(any(), anyInt(), any(LocalDateTime.class));
+    }
+
+    private void awaitPending(String itemId, int quantity) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalescer.getPending(itemId).map(CartItemDto::getQuantity).orElse(0) != quantity) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static CartItemDto item(String id) {
+        return CartItemDto.builder()
+                .id(id)
+                .userId("user-1")
+                .productId("product-1")
+                .productPrice(new BigDecimal("40.00"))
+                .quantity(1)
+                .selectedQuantity(1)
+                .totalPrice(new BigDecimal("40.00"))
+                .build();
+    }
+}
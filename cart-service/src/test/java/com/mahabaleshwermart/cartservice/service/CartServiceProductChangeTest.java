@@ -0,0 +1,117 @@
+package com.mahabaleshwermart.cartservice.service;
+
+import com.mahabaleshwermart.cartservice.external.ProductServiceClient;
+import com.mahabaleshwermart.cartservice.mapper.CartMapper;
+import com.mahabaleshwermart.cartservice.repository.CartItemRepository;
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
+import com.mahabaleshwermart.common.pricing.PricingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A product change refreshes every active cart line of the product with one bulk update and evicts the cached
+ * carts of the affected users only once that update has committed.
+ */
+@ExtendWith(MockitoExtension.class)
+class CartServiceProductChangeTest {
+
+    @Mock
+    private CartItemRepository cartItemRepository;
+    @Mock
+    private CartMapper cartMapper;
+    @Mock
+    private ProductServiceClient productServiceClient;
+    @Mock
+    private CartQuantityCoalescer quantityCoalescer;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @InjectMocks
+    private CartService cartService;
+
+    private final Cache userCarts = new ConcurrentMapCache("user-cart");
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheManager.getCache("user-cart")).thenReturn(userCarts);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void priceChangeRepricesAllLinesAndEvictsAffectedCartsAfterCommit() {
+        when(cartItemRepository.findActiveUserIdsByProductId("product-1")).thenReturn(List.of("user-1", "user-2"));
+        userCarts.put("user-1", "cart 1");
+        userCarts.put("user-2", "cart 2");
+        userCarts.put("user-3", "cart 3");
+
+        cartService.applyProductChange(ProductChangedEvent.builder()
+                .productId("product-1")
+                .price(new BigDecimal("35.00"))
+                .originalPrice(new BigDecimal("40.00"))
+                .available(true)
+                .build());
+
+        verify(cartItemRepository).updateProductPrice(eq("product-1"), eq(new BigDecimal("35.00")),
+                eq(new BigDecimal("40.00")), eq(true), any(LocalDateTime.class));
+        verify(cartItemRepository, never()).updateProductAvailability(any(), anyBoolean(), any());
+        assertThat(userCarts.get("user-1")).isNotNull();
+
+        commit();
+
+        assertThat(userCarts.get("user-1")).isNull();
+        assertThat(userCarts.get("user-2")).isNull();
+        assertThat(userCarts.get("user-3")).isNotNull();
+    }
+
+    @Test
+    void availabilityChangeKeepsPrices() {
+        when(cartItemRepository.findActiveUserIdsByProductId("product-1")).thenReturn(List.of("user-1"));
+        userCarts.put("user-1", "cart 1");
+
+        cartService.applyProductChange(ProductChangedEvent.builder()
+                .productId("product-1")
+                .available(false)
+                .build());
+
+        verify(cartItemRepository).updateProductAvailability(eq("product-1"), eq(false), any(LocalDateTime.class));
+        verify(cartItemRepository, never()).updateProductPrice(any(), any(), any(), anyBoolean(), any());
+
+        commit();
+
+        assertThat(userCarts.get("user-1")).isNull();
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
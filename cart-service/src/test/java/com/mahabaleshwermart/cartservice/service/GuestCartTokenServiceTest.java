@@ -0,0 +1,105 @@
+package com.mahabaleshwermart.cartservice.service;
+
+import com.mahabaleshwermart.cartservice.service.GuestCartTokenService.GuestCartToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Guest tokens verify on any instance sharing the secret, are rejected once tampered with or expired, and are
+ * renewed for the same guest past half their lifetime.
+ */
+class GuestCartTokenServiceTest {
+
+    private static final long TTL_SECONDS = 1000;
+
+    private GuestCartTokenService tokens;
+
+    @BeforeEach
+    void setUp() {
+        tokens = service("shared-secret", TTL_SECONDS);
+    }
+
+    @Test
+    void issuedTokenVerifiesOnAnotherInstanceWithTheSameSecret() {
+        GuestCartToken issued = tokens.issue("guest-1");
+
+        assertThat(service("shared-secret", TTL_SECONDS).resolveGuestId(issued.token())).contains("guest-1");
+        assertThat(service("other-secret", TTL_SECONDS).resolveGuestId(issued.token())).isEmpty();
+        assertThat(issued.expiresAt()).isAfter(Instant.now().plusSeconds(TTL_SECONDS - 5));
+    }
+
+    @Test
+    void guestIdsWithDotsVerify() {
+        GuestCartToken issued = tokens.issue("session.from.query");
+
+        assertThat(tokens.resolveGuestId(issued.token())).contains("session.from.query");
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        String token = tokens.issue("guest-1").token();
+        String[] parts = token.split("\\.");
+        long laterExpiry = Long.parseLong(parts[1]) + 100_000;
+
+        assertThat(tokens.resolveGuestId("guest-2." + parts[1] + "." + parts[2])).isEmpty();
+        assertThat(tokens.resolveGuestId(parts[0] + "." + laterExpiry + "." + parts[2])).isEmpty();
+        assertThat(tokens.resolveGuestId(parts[0] + "." + parts[1] + "." + "0".repeat(parts[2].length()))).isEmpty();
+        assertThat(tokens.resolveGuestId(parts[0] + "." + parts[1])).isEmpty();
+        assertThat(tokens.resolveGuestId("." + parts[1] + "." + parts[2])).isEmpty();
+        assertThat(tokens.resolveGuestId("guest-1.soon." + parts[2])).isEmpty();
+    }
+
+    @Test
+    void expiredTokenIsRejectedAndReplacedWithANewGuest() {
+        String expired = service("shared-secret", -10).issue("guest-1").token();
+
+        assertThat(tokens.resolveGuestId(expired)).isEmpty();
+        GuestCartToken replacement = tokens.resolveOrIssue(expired);
+        assertThat(replacement.guestId()).isNotEqualTo("guest-1");
+        assertThat(tokens.resolveGuestId(replacement.token())).contains(replacement.guestId());
+    }
+
+    @Test
+    void missingTokenIssuesANewGuest() {
+        GuestCartToken first = tokens.resolveOrIssue(null);
+        GuestCartToken second = tokens.resolveOrIssue("");
+
+        assertThat(first.guestId()).isNotEqualTo(second.guestId());
+        assertThat(tokens.resolveGuestId(first.token())).contains(first.guestId());
+    }
+
+    @Test
+    void freshTokenIsKeptAndAgeingTokenIsRenewedForTheSameGuest() {
+        GuestCartToken issued = tokens.issue("guest-1");
+        assertThat(tokens.resolveOrIssue(issued.token())).isEqualTo(issued);
+
+        // With a longer lifetime the same token is past half of it
+        GuestCartToken renewed = service("shared-secret", 3 * TTL_SECONDS).resolveOrIssue(issued.token());
+
+        assertThat(renewed.guestId()).isEqualTo("guest-1");
+        assertThat(renewed.token()).isNotEqualTo(issued.token());
+        assertThat(renewed.expiresAt()).isAfter(issued.expiresAt());
+    }
+
+    @Test
+    void refusesToStartWithoutASharedSecret() {
+        GuestCartTokenService unconfigured = new GuestCartTokenService();
+        ReflectionTestUtils.setField(unconfigured, "guestTokenSecret", " ");
+
+        assertThatThrownBy(unconfigured::init).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static GuestCartTokenService service(String secret, long ttlSeconds) {
+        GuestCartTokenService service = new GuestCartTokenService();
+        ReflectionTestUtils.setField(service, "guestTokenSecret", secret);
+        ReflectionTestUtils.setField(service, "guestTokenTtlSeconds", ttlSeconds);
+        service.init();
+        return service;
+    }
+}
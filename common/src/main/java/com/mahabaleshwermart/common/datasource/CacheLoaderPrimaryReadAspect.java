@@ -0,0 +1,24 @@
+package com.mahabaleshwermart.common.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Sends the reads of {@code @Cacheable} methods to the primary. A loader that read a lagging replica right
+ * after a write evicted its entry would cache the old value again for the whole TTL; on the primary the
+ * cache is refilled with what was just written. Cache hits never reach the database, so only misses pay.
+ */
+@Aspect
+public class CacheLoaderPrimaryReadAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object readFromPrimary(ProceedingJoinPoint pjp) throws Throwable {
+        boolean previous = ReadYourWritesTracker.forcePrimary(true);
+        try {
+            return pjp.proceed();
+        } finally {
+            ReadYourWritesTracker.forcePrimary(previous);
+        }
+    }
+}
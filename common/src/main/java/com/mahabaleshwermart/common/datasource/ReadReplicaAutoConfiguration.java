@@ -0,0 +1,100 @@
+package com.mahabaleshwermart.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write split for services with {@code app.datasource.read-replicas.enabled}: {@code spring.datasource}
+ * stays the primary and {@code @Transactional(readOnly = true)} work goes to the configured replicas,
+ * except for {@code @Cacheable} loaders, which always read the primary.
+ * Backs off when the service defines its own data source, as order-service does when it is sharded.
+ */
+@AutoConfiguration(before = DataSourceAutoConfiguration.class)
+@ConditionalOnClass(HikariDataSource.class)
+@ConditionalOnProperty(name = "app.datasource.read-replicas.enabled", havingValue = "true")
+@ConditionalOnMissingBean(DataSource.class)
+@EnableConfigurationProperties({DataSourceProperties.class, ReadReplicaProperties.class})
+public class ReadReplicaAutoConfiguration {
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReadReplicaProperties properties) {
+        long stickinessMillis = Math.max(properties.getStickinessMs(), properties.getMaxLagSeconds() * 1000);
+        return new ReadYourWritesTracker(properties.getStickyUsers(), stickinessMillis);
+    }
+
+    @Bean
+    public CacheLoaderPrimaryReadAspect cacheLoaderPrimaryReadAspect() {
+        return new CacheLoaderPrimaryReadAspect();
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilterRegistrationBean() {
+        FilterRegistrationBean<ReadYourWritesFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new ReadYourWritesFilter());
+        registrationBean.setOrder(Integer.MIN_VALUE + 2);
+        return registrationBean;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                                 ReadReplicaProperties properties,
+                                                                 ReadYourWritesTracker writesTracker,
+                                                                 Environment environment) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalStateException("app.datasource.read-replicas.enabled is set but no replicas are configured");
+        }
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReadReplicaProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, new ReplicaLagMonitor(replicas, properties), writesTracker);
+    }
+
+    /**
+     * Connections are only taken on the first statement, once the transaction's read-only flag is set
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+}
@@ -0,0 +1,33 @@
+package com.mahabaleshwermart.common.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.datasource.read-replicas")
+public class ReadReplicaProperties {
+    private boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    /** Replicas further behind the primary are skipped until they catch up */
+    private long maxLagSeconds = 5;
+    private long lagCheckIntervalMs = 5000;
+    /** Query run on each replica to read its lag; MySQL by default, e.g. {@code SELECT 0 AS lag} for embedded databases */
+    private String lagQuery = "SHOW REPLICA STATUS";
+    /** Column of {@code lagQuery} holding the lag in seconds; NULL means replication is stopped */
+    private String lagColumn = "Seconds_Behind_Source";
+    /** How long the reads of a user who just wrote stay on the primary; at least {@code maxLagSeconds} */
+    private long stickinessMs = 10_000;
+    /** Users with a recent write remembered per instance */
+    private int stickyUsers = 100_000;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mahabaleshwermart.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * Reads stay on the primary while no replica is close enough, and for a user who wrote moments ago.
+ * Must sit behind a lazy connection proxy so the read-only flag of the transaction is known when the
+ * connection is taken.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA_PREFIX = "replica-";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker writesTracker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                      ReplicaLagMonitor lagMonitor, ReadYourWritesTracker writesTracker) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.lagMonitor = lagMonitor;
+        this.writesTracker = writesTracker;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagMonitor.start();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writesTracker.onWrite();
+            return PRIMARY;
+        }
+        if (writesTracker.mustReadPrimary()) {
+            return PRIMARY;
+        }
+        OptionalInt replica = lagMonitor.nextHealthy();
+        return replica.isPresent() ? REPLICA_PREFIX + replica.getAsInt() : PRIMARY;
+    }
+
+    @Override
+    public void close() throws Exception {
+        lagMonitor.close();
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
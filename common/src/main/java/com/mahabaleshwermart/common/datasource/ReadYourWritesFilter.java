@@ -0,0 +1,51 @@
+package com.mahabaleshwermart.common.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter that binds the calling user, as forwarded by the gateway, for {@link ReadYourWritesTracker}.
+ * Guests are bound by the guest id leading their cart token, so a guest's own writes are sticky as well;
+ * the token is not verified here, as the id only decides where reads go.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String GUEST_SESSION_HEADER = "X-Guest-Session";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String userId = request.getHeader(USER_ID_HEADER);
+        if (!StringUtils.hasText(userId)) {
+            userId = guestId(request.getHeader(GUEST_SESSION_HEADER));
+        }
+        if (!StringUtils.hasText(userId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadYourWritesTracker.bindUser(userId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWritesTracker.clearUser();
+        }
+    }
+
+    /**
+     * The guest id of a {@code <guestId>.<expiresAt>.<hmac>} token, prefixed so it never matches a user id
+     */
+    private static String guestId(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        int end = token.indexOf('.');
+        return "guest:" + (end > 0 ? token.substring(0, end) : token);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mahabaleshwermart.common.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers which users wrote recently, so their reads stay on the primary until the replicas have
+ * caught up with the write. The user (or guest) of the current thread is bound by {@link ReadYourWritesFilter};
+ * work without one, such as listeners and scheduled jobs, is never sticky. Code that must not see replica
+ * lag at all, such as cache loaders, can send its reads to the primary with {@link #forcePrimary(boolean)}.
+ */
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = ThreadLocal.withInitial(() -> false);
+
+    private final Map<String, Long> lastWrites;
+    private final long stickinessMillis;
+
+    public ReadYourWritesTracker(int maxUsers, long stickinessMillis) {
+        this.stickinessMillis = stickinessMillis;
+        this.lastWrites = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    public static void bindUser(String userId) {
+        CURRENT_USER.set(userId);
+    }
+
+    public static void clearUser() {
+        CURRENT_USER.remove();
+    }
+
+    /**
+     * Send (or stop sending) the reads of the current thread to the primary
+     *
+     * @return the previous setting, to be restored when the caller is done
+     */
+    public static boolean forcePrimary(boolean force) {
+        boolean previous = PRIMARY_FORCED.get();
+        if (force) {
+            PRIMARY_FORCED.set(true);
+        } else {
+            PRIMARY_FORCED.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Whether reads are forced to the primary or the current user wrote within the stickiness window
+     */
+    boolean mustReadPrimary() {
+        if (PRIMARY_FORCED.get()) {
+            return true;
+        }
+        String userId = CURRENT_USER.get();
+        if (userId == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < stickinessMillis;
+    }
+
+    /**
+     * Note that the current user is writing; the window starts when the transaction commits
+     */
+    void onWrite() {
+        String userId = CURRENT_USER.get();
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWrites.put(userId, System.currentTimeMillis());
+                }
+            });
+        } else {
+            lastWrites.put(userId, System.currentTimeMillis());
+        }
+    }
+}
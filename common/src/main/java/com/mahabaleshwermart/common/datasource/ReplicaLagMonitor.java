@@ -0,0 +1,101 @@
+package com.mahabaleshwermart.common.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Polls the lag of every replica and hands out the ones that are close enough to the primary, round robin.
+ * A replica that cannot be queried, has replication stopped or lags more than {@code maxLagSeconds} is
+ * skipped until a later check finds it healthy. Until the first check completes no replica is used.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private final List<JdbcTemplate> replicas;
+    private final AtomicIntegerArray healthy;
+    private final AtomicInteger next = new AtomicInteger();
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+    private final long checkIntervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(List<DataSource> replicas, ReadReplicaProperties properties) {
+        this.replicas = replicas.stream().map(JdbcTemplate::new).toList();
+        this.healthy = new AtomicIntegerArray(replicas.size());
+        this.lagQuery = properties.getLagQuery();
+        this.lagColumn = properties.getLagColumn();
+        this.maxLagSeconds = properties.getMaxLagSeconds();
+        this.checkIntervalMillis = properties.getLagCheckIntervalMs();
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::checkAll, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The next healthy replica, or empty when reads have to go to the primary
+     */
+    public OptionalInt nextHealthy() {
+        int count = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            int replica = (start + i) % count;
+            if (healthy.get(replica) == 1) {
+                return OptionalInt.of(replica);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    void checkAll() {
+        for (int i = 0; i < replicas.size(); i++) {
+            long lag = lagOf(i);
+            boolean ok = lag >= 0 && lag <= maxLagSeconds;
+            int previous = healthy.getAndSet(i, ok ? 1 : 0);
+            if (previous == 1 && !ok) {
+                log.warn("Read replica {} taken out of rotation (lag {} s)", i, lag < 0 ? "unknown" : lag);
+            } else if (previous == 0 && ok) {
+                log.info("Read replica {} in rotation (lag {} s)", i, lag);
+            }
+        }
+    }
+
+    /**
+     * @return the lag in seconds, or -1 when it is unknown
+     */
+    private long lagOf(int replica) {
+        try {
+            Long lag = replicas.get(replica).query(lagQuery, rs -> {
+                if (!rs.next()) {
+                    return null; // not configured as a replica
+                }
+                Object value = rs.getObject(lagColumn);
+                return value instanceof Number number ? number.longValue() : null;
+            });
+            return lag != null ? lag : -1;
+        } catch (DataAccessException e) {
+            log.debug("Unable to read lag of replica {}: {}", replica, e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package com.mahabaleshwermart.common.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product change event for Kafka messaging
+ * Published by product-service when price or availability changes, consumed by cart-service.
+ * A null price means the price did not change.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangedEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String TOPIC = "product-changed";
+    
+    private String productId;
+    private BigDecimal price;
+    private BigDecimal originalPrice;
+    private boolean available;
+    @Builder.Default
+    private LocalDateTime timestamp = LocalDateTime.now();
+}
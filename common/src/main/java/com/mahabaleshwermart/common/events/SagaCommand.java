@@ -0,0 +1,55 @@
+package com.mahabaleshwermart.common.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Saga command for Kafka messaging
+ * Sent by the order-service checkout saga to a participant, which answers with a {@link SagaReply}
+ * carrying the same step id. Participants must tolerate redelivery and compensations for steps
+ * they never executed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaCommand implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String INVENTORY_TOPIC = "inventory-commands";
+    public static final String PAYMENT_TOPIC = "order-payment-commands";
+    public static final String CART_TOPIC = "order-cart-commands";
+    
+    private String sagaId;
+    private String stepId;
+    private String orderId;
+    private String step;
+    private Action action;
+    private String userId;
+    private String paymentMethod;
+    private String gatewayProvider;
+    private List<Item> items;
+    @Builder.Default
+    private LocalDateTime timestamp = LocalDateTime.now();
+    
+    public enum Action {
+        EXECUTE,
+        COMPENSATE
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private String productId;
+        private int quantity;
+    }
+}
@@ -0,0 +1,45 @@
+package com.mahabaleshwermart.common.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Saga reply for Kafka messaging
+ * Outcome of a {@link SagaCommand}, sent back to the order-service saga orchestrator
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SagaReply implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String TOPIC = "order-saga-replies";
+    
+    private String sagaId;
+    private String stepId;
+    private String orderId;
+    private String step;
+    private SagaCommand.Action action;
+    private boolean success;
+    private String message;
+    @Builder.Default
+    private LocalDateTime timestamp = LocalDateTime.now();
+    
+    public static SagaReply to(SagaCommand command, boolean success, String message) {
+        return SagaReply.builder()
+                .sagaId(command.getSagaId())
+                .stepId(command.getStepId())
+                .orderId(command.getOrderId())
+                .step(command.getStep())
+                .action(command.getAction())
+                .success(success)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.mahabaleshwermart.common.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * User profile change event for Kafka messaging
+ * Published by user-service after a profile update commits, consumed by order-service to refresh
+ * its user snapshots. Carries the profile as it is after the change.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfileChangedEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String TOPIC = "user-profile-changed";
+    
+    private String userId;
+    private String name;
+    private String email;
+    private String phone;
+    @Builder.Default
+    private LocalDateTime timestamp = LocalDateTime.now();
+}
@@ -0,0 +1,12 @@
+package com.mahabaleshwermart.common.exception;
+
+/**
+ * Exception thrown when a request conflicts with the current state of a resource
+ * (for example a duplicate request that is still being processed)
+ */
+public class ConflictException extends RuntimeException {
+    
+    public ConflictException(String message) {
+        super(message);
+    }
+}
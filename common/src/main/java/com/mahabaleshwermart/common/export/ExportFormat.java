@@ -0,0 +1,40 @@
+package com.mahabaleshwermart.common.export;
+
+import com.mahabaleshwermart.common.exception.BusinessException;
+
+/**
+ * Output formats supported by {@link StreamingExportTemplate}
+ */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Parse a request parameter such as {@code csv} or {@code ndjson}
+     */
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value) || format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BusinessException("Unsupported export format: " + value + " (use csv or ndjson)");
+    }
+}
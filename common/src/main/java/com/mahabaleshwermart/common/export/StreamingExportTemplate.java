@@ -0,0 +1,454 @@
+package com.mahabaleshwermart.common.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the result of a SQL query to an HTTP response as CSV or NDJSON.
+ * Rows are read through a forward-only, read-only cursor and written as they arrive, so memory use does not
+ * depend on the size of the export. Nothing goes through JPA, so there is no persistence context to grow.
+ * Column names in the output are the SQL column labels; use aliases to name them.
+ * Given several data sources, such as the shards of one table, the query runs on each of them at once and
+ * their rows are merged on a column every query is already ordered by.
+ */
+@Slf4j
+public class StreamingExportTemplate {
+
+    /**
+     * MySQL Connector/J streams rows one by one only for this fetch size; other drivers treat it as a hint
+     */
+    public static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final List<DataSource> dataSources;
+    private final String mergeColumn;
+    private final int fetchSize;
+
+    public StreamingExportTemplate(DataSource dataSource) {
+        this(dataSource, MYSQL_STREAMING_FETCH_SIZE);
+    }
+
+    public StreamingExportTemplate(DataSource dataSource, int fetchSize) {
+        this(List.of(dataSource), null, fetchSize);
+    }
+
+    /**
+     * @param mergeColumn label of the column every query orders its rows by, ascending; rows from different
+     *                    data sources with the same value keep the order of the data sources
+     */
+    public StreamingExportTemplate(List<DataSource> dataSources, String mergeColumn) {
+        this(dataSources, mergeColumn, MYSQL_STREAMING_FETCH_SIZE);
+    }
+
+    public StreamingExportTemplate(List<DataSource> dataSources, String mergeColumn, int fetchSize) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("No data source to export from");
+        }
+        if (dataSources.size() > 1 && mergeColumn == null) {
+            throw new IllegalArgumentException("Exporting from several data sources needs a merge column");
+        }
+        this.dataSources = List.copyOf(dataSources);
+        this.mergeColumn = mergeColumn;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Build a download response. The body is gzip encoded when the client accepts it.
+     *
+     * @param request  the current request, used to negotiate gzip
+     * @param baseName file name without extension
+     */
+    public ResponseEntity<StreamingResponseBody> export(HttpServletRequest request, String baseName,
+                                                        ExportFormat format, String sql, Object... args) {
+        boolean gzip = acceptsGzip(request);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(baseName + "." + format.getExtension())
+                .build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            long rows = write(target, format, sql, args);
+            target.flush();
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            log.info("Export {} finished with {} rows", baseName, rows);
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Write every row of the query to {@code out}; the stream is flushed but not closed.
+     *
+     * @return number of rows written
+     */
+    public long write(OutputStream out, ExportFormat format, String sql, Object... args) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        if (dataSources.size() > 1) {
+            return writeMerged(rowWriter, writer, sql, args);
+        }
+        try {
+            Long rows = new JdbcTemplate(dataSources.get(0)).execute((ConnectionCallback<Long>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    ps.setFetchSize(fetchSize);
+                    for (int i = 0; i < args.length; i++) {
+                        ps.setObject(i + 1, args[i]);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return copy(ps, rs, rowWriter, writer);
+                    }
+                }
+            });
+            writer.flush();
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Open a cursor on every data source and write their rows merged on {@link #mergeColumn}
+     */
+    private long writeMerged(RowWriter rowWriter, Writer writer, String sql, Object[] args) throws IOException {
+        List<Connection> connections = new ArrayList<>(dataSources.size());
+        List<Cursor> cursors = new ArrayList<>(dataSources.size());
+        boolean aborted = false;
+        try {
+            for (int source = 0; source < dataSources.size(); source++) {
+                Connection connection = dataSources.get(source).getConnection();
+                connections.add(connection);
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.length; i++) {
+                    ps.setObject(i + 1, args[i]);
+                }
+                cursors.add(new Cursor(source, ps, ps.executeQuery()));
+            }
+            long rows = merge(cursors, rowWriter, writer);
+            writer.flush();
+            return rows;
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Merged export", sql, e);
+        } catch (UncheckedIOException e) {
+            aborted = true;
+            throw e.getCause();
+        } finally {
+            for (Cursor cursor : cursors) {
+                if (aborted) {
+                    cancel(cursor.statement);
+                }
+                JdbcUtils.closeResultSet(cursor.resultSet);
+                JdbcUtils.closeStatement(cursor.statement);
+            }
+            connections.forEach(JdbcUtils::closeConnection);
+        }
+    }
+
+    private long merge(List<Cursor> cursors, RowWriter rowWriter, Writer writer) throws SQLException {
+        String[] columns = columnsOf(cursors.get(0).resultSet);
+        int mergeIndex = -1;
+        for (int i = 0; i < columns.length && mergeIndex < 0; i++) {
+            if (columns[i].equalsIgnoreCase(mergeColumn)) {
+                mergeIndex = i;
+            }
+        }
+        if (mergeIndex < 0) {
+            throw new IllegalArgumentException("Export query has no column " + mergeColumn);
+        }
+        PriorityQueue<Cursor> pending = new PriorityQueue<>(Cursor.ORDER);
+        for (Cursor cursor : cursors) {
+            if (cursor.advance(mergeIndex)) {
+                pending.add(cursor);
+            }
+        }
+
+        long rows = 0;
+        try {
+            rowWriter.header(columns);
+            while (!pending.isEmpty()) {
+                Cursor cursor = pending.poll();
+                rowWriter.row(columns, cursor.values);
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+                if (cursor.advance(mergeIndex)) {
+                    pending.add(cursor);
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            log.warn("Export aborted after {} rows: {}", rows, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void cancel(PreparedStatement ps) {
+        try {
+            ps.cancel();
+        } catch (SQLException e) {
+            log.debug("Unable to cancel export query: {}", e.getMessage());
+        }
+    }
+
+    private static String[] columnsOf(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        String[] columns = new String[meta.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = meta.getColumnLabel(i + 1);
+        }
+        return columns;
+    }
+
+    private long copy(PreparedStatement ps, ResultSet rs, RowWriter rowWriter, Writer writer) throws SQLException {
+        String[] columns = columnsOf(rs);
+
+        long rows = 0;
+        try {
+            rowWriter.header(columns);
+            Object[] values = new Object[columns.length];
+            while (rs.next()) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = normalize(rs.getObject(i + 1));
+                }
+                rowWriter.row(columns, values);
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            // Client went away. Closing a streaming result set would read the remaining rows, so cancel first.
+            log.warn("Export aborted after {} rows: {}", rows, e.getMessage());
+            ps.cancel();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate().toString();
+        }
+        if (value instanceof TemporalAccessor) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    /**
+     * The current row of one data source during a merged export
+     */
+    private static final class Cursor {
+
+        static final Comparator<Cursor> ORDER = Cursor::compare;
+
+        final int source;
+        final PreparedStatement statement;
+        final ResultSet resultSet;
+        final int columnCount;
+        Object key;
+        Object[] values;
+
+        Cursor(int source, PreparedStatement statement, ResultSet resultSet) throws SQLException {
+            this.source = source;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.columnCount = resultSet.getMetaData().getColumnCount();
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compare(Cursor a, Cursor b) {
+            if (a.key != b.key) {
+                if (a.key == null) {
+                    return -1;
+                }
+                if (b.key == null) {
+                    return 1;
+                }
+                int byKey = ((Comparable) a.key).compareTo(b.key);
+                if (byKey != 0) {
+                    return byKey;
+                }
+            }
+            return Integer.compare(a.source, b.source);
+        }
+
+        /**
+         * Read the next row; false when there is none
+         */
+        boolean advance(int keyIndex) throws SQLException {
+            if (!resultSet.next()) {
+                return false;
+            }
+            values = new Object[columnCount];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = normalize(resultSet.getObject(i + 1));
+            }
+            key = resultSet.getObject(keyIndex + 1);
+            return true;
+        }
+    }
+
+    private interface RowWriter {
+        void header(String[] columns) throws IOException;
+
+        void row(String[] columns, Object[] values) throws IOException;
+    }
+
+    /**
+     * RFC 4180 CSV with a header line. Text that a spreadsheet would evaluate as a formula is prefixed with
+     * an apostrophe so it opens as text.
+     */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void header(String[] columns) throws IOException {
+            line(columns);
+        }
+
+        @Override
+        public void row(String[] columns, Object[] values) throws IOException {
+            line(values);
+        }
+
+        private void line(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(values[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            if (!(value instanceof Number) && isFormula(text)) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        private static boolean isFormula(String text) {
+            if (text.isEmpty()) {
+                return false;
+            }
+            char first = text.charAt(0);
+            return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+        }
+    }
+
+    /**
+     * One JSON object per line, keyed by column label
+     */
+    private static final class NdjsonRowWriter implements RowWriter {
+
+        // Lines are separated explicitly, not by the generator's default root value separator
+        private static final JsonFactory JSON = new JsonFactoryBuilder().rootValueSeparator((String) null).build();
+
+        private final Writer writer;
+        private JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void header(String[] columns) throws IOException {
+            generator = JSON.createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void row(String[] columns, Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                generator.writeFieldName(columns[i]);
+                Object value = values[i];
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    generator.writeNumber(((Number) value).longValue());
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.doubleValue());
+                } else if (value instanceof Boolean bool) {
+                    generator.writeBoolean(bool);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.mahabaleshwermart.common.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Human-readable business numbers backed by {@link SnowflakeIdGenerator}.
+ * Format: {@code <PREFIX>-<yyyyMMdd>-<13 char base-36 id>}, e.g. {@code ORD-20261018-0A1B2C3D4E5F6}.
+ * The fixed-width id suffix keeps numbers unique across nodes and sortable by creation time.
+ * <p>
+ * Static so entity callbacks can use it; {@link IdGeneratorAutoConfiguration} installs the configured worker id at startup.
+ */
+@Slf4j
+public final class BusinessNumbers {
+
+    public static final String ORDER_PREFIX = "ORD";
+    public static final String INVOICE_PREFIX = "INV";
+    public static final String TRACKING_PREFIX = "TRK";
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int ID_WIDTH = 13; // Long.MAX_VALUE in base 36
+
+    private static volatile SnowflakeIdGenerator generator;
+
+    private BusinessNumbers() {
+    }
+
+    public static String orderNumber() {
+        return format(ORDER_PREFIX, generator().nextId());
+    }
+
+    public static String invoiceNumber() {
+        return format(INVOICE_PREFIX, generator().nextId());
+    }
+
+    public static String trackingNumber() {
+        return format(TRACKING_PREFIX, generator().nextId());
+    }
+
+    /**
+     * Install the node-wide generator; called once at startup
+     */
+    public static void configure(SnowflakeIdGenerator idGenerator) {
+        generator = idGenerator;
+        log.info("Business number generator using worker id {}", idGenerator.getWorkerId());
+    }
+
+    static String format(String prefix, long id) {
+        String day = SnowflakeIdGenerator.timestampOf(id).atZone(ZoneId.systemDefault()).format(DAY_FORMAT);
+        String suffix = Long.toString(id, 36).toUpperCase(Locale.ROOT);
+        return prefix + "-" + day + "-" + "0".repeat(ID_WIDTH - suffix.length()) + suffix;
+    }
+
+    private static SnowflakeIdGenerator generator() {
+        SnowflakeIdGenerator current = generator;
+        if (current == null) {
+            throw new IllegalStateException("Business numbers need a worker id; set app.id.worker-id");
+        }
+        return current;
+    }
+}
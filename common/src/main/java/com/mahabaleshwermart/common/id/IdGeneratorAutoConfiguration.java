@@ -0,0 +1,29 @@
+package com.mahabaleshwermart.common.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@ConditionalOnProperty(name = "app.id.worker-id")
+public class IdGeneratorAutoConfiguration {
+
+    /**
+     * Node-wide id generator; {@code app.id.worker-id} (0-1023) must be unique per running instance.
+     * There is no derived fallback: two instances sharing a worker id would hand out the same numbers.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SnowflakeIdGenerator snowflakeIdGenerator(@Value("${app.id.worker-id}") long workerId) {
+        if (workerId < 0) {
+            throw new IllegalStateException("app.id.worker-id is not set; give every instance its own worker id (0-"
+                    + SnowflakeIdGenerator.MAX_WORKER_ID + "), e.g. through ID_WORKER_ID");
+        }
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(workerId);
+        // Entity callbacks and services must draw from the same sequence
+        BusinessNumbers.configure(generator);
+        return generator;
+    }
+}
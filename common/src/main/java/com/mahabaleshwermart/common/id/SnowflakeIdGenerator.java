@@ -0,0 +1,73 @@
+package com.mahabaleshwermart.common.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, time-ordered 63-bit id generator in the Snowflake layout:
+ * 41 bits of milliseconds since {@link #EPOCH_MILLIS}, 10 bits of worker id and a 12 bit per-millisecond sequence.
+ * Ids are unique as long as no two live nodes share a worker id, and sort by creation time.
+ */
+public class SnowflakeIdGenerator {
+
+    /** 2024-01-01T00:00:00Z; leaves room for ids until 2093 */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long workerId;
+    private final LongSupplier clock;
+
+    /** Last issued (timestamp << SEQUENCE_BITS | sequence), advanced by CAS */
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID + ": " + workerId);
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Generate the next id. When the sequence of the current millisecond is exhausted, or the clock moves
+     * backwards, ids keep being issued from the last timestamp's successor so uniqueness never depends on the clock.
+     */
+    public long nextId() {
+        while (true) {
+            long previous = lastState.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+
+            long next = now > previousTimestamp
+                    ? now << SEQUENCE_BITS
+                    : previous + 1; // same or earlier millisecond: bump the sequence, carrying into the timestamp
+
+            if (lastState.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (WORKER_ID_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * Creation time encoded in an id
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (WORKER_ID_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+}
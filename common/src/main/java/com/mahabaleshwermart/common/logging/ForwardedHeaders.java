@@ -0,0 +1,65 @@
+package com.mahabaleshwermart.common.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The incoming session and user headers that calls to downstream services carry along.
+ * The servlet request must not be touched outside its own thread, so work handed to other threads takes a
+ * {@link #capture() copy} of the headers on the request thread and {@link #bind binds} it where it runs.
+ */
+public final class ForwardedHeaders {
+
+    public static final String GUEST_SESSION_HEADER = "X-Guest-Session";
+    public static final String USER_ID_HEADER = "X-User-Id";
+
+    private static final List<String> NAMES = List.of(GUEST_SESSION_HEADER, USER_ID_HEADER);
+    private static final ThreadLocal<Map<String, String>> BOUND = new ThreadLocal<>();
+
+    private ForwardedHeaders() {
+    }
+
+    /**
+     * The headers bound to this thread, otherwise those of the request this thread is serving
+     */
+    public static Map<String, String> current() {
+        Map<String, String> bound = BOUND.get();
+        if (bound != null) {
+            return bound;
+        }
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (!(attrs instanceof ServletRequestAttributes servletAttrs)) {
+            return Map.of();
+        }
+        HttpServletRequest request = servletAttrs.getRequest();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : NAMES) {
+            String value = request.getHeader(name);
+            if (value != null && !value.isBlank()) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * An immutable copy of {@link #current()}, to hand to another thread
+     */
+    public static Map<String, String> capture() {
+        return Map.copyOf(current());
+    }
+
+    public static void bind(Map<String, String> headers) {
+        BOUND.set(headers);
+    }
+
+    public static void clear() {
+        BOUND.remove();
+    }
+}
@@ -0,0 +1,16 @@
+package com.mahabaleshwermart.common.pricing;
+
+import java.math.BigDecimal;
+
+/**
+ * One cart or order line to price
+ *
+ * @param unitPrice     price the customer pays per unit before promotions
+ * @param originalPrice list price per unit, or {@code null} when the product is not on sale
+ */
+public record PriceLine(String productId,
+                        String category,
+                        BigDecimal unitPrice,
+                        BigDecimal originalPrice,
+                        int quantity) {
+}
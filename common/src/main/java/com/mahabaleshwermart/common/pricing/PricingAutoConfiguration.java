@@ -0,0 +1,21 @@
+package com.mahabaleshwermart.common.pricing;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@EnableConfigurationProperties(PricingProperties.class)
+public class PricingAutoConfiguration {
+
+    /**
+     * Shared pricing rules; every service that prices carts or orders must see the same {@code app.pricing}
+     * configuration for their totals to agree
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public PricingEngine pricingEngine(PricingProperties properties) {
+        return new PricingEngine(properties);
+    }
+}
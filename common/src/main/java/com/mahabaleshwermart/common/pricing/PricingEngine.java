@@ -0,0 +1,278 @@
+package com.mahabaleshwermart.common.pricing;
+
+import com.mahabaleshwermart.common.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prices carts and orders: promotions, tax and delivery charge.
+ * Cart and order service both price through this class, so the totals a customer sees in the cart are the
+ * totals of the order. Rules are compiled once into lookup tables keyed by product, category and coupon;
+ * pricing a line is a map lookup plus the few rules found there, never a scan over all promotions.
+ * <p>
+ * Line rules do not stack: each line gets the single best line discount. On top of that the best automatic
+ * order discount applies, then the best order discount of the presented coupon.
+ */
+@Slf4j
+public class PricingEngine {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final BigDecimal taxRate;
+    private final BigDecimal freeDeliveryThreshold;
+    private final BigDecimal standardDeliveryCharge;
+
+    private volatile DecisionTable table;
+
+    public PricingEngine(PricingProperties properties) {
+        this.taxRate = properties.getTaxRate();
+        this.freeDeliveryThreshold = properties.getFreeDeliveryThreshold();
+        this.standardDeliveryCharge = properties.getStandardDeliveryCharge();
+        reload(properties.getPromotions());
+    }
+
+    /**
+     * Replace the promotion rules; prices computed afterwards use the new rules
+     *
+     * @throws IllegalArgumentException if a rule is incomplete
+     */
+    public void reload(Collection<PromotionRule> rules) {
+        table = DecisionTable.compile(rules);
+        log.info("Pricing engine loaded {} promotion rules", rules.size());
+    }
+
+    /**
+     * Price {@code lines} without a coupon
+     */
+    public PricingResult price(List<PriceLine> lines) {
+        return price(lines, null);
+    }
+
+    /**
+     * Price {@code lines}, applying the rules of {@code couponCode} as well when given
+     *
+     * @throws BusinessException if the coupon is unknown or not valid now
+     */
+    public PricingResult price(List<PriceLine> lines, String couponCode) {
+        LocalDateTime now = LocalDateTime.now();
+        DecisionTable rules = this.table;
+        String coupon = normalizeCoupon(couponCode);
+        if (coupon != null && !rules.hasActiveCoupon(coupon, now)) {
+            throw new BusinessException("Coupon " + couponCode + " is not valid");
+        }
+        if (lines.isEmpty()) {
+            return new PricingResult(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                    BigDecimal.ZERO, BigDecimal.ZERO, List.of(), coupon);
+        }
+
+        Set<String> applied = new LinkedHashSet<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal saleSavings = BigDecimal.ZERO;
+        BigDecimal lineDiscount = BigDecimal.ZERO;
+        for (PriceLine line : lines) {
+            BigDecimal quantity = BigDecimal.valueOf(line.quantity());
+            BigDecimal lineTotal = line.unitPrice().multiply(quantity);
+            subtotal = subtotal.add(lineTotal);
+            if (line.originalPrice() != null && line.originalPrice().compareTo(line.unitPrice()) > 0) {
+                saleSavings = saleSavings.add(line.originalPrice().subtract(line.unitPrice()).multiply(quantity));
+            }
+
+            PromotionRule best = null;
+            BigDecimal bestAmount = BigDecimal.ZERO;
+            for (List<PromotionRule> candidates : List.of(rules.forProduct(line.productId()), rules.forCategory(line.category()))) {
+                for (PromotionRule rule : candidates) {
+                    if (!applies(rule, coupon, now)) {
+                        continue;
+                    }
+                    BigDecimal amount = lineDiscount(rule, line, lineTotal);
+                    if (amount.compareTo(bestAmount) > 0) {
+                        best = rule;
+                        bestAmount = amount;
+                    }
+                }
+            }
+            if (best != null) {
+                lineDiscount = lineDiscount.add(bestAmount);
+                applied.add(best.getId());
+            }
+        }
+
+        BigDecimal afterLines = subtotal.subtract(lineDiscount);
+        BigDecimal orderDiscount = bestOrderDiscount(rules.orderDiscounts(), null, afterLines, afterLines, now, applied);
+        if (coupon != null) {
+            orderDiscount = orderDiscount.add(bestOrderDiscount(rules.orderDiscounts(), coupon, afterLines,
+                    afterLines.subtract(orderDiscount), now, applied));
+        }
+        BigDecimal discountAmount = lineDiscount.add(orderDiscount);
+
+        BigDecimal deliveryCharge = subtotal.compareTo(freeDeliveryThreshold) >= 0 ? BigDecimal.ZERO : standardDeliveryCharge;
+        if (deliveryCharge.signum() > 0) {
+            for (PromotionRule rule : rules.freeDelivery()) {
+                if (applies(rule, coupon, now) && meetsMinimum(rule, afterLines)) {
+                    deliveryCharge = BigDecimal.ZERO;
+                    applied.add(rule.getId());
+                    break;
+                }
+            }
+        }
+
+        BigDecimal taxable = subtotal.subtract(discountAmount).max(BigDecimal.ZERO);
+        BigDecimal taxAmount = money(taxable.multiply(taxRate));
+        return new PricingResult(
+                money(subtotal),
+                money(saleSavings),
+                money(discountAmount),
+                taxAmount,
+                money(deliveryCharge),
+                money(taxable).add(taxAmount).add(money(deliveryCharge)),
+                List.copyOf(applied),
+                coupon);
+    }
+
+    private static BigDecimal lineDiscount(PromotionRule rule, PriceLine line, BigDecimal lineTotal) {
+        BigDecimal amount;
+        if (rule.getType() == PromotionRule.Type.BUY_X_GET_Y) {
+            int freeUnits = line.quantity() / (rule.getBuyQuantity() + rule.getFreeQuantity()) * rule.getFreeQuantity();
+            amount = line.unitPrice().multiply(BigDecimal.valueOf(freeUnits));
+        } else {
+            amount = lineTotal.multiply(rule.getPercentOff()).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        }
+        return cap(rule, amount, lineTotal);
+    }
+
+    private static BigDecimal bestOrderDiscount(List<PromotionRule> rules, String coupon, BigDecimal eligibleAmount,
+                                                BigDecimal discountBase, LocalDateTime now, Set<String> applied) {
+        PromotionRule best = null;
+        BigDecimal bestAmount = BigDecimal.ZERO;
+        for (PromotionRule rule : rules) {
+            // Automatic rules in the first pass, the coupon's own rules in the second
+            boolean couponRule = rule.getCouponCode() != null;
+            if (couponRule != (coupon != null) || !applies(rule, coupon, now) || !meetsMinimum(rule, eligibleAmount)) {
+                continue;
+            }
+            BigDecimal amount = rule.getPercentOff() != null
+                    ? discountBase.multiply(rule.getPercentOff()).divide(HUNDRED, 2, RoundingMode.HALF_UP)
+                    : rule.getAmountOff();
+            amount = cap(rule, amount, discountBase);
+            if (amount.compareTo(bestAmount) > 0) {
+                best = rule;
+                bestAmount = amount;
+            }
+        }
+        if (best != null) {
+            applied.add(best.getId());
+        }
+        return bestAmount;
+    }
+
+    private static boolean applies(PromotionRule rule, String coupon, LocalDateTime now) {
+        return (rule.getCouponCode() == null || rule.getCouponCode().equals(coupon)) && rule.isActiveAt(now);
+    }
+
+    private static boolean meetsMinimum(PromotionRule rule, BigDecimal amount) {
+        return rule.getMinSubtotal() == null || amount.compareTo(rule.getMinSubtotal()) >= 0;
+    }
+
+    private static BigDecimal cap(PromotionRule rule, BigDecimal amount, BigDecimal limit) {
+        if (rule.getMaxDiscount() != null) {
+            amount = amount.min(rule.getMaxDiscount());
+        }
+        return amount.min(limit).max(BigDecimal.ZERO);
+    }
+
+    private static BigDecimal money(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static String normalizeCoupon(String couponCode) {
+        return couponCode == null || couponCode.isBlank() ? null : couponCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Promotion rules indexed the way they are looked up during pricing
+     */
+    private record DecisionTable(Map<String, List<PromotionRule>> byProduct,
+                                 Map<String, List<PromotionRule>> byCategory,
+                                 Map<String, List<PromotionRule>> byCoupon,
+                                 List<PromotionRule> orderDiscounts,
+                                 List<PromotionRule> freeDelivery) {
+
+        static DecisionTable compile(Collection<PromotionRule> rules) {
+            Map<String, List<PromotionRule>> byProduct = new HashMap<>();
+            Map<String, List<PromotionRule>> byCategory = new HashMap<>();
+            Map<String, List<PromotionRule>> byCoupon = new HashMap<>();
+            List<PromotionRule> orderDiscounts = new ArrayList<>();
+            List<PromotionRule> freeDelivery = new ArrayList<>();
+
+            for (PromotionRule source : rules) {
+                PromotionRule rule = validate(source.toBuilder()
+                        .couponCode(normalizeCoupon(source.getCouponCode()))
+                        .build());
+                if (rule.getCouponCode() != null) {
+                    byCoupon.computeIfAbsent(rule.getCouponCode(), k -> new ArrayList<>()).add(rule);
+                }
+                switch (rule.getType()) {
+                    case PRODUCT_DISCOUNT -> byProduct.computeIfAbsent(rule.getProductId(), k -> new ArrayList<>()).add(rule);
+                    case CATEGORY_DISCOUNT -> byCategory.computeIfAbsent(rule.getCategory(), k -> new ArrayList<>()).add(rule);
+                    case BUY_X_GET_Y -> (rule.getProductId() != null ? byProduct : byCategory)
+                            .computeIfAbsent(rule.getProductId() != null ? rule.getProductId() : rule.getCategory(),
+                                    k -> new ArrayList<>())
+                            .add(rule);
+                    case ORDER_DISCOUNT -> orderDiscounts.add(rule);
+                    case FREE_DELIVERY -> freeDelivery.add(rule);
+                }
+            }
+            byProduct.replaceAll((k, v) -> List.copyOf(v));
+            byCategory.replaceAll((k, v) -> List.copyOf(v));
+            byCoupon.replaceAll((k, v) -> List.copyOf(v));
+            return new DecisionTable(Map.copyOf(byProduct), Map.copyOf(byCategory), Map.copyOf(byCoupon),
+                    List.copyOf(orderDiscounts), List.copyOf(freeDelivery));
+        }
+
+        List<PromotionRule> forProduct(String productId) {
+            return productId != null ? byProduct.getOrDefault(productId, List.of()) : List.of();
+        }
+
+        List<PromotionRule> forCategory(String category) {
+            return category != null ? byCategory.getOrDefault(category, List.of()) : List.of();
+        }
+
+        boolean hasActiveCoupon(String coupon, LocalDateTime now) {
+            return byCoupon.getOrDefault(coupon, List.of()).stream().anyMatch(rule -> rule.isActiveAt(now));
+        }
+
+        private static PromotionRule validate(PromotionRule rule) {
+            if (rule.getId() == null || rule.getType() == null) {
+                throw new IllegalArgumentException("Promotion rule needs an id and a type: " + rule);
+            }
+            boolean valid = switch (rule.getType()) {
+                case PRODUCT_DISCOUNT -> rule.getProductId() != null && isPercent(rule.getPercentOff());
+                case CATEGORY_DISCOUNT -> rule.getCategory() != null && isPercent(rule.getPercentOff());
+                case BUY_X_GET_Y -> (rule.getProductId() != null || rule.getCategory() != null)
+                        && rule.getBuyQuantity() > 0 && rule.getFreeQuantity() > 0;
+                case ORDER_DISCOUNT -> isPercent(rule.getPercentOff())
+                        || (rule.getPercentOff() == null && rule.getAmountOff() != null && rule.getAmountOff().signum() > 0);
+                case FREE_DELIVERY -> true;
+            };
+            if (!valid) {
+                throw new IllegalArgumentException("Incomplete " + rule.getType() + " promotion rule " + rule.getId());
+            }
+            return rule;
+        }
+
+        private static boolean isPercent(BigDecimal percent) {
+            return percent != null && percent.signum() > 0 && percent.compareTo(HUNDRED) <= 0;
+        }
+    }
+}
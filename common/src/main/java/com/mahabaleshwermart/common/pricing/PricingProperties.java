@@ -0,0 +1,17 @@
+package com.mahabaleshwermart.common.pricing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.pricing")
+public class PricingProperties {
+    private BigDecimal taxRate = new BigDecimal("0.18");
+    private BigDecimal freeDeliveryThreshold = BigDecimal.valueOf(500);
+    private BigDecimal standardDeliveryCharge = BigDecimal.valueOf(50);
+    private List<PromotionRule> promotions = new ArrayList<>();
+}
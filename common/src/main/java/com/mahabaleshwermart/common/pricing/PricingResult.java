@@ -0,0 +1,30 @@
+package com.mahabaleshwermart.common.pricing;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Totals of a priced cart; {@code totalAmount = subtotal - discountAmount + taxAmount + deliveryCharge}
+ *
+ * @param subtotal          sum of unit price times quantity
+ * @param saleSavings       difference to list prices, already deducted in {@code subtotal}
+ * @param discountAmount    promotion discounts, line and order level
+ * @param appliedPromotions ids of the rules that gave a discount or free delivery
+ * @param couponCode        the accepted coupon in its normalized form, or {@code null}
+ */
+public record PricingResult(BigDecimal subtotal,
+                            BigDecimal saleSavings,
+                            BigDecimal discountAmount,
+                            BigDecimal taxAmount,
+                            BigDecimal deliveryCharge,
+                            BigDecimal totalAmount,
+                            List<String> appliedPromotions,
+                            String couponCode) {
+
+    /**
+     * What the customer saves compared to list prices without promotions
+     */
+    public BigDecimal totalSavings() {
+        return saleSavings.add(discountAmount);
+    }
+}
@@ -0,0 +1,52 @@
+package com.mahabaleshwermart.common.pricing;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A promotion as configured under {@code app.pricing.promotions}.
+ * Rules without a {@code couponCode} apply automatically; the others only when the coupon is presented.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionRule {
+
+    public enum Type {
+        /** {@code percentOff} on every line of {@code category} */
+        CATEGORY_DISCOUNT,
+        /** {@code percentOff} on the line of {@code productId} */
+        PRODUCT_DISCOUNT,
+        /** Of every {@code buyQuantity + freeQuantity} units of {@code productId}, {@code freeQuantity} are free */
+        BUY_X_GET_Y,
+        /** {@code percentOff} or {@code amountOff} on the whole order once it reaches {@code minSubtotal} */
+        ORDER_DISCOUNT,
+        /** No delivery charge once the order reaches {@code minSubtotal} */
+        FREE_DELIVERY
+    }
+
+    private String id;
+    private Type type;
+    private String couponCode;
+    private String category;
+    private String productId;
+    private BigDecimal percentOff;
+    private BigDecimal amountOff;
+    private int buyQuantity;
+    private int freeQuantity;
+    private BigDecimal minSubtotal;
+    /** Upper bound of the discount one application of the rule gives */
+    private BigDecimal maxDiscount;
+    private LocalDateTime validFrom;
+    private LocalDateTime validUntil;
+
+    boolean isActiveAt(LocalDateTime time) {
+        return (validFrom == null || !time.isBefore(validFrom)) && (validUntil == null || time.isBefore(validUntil));
+    }
+}
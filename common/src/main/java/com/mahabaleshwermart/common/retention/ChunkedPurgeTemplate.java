@@ -0,0 +1,96 @@
+package com.mahabaleshwermart.common.retention;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hard-deletes rows in small primary-key ordered chunks with a pause between chunks.
+ * A run holds a MySQL named lock, so every instance can schedule the same purge while only one executes it.
+ * Each chunk commits on its own to keep row locks short.
+ */
+@Slf4j
+public class ChunkedPurgeTemplate {
+
+    private final DataSource dataSource;
+    private final String lockName;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    public ChunkedPurgeTemplate(DataSource dataSource, String lockName, int chunkSize, long pauseMillis) {
+        this.dataSource = dataSource;
+        this.lockName = lockName;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Run the purge steps in order.
+     *
+     * @return rows deleted per step name, or an empty map when another instance holds the lock
+     */
+    public Map<String, Long> execute(List<PurgeStep> steps) {
+        return new JdbcTemplate(dataSource).execute((ConnectionCallback<Map<String, Long>>) connection -> {
+            // Named locks belong to the connection, so the whole run stays on this one
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            Integer acquired = session.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, lockName);
+            if (acquired == null || acquired != 1) {
+                log.info("Purge lock {} is held by another instance, skipping run", lockName);
+                return Map.of();
+            }
+            try {
+                Map<String, Long> purged = new LinkedHashMap<>();
+                for (PurgeStep step : steps) {
+                    purged.put(step.name(), deleteInChunks(session, step));
+                }
+                return purged;
+            } finally {
+                session.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, lockName);
+            }
+        });
+    }
+
+    private long deleteInChunks(JdbcTemplate session, PurgeStep step) {
+        Object[] args = Arrays.copyOf(step.args(), step.args().length + 1);
+        args[args.length - 1] = chunkSize;
+
+        long total = 0;
+        int deleted;
+        do {
+            deleted = session.update(step.deleteSql(), args);
+            total += deleted;
+            if (deleted == chunkSize && !pause()) {
+                log.warn("Purge step {} interrupted after {} rows", step.name(), total);
+                break;
+            }
+        } while (deleted == chunkSize);
+        return total;
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * A single chunked delete. The SQL must end with {@code ORDER BY <primary key> LIMIT ?};
+     * the chunk size is bound as the last parameter after {@code args}.
+     */
+    public record PurgeStep(String name, String deleteSql, Object... args) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.mahabaleshwermart.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes against two embedded databases that each know their own name.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        useLag(0);
+
+        ReadReplicaProperties properties = new ReadReplicaProperties();
+        properties.setLagQuery("SELECT lag_seconds AS lag FROM replica_lag");
+        properties.setLagColumn("lag");
+        properties.setMaxLagSeconds(5);
+        lagMonitor = new ReplicaLagMonitor(List.of(replica), properties);
+        lagMonitor.checkAll();
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(replica), lagMonitor,
+                new ReadYourWritesTracker(100, 10_000));
+        routing.initialize();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWritesTracker.clearUser();
+        lagMonitor.close();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        assertThat(readWriteNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void readsFollowALaggingReplicaBackToThePrimary() {
+        useLag(60);
+        lagMonitor.checkAll();
+
+        assertThat(readOnlyNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void aUserWhoJustWroteReadsThePrimary() {
+        ReadYourWritesTracker.bindUser("user-1");
+        readWrite.executeWithoutResult(status -> node());
+
+        assertThat(readOnlyNode()).isEqualTo("primary");
+
+        ReadYourWritesTracker.bindUser("user-2");
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    @Test
+    void aGuestWhoJustWroteReadsThePrimary() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReadYourWritesFilter.GUEST_SESSION_HEADER, "guest-1.1900000000.signature");
+        AtomicReference<String> afterWrite = new AtomicReference<>();
+
+        new ReadYourWritesFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            readWrite.executeWithoutResult(status -> node());
+            afterWrite.set(readOnlyNode());
+        });
+
+        assertThat(afterWrite.get()).isEqualTo("primary");
+    }
+
+    @Test
+    void cacheLoadersReadThePrimary() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ProductLoader(readOnly, jdbcTemplate));
+        factory.addAspect(new CacheLoaderPrimaryReadAspect());
+        ProductLoader loader = factory.getProxy();
+
+        assertThat(loader.load()).isEqualTo("primary");
+        assertThat(readOnlyNode()).isEqualTo("replica");
+    }
+
+    private String readOnlyNode() {
+        return readOnly.execute(status -> node());
+    }
+
+    private String readWriteNode() {
+        return readWrite.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private void useLag(int seconds) {
+        new JdbcTemplate(replica).update("UPDATE replica_lag SET lag_seconds = ?", seconds);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + UUID.randomUUID())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        jdbc.execute("CREATE TABLE replica_lag (lag_seconds INT)");
+        jdbc.update("INSERT INTO replica_lag VALUES (0)");
+        return database;
+    }
+
+    static class ProductLoader {
+
+        private final TransactionTemplate readOnly;
+        private final JdbcTemplate jdbcTemplate;
+
+        ProductLoader(TransactionTemplate readOnly, JdbcTemplate jdbcTemplate) {
+            this.readOnly = readOnly;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Cacheable("node")
+        public String load() {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM node", String.class));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mahabaleshwermart.common.export;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports from two embedded databases standing in for shards of one table. H2 reports column labels in upper case.
+ */
+class StreamingExportTemplateTest {
+
+    private static final String SQL = "SELECT name AS name, created_day AS created_day FROM items " +
+                                      "WHERE created_day >= ? ORDER BY created_day, id";
+
+    private EmbeddedDatabase first;
+    private EmbeddedDatabase second;
+
+    @BeforeEach
+    void setUp() {
+        first = database();
+        second = database();
+        insert(first, "a1", 1);
+        insert(first, "a3", 3);
+        insert(first, "a4", 4);
+        insert(second, "b2", 2);
+        insert(second, "b3", 3);
+        insert(second, "b5", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.shutdown();
+        second.shutdown();
+    }
+
+    @Test
+    void mergesTheRowsOfEveryDataSourceInOrder() throws Exception {
+        StreamingExportTemplate template = new StreamingExportTemplate(List.of(first, second), "created_day", 100);
+
+        assertThat(csv(template, 2)).isEqualTo(
+                "NAME,CREATED_DAY\r\n" +
+                "b2,2\r\n" +
+                "a3,3\r\n" +
+                "b3,3\r\n" +
+                "a4,4\r\n" +
+                "b5,5\r\n");
+    }
+
+    @Test
+    void writesTheHeaderOnceWhenSomeDataSourcesHaveNoRows() throws Exception {
+        StreamingExportTemplate template = new StreamingExportTemplate(List.of(first, second), "created_day", 100);
+
+        assertThat(csv(template, 5)).isEqualTo("NAME,CREATED_DAY\r\nb5,5\r\n");
+    }
+
+    @Test
+    void exportsNdjsonFromASingleDataSource() throws Exception {
+        StreamingExportTemplate template = new StreamingExportTemplate(first, 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = template.write(out, ExportFormat.NDJSON, SQL, 4);
+
+        assertThat(rows).isEqualTo(1);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("{\"NAME\":\"a4\",\"CREATED_DAY\":4}\n");
+    }
+
+    @Test
+    void prefixesTextThatASpreadsheetWouldEvaluate() throws Exception {
+        insert(first, "=HYPERLINK", 6);
+        insert(first, "@SUM(A1)", 7);
+        StreamingExportTemplate template = new StreamingExportTemplate(first, 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        template.write(out, ExportFormat.CSV,
+                "SELECT name AS name, -created_day AS delta FROM items WHERE created_day >= ? ORDER BY created_day", 6);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "NAME,DELTA\r\n" +
+                "'=HYPERLINK,-6\r\n" +
+                "'@SUM(A1),-7\r\n");
+    }
+
+    private static String csv(StreamingExportTemplate template, int fromDay) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.write(out, ExportFormat.CSV, SQL, fromDay);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static EmbeddedDatabase database() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(UUID.randomUUID().toString())
+                .build();
+        new JdbcTemplate(database).execute(
+                "CREATE TABLE items (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(10), created_day INT)");
+        return database;
+    }
+
+    private static void insert(EmbeddedDatabase database, String name, int day) {
+        new JdbcTemplate(database).update("INSERT INTO items (name, created_day) VALUES (?, ?)", name, day);
+    }
+}
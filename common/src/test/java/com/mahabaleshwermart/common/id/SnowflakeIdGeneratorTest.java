@@ -0,0 +1,108 @@
+package com.mahabaleshwermart.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ids carry their millisecond, worker id and sequence in fixed bit ranges and keep increasing through sequence
+ * exhaustion, clock rollback and concurrent callers.
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void idsPackTimestampWorkerAndSequence() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1023, () -> NOW);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertThat(first >>> 22).isEqualTo(NOW - SnowflakeIdGenerator.EPOCH_MILLIS);
+        assertThat((first >>> 12) & 0x3FF).isEqualTo(1023);
+        assertThat(first & 0xFFF).isZero();
+        assertThat(second & 0xFFF).isEqualTo(1);
+        assertThat(first).isPositive();
+        assertThat(SnowflakeIdGenerator.timestampOf(first)).isEqualTo(Instant.ofEpochMilli(NOW));
+    }
+
+    @Test
+    void workersNeverShareIds() {
+        long a = new SnowflakeIdGenerator(1, () -> NOW).nextId();
+        long b = new SnowflakeIdGenerator(2, () -> NOW).nextId();
+
+        assertThat(a).isNotEqualTo(b);
+        assertThat(a >>> 22).isEqualTo(b >>> 22);
+    }
+
+    @Test
+    void exhaustedSequenceCarriesIntoTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, () -> NOW);
+
+        long last = 0;
+        for (int i = 0; i < 4097; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+
+        assertThat(SnowflakeIdGenerator.timestampOf(last)).isEqualTo(Instant.ofEpochMilli(NOW + 1));
+        assertThat(last & 0xFFF).isZero();
+        assertThat((last >>> 12) & 0x3FF).isEqualTo(5);
+    }
+
+    @Test
+    void clockRollbackKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, clock::get);
+
+        long beforeRollback = generator.nextId();
+        clock.set(NOW - 5_000);
+        long duringRollback = generator.nextId();
+        clock.set(NOW + 10);
+        long afterRecovery = generator.nextId();
+
+        assertThat(duringRollback).isGreaterThan(beforeRollback);
+        assertThat(SnowflakeIdGenerator.timestampOf(duringRollback)).isEqualTo(Instant.ofEpochMilli(NOW));
+        assertThat(afterRecovery).isGreaterThan(duringRollback);
+        assertThat(SnowflakeIdGenerator.timestampOf(afterRecovery)).isEqualTo(Instant.ofEpochMilli(NOW + 10));
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIncreasingIds() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> callers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            callers.add(CompletableFuture.runAsync(() -> {
+                long last = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    long id = generator.nextId();
+                    assertThat(id).isGreaterThan(last);
+                    last = id;
+                    ids.add(id);
+                }
+            }));
+        }
+        CompletableFuture.allOf(callers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertThat(ids).hasSize(8 * 20_000);
+    }
+
+    @Test
+    void rejectsWorkerIdsOutsideTenBits() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
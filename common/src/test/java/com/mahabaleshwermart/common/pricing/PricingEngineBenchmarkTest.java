@@ -0,0 +1,60 @@
+package com.mahabaleshwermart.common.pricing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times pricing a 50-item cart against a catalogue-sized rule set. The bound is loose so the test only
+ * fails when pricing stops being a lookup per line, e.g. when it scans all rules again.
+ */
+@Slf4j
+class PricingEngineBenchmarkTest {
+
+    private static final int RULES_PER_TYPE = 2_000;
+    private static final int CART_ITEMS = 50;
+    private static final int WARMUP_ROUNDS = 20_000;
+    private static final int MEASURED_ROUNDS = 20_000;
+
+    @Test
+    void prices50ItemCartInMicroseconds() {
+        PricingEngine engine = PricingEngineTest.engine(rules().toArray(PromotionRule[]::new));
+        List<PriceLine> cart = new ArrayList<>();
+        for (int i = 0; i < CART_ITEMS; i++) {
+            cart.add(PricingEngineTest.line("product-" + i * 7, "category-" + i % 10, "49.50", 1 + i % 4));
+        }
+
+        BigDecimal checksum = BigDecimal.ZERO;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            checksum = checksum.add(engine.price(cart).totalAmount());
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            checksum = checksum.add(engine.price(cart).totalAmount());
+        }
+        double micros = (System.nanoTime() - started) / 1_000.0 / MEASURED_ROUNDS;
+
+        log.info("Priced a {}-item cart against {} rules in {} us on average",
+                CART_ITEMS, RULES_PER_TYPE * 3, String.format("%.1f", micros));
+        assertThat(checksum.signum()).isPositive();
+        assertThat(micros).isLessThan(1_000);
+    }
+
+    private static List<PromotionRule> rules() {
+        List<PromotionRule> rules = new ArrayList<>();
+        for (int i = 0; i < RULES_PER_TYPE; i++) {
+            rules.add(PricingEngineTest.rule("P" + i, PromotionRule.Type.PRODUCT_DISCOUNT)
+                    .productId("product-" + i).percentOff(BigDecimal.valueOf(1 + i % 30)).build());
+            rules.add(PricingEngineTest.rule("C" + i, PromotionRule.Type.CATEGORY_DISCOUNT)
+                    .category("category-" + i % 100).percentOff(BigDecimal.valueOf(1 + i % 20)).build());
+            rules.add(PricingEngineTest.rule("K" + i, PromotionRule.Type.ORDER_DISCOUNT).couponCode("COUPON" + i)
+                    .percentOff(BigDecimal.valueOf(5)).build());
+        }
+        return rules;
+    }
+}
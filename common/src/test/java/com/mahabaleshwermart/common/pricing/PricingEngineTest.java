@@ -0,0 +1,163 @@
+package com.mahabaleshwermart.common.pricing;
+
+import com.mahabaleshwermart.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PricingEngineTest {
+
+    @Test
+    void chargesTaxAndDeliveryBelowTheFreeDeliveryThreshold() {
+        PricingResult result = engine().price(List.of(line("apple", "FRUITS", "100.00", 2)));
+
+        assertThat(result.subtotal()).isEqualByComparingTo("200.00");
+        assertThat(result.discountAmount()).isEqualByComparingTo("0.00");
+        assertThat(result.taxAmount()).isEqualByComparingTo("36.00");
+        assertThat(result.deliveryCharge()).isEqualByComparingTo("50.00");
+        assertThat(result.totalAmount()).isEqualByComparingTo("286.00");
+    }
+
+    @Test
+    void deliversFreeFromTheThreshold() {
+        PricingResult result = engine().price(List.of(line("apple", "FRUITS", "250.00", 2)));
+
+        assertThat(result.deliveryCharge()).isEqualByComparingTo("0.00");
+        assertThat(result.totalAmount()).isEqualByComparingTo("590.00");
+    }
+
+    @Test
+    void emptyCartCostsNothing() {
+        assertThat(engine().price(List.of()).totalAmount()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void countsSaleSavingsAgainstTheListPrice() {
+        PricingResult result = engine().price(List.of(
+                new PriceLine("apple", "FRUITS", new BigDecimal("80.00"), new BigDecimal("100.00"), 3)));
+
+        assertThat(result.saleSavings()).isEqualByComparingTo("60.00");
+        assertThat(result.totalSavings()).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void givesEachLineOnlyItsBestLineDiscount() {
+        PricingEngine engine = engine(
+                rule("FRUIT10", PromotionRule.Type.CATEGORY_DISCOUNT).category("FRUITS").percentOff(new BigDecimal("10")).build(),
+                rule("APPLE25", PromotionRule.Type.PRODUCT_DISCOUNT).productId("apple").percentOff(new BigDecimal("25")).build());
+
+        PricingResult result = engine.price(List.of(line("apple", "FRUITS", "100.00", 2), line("pear", "FRUITS", "50.00", 2)));
+
+        // 25% of 200 for apples, 10% of 100 for pears
+        assertThat(result.discountAmount()).isEqualByComparingTo("60.00");
+        assertThat(result.appliedPromotions()).containsExactly("APPLE25", "FRUIT10");
+    }
+
+    @Test
+    void makesEveryGroupOfBuyXGetYUnitsPartlyFree() {
+        PricingEngine engine = engine(rule("MILK21", PromotionRule.Type.BUY_X_GET_Y)
+                .productId("milk").buyQuantity(2).freeQuantity(1).build());
+
+        PricingResult result = engine.price(List.of(line("milk", "DAIRY", "30.00", 7)));
+
+        // Two complete groups of three, so two free units
+        assertThat(result.discountAmount()).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void capsADiscountAtItsMaximum() {
+        PricingEngine engine = engine(rule("FRUIT50", PromotionRule.Type.CATEGORY_DISCOUNT)
+                .category("FRUITS").percentOff(new BigDecimal("50")).maxDiscount(new BigDecimal("40.00")).build());
+
+        assertThat(engine.price(List.of(line("apple", "FRUITS", "100.00", 2))).discountAmount()).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    void appliesAnOrderDiscountOnlyFromItsMinimumSubtotal() {
+        PricingEngine engine = engine(rule("BIG100", PromotionRule.Type.ORDER_DISCOUNT)
+                .amountOff(new BigDecimal("100.00")).minSubtotal(new BigDecimal("1000.00")).build());
+
+        assertThat(engine.price(List.of(line("rice", "GRAINS", "999.00", 1))).discountAmount()).isEqualByComparingTo("0.00");
+        assertThat(engine.price(List.of(line("rice", "GRAINS", "1000.00", 1))).discountAmount()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void addsTheCouponDiscountOnTopOfAutomaticDiscounts() {
+        PricingEngine engine = engine(
+                rule("AUTO5", PromotionRule.Type.ORDER_DISCOUNT).percentOff(new BigDecimal("5")).build(),
+                rule("WELCOME10", PromotionRule.Type.ORDER_DISCOUNT).couponCode("welcome").percentOff(new BigDecimal("10")).build());
+        List<PriceLine> lines = List.of(line("rice", "GRAINS", "1000.00", 1));
+
+        PricingResult withoutCoupon = engine.price(lines);
+        PricingResult withCoupon = engine.price(lines, " Welcome ");
+
+        assertThat(withoutCoupon.discountAmount()).isEqualByComparingTo("50.00");
+        // 10% of what is left after the automatic 5%
+        assertThat(withCoupon.discountAmount()).isEqualByComparingTo("145.00");
+        assertThat(withCoupon.couponCode()).isEqualTo("WELCOME");
+        assertThat(withCoupon.appliedPromotions()).containsExactly("AUTO5", "WELCOME10");
+    }
+
+    @Test
+    void rejectsUnknownAndExpiredCoupons() {
+        PricingEngine engine = engine(rule("OLD", PromotionRule.Type.ORDER_DISCOUNT).couponCode("OLD")
+                .percentOff(new BigDecimal("10")).validUntil(LocalDateTime.now().minusDays(1)).build());
+        List<PriceLine> lines = List.of(line("rice", "GRAINS", "100.00", 1));
+
+        assertThatThrownBy(() -> engine.price(lines, "NOPE")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> engine.price(lines, "OLD")).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void ignoresRulesOutsideTheirValidity() {
+        PricingEngine engine = engine(rule("LATER", PromotionRule.Type.CATEGORY_DISCOUNT).category("FRUITS")
+                .percentOff(new BigDecimal("10")).validFrom(LocalDateTime.now().plusDays(1)).build());
+
+        assertThat(engine.price(List.of(line("apple", "FRUITS", "100.00", 1))).discountAmount()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void waivesDeliveryWithAFreeDeliveryRule() {
+        PricingEngine engine = engine(rule("SHIPFREE", PromotionRule.Type.FREE_DELIVERY).minSubtotal(new BigDecimal("100.00")).build());
+
+        PricingResult result = engine.price(List.of(line("apple", "FRUITS", "100.00", 1)));
+
+        assertThat(result.deliveryCharge()).isEqualByComparingTo("0.00");
+        assertThat(result.appliedPromotions()).containsExactly("SHIPFREE");
+    }
+
+    @Test
+    void usesTheNewRulesAfterAReload() {
+        PricingEngine engine = engine();
+        engine.reload(List.of(rule("FRUIT10", PromotionRule.Type.CATEGORY_DISCOUNT)
+                .category("FRUITS").percentOff(new BigDecimal("10")).build()));
+
+        assertThat(engine.price(List.of(line("apple", "FRUITS", "100.00", 1))).discountAmount()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void rejectsIncompleteRules() {
+        PromotionRule noPercent = rule("BROKEN", PromotionRule.Type.CATEGORY_DISCOUNT).category("FRUITS").build();
+
+        assertThatThrownBy(() -> engine(noPercent)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static PricingEngine engine(PromotionRule... rules) {
+        PricingProperties properties = new PricingProperties();
+        properties.setPromotions(List.of(rules));
+        return new PricingEngine(properties);
+    }
+
+    static PromotionRule.PromotionRuleBuilder rule(String id, PromotionRule.Type type) {
+        return PromotionRule.builder().id(id).type(type);
+    }
+
+    static PriceLine line(String productId, String category, String unitPrice, int quantity) {
+        return new PriceLine(productId, category, new BigDecimal(unitPrice), null, quantity);
+    }
+}
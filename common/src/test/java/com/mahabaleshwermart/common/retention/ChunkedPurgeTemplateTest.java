@@ -0,0 +1,181 @@
+package com.mahabaleshwermart.common.retention;
+
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate.PurgeStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Purges against an embedded database whose GET_LOCK/RELEASE_LOCK mimic MySQL named locks held per session
+ * (H2 has no ORDER BY on DELETE, so the steps here leave it out).
+ */
+public class ChunkedPurgeTemplateTest {
+
+    private static final ConcurrentMap<String, Integer> NAMED_LOCKS = new ConcurrentHashMap<>();
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final AtomicInteger deleteStatements = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("purge-" + UUID.randomUUID() + ";MODE=MySQL")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE ALIAS GET_LOCK FOR '" + ChunkedPurgeTemplateTest.class.getName() + ".getLock'");
+        jdbcTemplate.execute("CREATE ALIAS RELEASE_LOCK FOR '" + ChunkedPurgeTemplateTest.class.getName() + ".releaseLock'");
+        jdbcTemplate.execute("CREATE TABLE events (id INT PRIMARY KEY, expired BOOLEAN)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        NAMED_LOCKS.clear();
+        database.shutdown();
+    }
+
+    @Test
+    void deletesMatchingRowsInChunksUntilAShortOne() {
+        insertEvents(1, 25, true);
+        insertEvents(26, 30, false);
+
+        Map<String, Long> purged = template(10).execute(List.of(expiredEvents()));
+
+        assertThat(purged).containsEntry("expired-events", 25L);
+        assertThat(deleteStatements).hasValue(3);
+        assertThat(count()).isEqualTo(5);
+        assertThat(NAMED_LOCKS).isEmpty();
+    }
+
+    @Test
+    void aFullLastChunkIsFollowedByAnEmptyOne() {
+        insertEvents(1, 20, true);
+
+        Map<String, Long> purged = template(10).execute(List.of(expiredEvents()));
+
+        assertThat(purged).containsEntry("expired-events", 20L);
+        assertThat(deleteStatements).hasValue(3);
+    }
+
+    @Test
+    void runsStepsInOrder() {
+        insertEvents(1, 5, true);
+        insertEvents(6, 8, false);
+
+        Map<String, Long> purged = template(10).execute(List.of(
+                expiredEvents(),
+                new PurgeStep("live-events", "DELETE FROM events WHERE expired = ? LIMIT ?", false)));
+
+        assertThat(purged).containsExactly(Map.entry("expired-events", 5L), Map.entry("live-events", 3L));
+    }
+
+    @Test
+    void skipsTheRunWhileAnotherSessionHoldsTheLock() throws SQLException {
+        insertEvents(1, 5, true);
+        try (Connection other = database.getConnection()) {
+            NAMED_LOCKS.put("test.purge", sessionId(other));
+
+            Map<String, Long> purged = template(10).execute(List.of(expiredEvents()));
+
+            assertThat(purged).isEmpty();
+            assertThat(deleteStatements).hasValue(0);
+            assertThat(count()).isEqualTo(5);
+            assertThat(NAMED_LOCKS).containsEntry("test.purge", sessionId(other));
+        }
+    }
+
+    @Test
+    void releasesTheLockWhenAStepFails() {
+        assertThatThrownBy(() -> template(10).execute(List.of(
+                new PurgeStep("broken", "DELETE FROM missing_table LIMIT ?"))))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(NAMED_LOCKS).isEmpty();
+    }
+
+    private ChunkedPurgeTemplate template(int chunkSize) {
+        return new ChunkedPurgeTemplate(new CountingDataSource(), "test.purge", chunkSize, 0);
+    }
+
+    private static PurgeStep expiredEvents() {
+        return new PurgeStep("expired-events", "DELETE FROM events WHERE expired = ? LIMIT ?", true);
+    }
+
+    private void insertEvents(int from, int to, boolean expired) {
+        for (int id = from; id <= to; id++) {
+            jdbcTemplate.update("INSERT INTO events (id, expired) VALUES (?, ?)", id, expired);
+        }
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events", Integer.class);
+    }
+
+    /**
+     * GET_LOCK(name, 0): 1 when the calling session holds or now takes the lock, 0 when another session holds it
+     */
+    public static int getLock(Connection connection, String name, int timeoutSeconds) throws SQLException {
+        int session = sessionId(connection);
+        return NAMED_LOCKS.computeIfAbsent(name, n -> session) == session ? 1 : 0;
+    }
+
+    public static int releaseLock(Connection connection, String name) throws SQLException {
+        return NAMED_LOCKS.remove(name, sessionId(connection)) ? 1 : 0;
+    }
+
+    private static int sessionId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT SESSION_ID()")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Counts the DELETE statements prepared on its connections
+     */
+    private final class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource() {
+            super(database);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement") && ((String) args[0]).startsWith("DELETE")) {
+                            deleteStatements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
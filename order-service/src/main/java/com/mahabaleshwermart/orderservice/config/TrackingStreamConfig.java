@@ -0,0 +1,30 @@
+package com.mahabaleshwermart.orderservice.config;
+
+import com.mahabaleshwermart.orderservice.service.OrderTrackingStreamService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Configuration for live order tracking streams
+ * Subscribes every instance to the tracking channel so updates reach streams held by any instance.
+ */
+@Configuration
+public class TrackingStreamConfig {
+
+    @Bean
+    public RedisMessageListenerContainer trackingListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                   OrderTrackingStreamService trackingStreamService) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-tracking-");
+        executor.setVirtualThreads(true);
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        container.addMessageListener(trackingStreamService, new ChannelTopic(OrderTrackingStreamService.CHANNEL));
+        return container;
+    }
+}
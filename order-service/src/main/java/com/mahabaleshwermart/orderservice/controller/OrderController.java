@@ -2,10 +2,16 @@ package com.mahabaleshwermart.orderservice.controller;
 
 import com.mahabaleshwermart.common.dto.ApiResponse;
 import com.mahabaleshwermart.common.dto.PageResponse;
+import com.mahabaleshwermart.orderservice.dto.BulkStatusUpdateResult;
+import com.mahabaleshwermart.orderservice.dto.BulkUpdateOrderStatusRequest;
 import com.mahabaleshwermart.orderservice.dto.OrderDto;
+import com.mahabaleshwermart.orderservice.dto.OrderInclude;
+import com.mahabaleshwermart.orderservice.dto.OrderSummaryDto;
 import com.mahabaleshwermart.orderservice.dto.CreateOrderRequest;
 import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.service.IdempotencyService;
 import com.mahabaleshwermart.orderservice.service.OrderService;
+import com.mahabaleshwermart.orderservice.service.OrderTrackingStreamService;
 import com.mahabaleshwermart.orderservice.dto.CreateOrderRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,9 +28,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
 
 /**
  * Order Controller
@@ -39,16 +50,23 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
     
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderTrackingStreamService trackingStreamService;
+    
+    private static final int EMBEDDED_TIMELINE_EVENTS = 100;
+    private static final int MAX_TIMELINE_PAGE_SIZE = 100;
     
     /**
      * Create order from cart
      */
     @PostMapping
     @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Create order", description = "Create order from user's cart")
+    @Operation(summary = "Create order", description = "Create order from user's cart. " +
+            "Retries carrying the same Idempotency-Key return the original order instead of placing a new one")
     public ResponseEntity<ApiResponse<OrderDto>> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
             Authentication authentication,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestHeader(value = "X-User-Id", required = false) String xUserId,
             @RequestHeader(value = "X-User-Email", required = false) String xUserEmail,
             @RequestHeader(value = "X-User-Name", required = false) String xUserName,
@@ -63,7 +81,8 @@ public class OrderController {
         }
         log.info("Create order request for user: {}", userId);
         
-        OrderDto order = orderService.createOrderFromCart(userId, request);
+        OrderDto order = idempotencyService.execute("create-order:" + userId, idempotencyKey, request, OrderDto.class,
+                () -> orderService.createOrderFromCart(userId, request));
         
         return ResponseEntity.status(201).body(
             ApiResponse.created(order, "Order created successfully")
@@ -93,10 +112,14 @@ public class OrderController {
     @GetMapping("/{orderId}")
     @SecurityRequirement(name = "bearerAuth")
     @Operation(summary = "Get order by ID", description = "Retrieve order details by order ID")
-    public ResponseEntity<ApiResponse<OrderDto>> getOrderById(@PathVariable String orderId) {
+    public ResponseEntity<ApiResponse<OrderDto>> getOrderById(
+            @PathVariable String orderId,
+            @Parameter(description = "Parts to include: items,payment,timeline (default all)")
+            @RequestParam(required = false) String include) {
         log.info("Get order by ID: {}", orderId);
         
-        OrderDto order = orderService.getOrderById(orderId);
+        Set<OrderInclude> parts = OrderInclude.parse(include);
+        OrderDto order = select(orderService.getOrderById(orderId), parts);
         
         return ResponseEntity.ok(
             ApiResponse.success(order, "Order retrieved successfully")
@@ -108,23 +131,51 @@ public class OrderController {
      */
     @GetMapping("/number/{orderNumber}")
     @Operation(summary = "Get order by number", description = "Retrieve order details by order number")
-    public ResponseEntity<ApiResponse<OrderDto>> getOrderByNumber(@PathVariable String orderNumber) {
+    public ResponseEntity<ApiResponse<OrderDto>> getOrderByNumber(
+            @PathVariable String orderNumber,
+            @Parameter(description = "Parts to include: items,payment,timeline (default all)")
+            @RequestParam(required = false) String include) {
         log.info("Get order by number: {}", orderNumber);
         
-        OrderDto order = orderService.getOrderByOrderNumber(orderNumber);
+        Set<OrderInclude> parts = OrderInclude.parse(include);
+        OrderDto order = select(orderService.getOrderByOrderNumber(orderNumber), parts);
         
         return ResponseEntity.ok(
             ApiResponse.success(order, "Order retrieved successfully")
         );
     }
     
+    /**
+     * Get order timeline
+     */
+    @GetMapping("/{orderId}/timeline")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Get order timeline", description = "Retrieve a page of the order timeline, oldest event first")
+    public ResponseEntity<ApiResponse<PageResponse<OrderDto.OrderTimelineDto>>> getOrderTimeline(
+            @PathVariable String orderId,
+            @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size) {
+        log.info("Get timeline for order: {}", orderId);
+        
+        if (page < 0 || size < 1 || size > MAX_TIMELINE_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.badRequest("Page must be >= 0 and size between 1 and " + MAX_TIMELINE_PAGE_SIZE)
+            );
+        }
+        PageResponse<OrderDto.OrderTimelineDto> timeline = orderService.getOrderTimeline(orderId, PageRequest.of(page, size));
+        
+        return ResponseEntity.ok(
+            ApiResponse.success(timeline, "Order timeline retrieved successfully")
+        );
+    }
+    
     /**
      * Get user orders
      */
     @GetMapping("/my-orders")
     @SecurityRequirement(name = "bearerAuth")
     @Operation(summary = "Get user orders", description = "Retrieve orders for authenticated user")
-    public ResponseEntity<ApiResponse<PageResponse<OrderDto>>> getUserOrders(
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryDto>>> getUserOrders(
             @Parameter(description = "Page number") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
             @Parameter(description = "Sort direction") @RequestParam(defaultValue = "desc") String sortDirection,
@@ -142,7 +193,7 @@ public class OrderController {
         Sort.Direction direction = Sort.Direction.fromString(sortDirection);
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, "createdAt"));
         
-        PageResponse<OrderDto> orders = orderService.getUserOrders(userId, pageable);
+        PageResponse<OrderSummaryDto> orders = orderService.getUserOrders(userId, pageable);
         
         return ResponseEntity.ok(
             ApiResponse.success(orders, "Orders retrieved successfully")
@@ -155,7 +206,7 @@ public class OrderController {
     @GetMapping("/status/{status}")
     @SecurityRequirement(name = "bearerAuth")
     @Operation(summary = "Get orders by status", description = "Retrieve orders by status (Admin only)")
-    public ResponseEntity<ApiResponse<PageResponse<OrderDto>>> getOrdersByStatus(
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryDto>>> getOrdersByStatus(
             @PathVariable String status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
@@ -172,7 +223,7 @@ public class OrderController {
         }
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        PageResponse<OrderDto> orders = orderService.getOrdersByStatus(orderStatus, pageable);
+        PageResponse<OrderSummaryDto> orders = orderService.getOrdersByStatus(orderStatus, pageable);
         
         return ResponseEntity.ok(
             ApiResponse.success(orders, "Orders retrieved successfully")
@@ -209,6 +260,42 @@ public class OrderController {
         );
     }
     
+    /**
+     * Update the status of many orders at once (Admin only)
+     */
+    @PutMapping("/admin/status/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Bulk update order status",
+               description = "Move up to 500 orders to one status; orders that cannot move are reported as skipped, " +
+                             "orders that could not be written as failed (Admin only)")
+    public ResponseEntity<ApiResponse<BulkStatusUpdateResult>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkUpdateOrderStatusRequest request,
+            Authentication authentication) {
+        
+        String performedBy = authentication.getName();
+        log.info("Bulk update of {} orders to {} by {}", request.getOrderIds().size(), request.getOrderStatus(), performedBy);
+        
+        Order.OrderStatus newStatus;
+        try {
+            newStatus = Order.OrderStatus.valueOf(request.getOrderStatus().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(
+                ApiResponse.badRequest("Invalid order status: " + request.getOrderStatus())
+            );
+        }
+        
+        BulkStatusUpdateResult result = orderService.bulkUpdateOrderStatus(
+                request.getOrderIds(), newStatus, request.getNotes(), performedBy);
+        
+        String message = result.getFailed().isEmpty()
+                ? "Order statuses updated successfully"
+                : "Order statuses updated; " + result.getFailed().size() + " orders could not be updated";
+        return ResponseEntity.ok(
+            ApiResponse.success(result, message)
+        );
+    }
+    
     /**
      * Cancel order
      */
@@ -245,21 +332,32 @@ public class OrderController {
         );
     }
     
+    /**
+     * Live order tracking stream
+     */
+    @GetMapping(value = "/track/{orderNumber}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream order tracking",
+               description = "Server-sent events: a status snapshot, then each new tracking update as it happens")
+    public SseEmitter streamOrderTracking(@PathVariable String orderNumber) {
+        log.info("Open tracking stream for order: {}", orderNumber);
+        return trackingStreamService.subscribe(orderNumber);
+    }
+    
     /**
      * Search orders (Admin only)
      */
     @GetMapping("/search")
     @SecurityRequirement(name = "bearerAuth")
-    @Operation(summary = "Search orders", description = "Search orders by order number or user email (Admin only)")
-    public ResponseEntity<ApiResponse<PageResponse<OrderDto>>> searchOrders(
-            @Parameter(description = "Search term") @RequestParam String q,
+    @Operation(summary = "Search orders", description = "Search orders by order, tracking or invoice number prefix, or user email prefix (Admin only)")
+    public ResponseEntity<ApiResponse<PageResponse<OrderSummaryDto>>> searchOrders(
+            @Parameter(description = "Search prefix, at least 3 characters") @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         
         log.info("Search orders with term: {}", q);
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        PageResponse<OrderDto> orders = orderService.searchOrders(q, pageable);
+        PageResponse<OrderSummaryDto> orders = orderService.searchOrders(q, pageable);
         
         return ResponseEntity.ok(
             ApiResponse.success(orders, "Search results retrieved successfully")
@@ -296,6 +394,23 @@ public class OrderController {
             ApiResponse.success("Order service is running")
         );
     }
+    
+    /**
+     * Keep only the requested parts of a cached order; the timeline comes from its own cache
+     */
+    private OrderDto select(OrderDto order, Set<OrderInclude> parts) {
+        OrderDto.OrderDtoBuilder view = order.toBuilder();
+        if (!parts.contains(OrderInclude.ITEMS)) {
+            view.items(null);
+        }
+        if (!parts.contains(OrderInclude.PAYMENT)) {
+            view.payment(null);
+        }
+        if (parts.contains(OrderInclude.TIMELINE)) {
+            view.timeline(orderService.getOrderTimeline(order.getId(), PageRequest.of(0, EMBEDDED_TIMELINE_EVENTS)).getContent());
+        }
+        return view.build();
+    }
 }
 
 // Remove local record DTOs; consolidated in dto package
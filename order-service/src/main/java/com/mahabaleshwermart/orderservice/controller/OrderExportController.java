@@ -0,0 +1,46 @@
+package com.mahabaleshwermart.orderservice.controller;
+
+import com.mahabaleshwermart.common.export.ExportFormat;
+import com.mahabaleshwermart.orderservice.service.OrderExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Order Export Controller
+ * Finance exports streamed straight from the database
+ */
+@RestController
+@RequestMapping("/api/orders/admin/export")
+@RequiredArgsConstructor
+@Tag(name = "Order Exports", description = "Admin order export endpoints")
+public class OrderExportController {
+
+    private final OrderExportService orderExportService;
+
+    /**
+     * Orders placed in a date range as CSV or NDJSON
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Export orders", description = "Stream orders placed in a date range as CSV or NDJSON, gzip encoded when accepted (Admin only)")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "First day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "csv or ndjson") @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request) {
+
+        return orderExportService.exportOrders(request, from, to, ExportFormat.from(format));
+    }
+}
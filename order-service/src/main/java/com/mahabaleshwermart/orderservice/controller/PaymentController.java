@@ -3,6 +3,7 @@ package com.mahabaleshwermart.orderservice.controller;
 import com.mahabaleshwermart.orderservice.dto.payment.PaymentResponse;
 import com.mahabaleshwermart.orderservice.dto.payment.PaymentVerificationRequest;
 import com.mahabaleshwermart.orderservice.dto.payment.RefundRequest;
+import com.mahabaleshwermart.orderservice.service.IdempotencyService;
 import com.mahabaleshwermart.orderservice.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,6 +16,8 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 
+import java.util.Map;
+
 /**
  * Payment Controller for Order Service
  * Handles payment operations for orders through payment service integration
@@ -27,6 +30,7 @@ import jakarta.validation.Valid;
 public class PaymentController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Initiate payment for an order
@@ -34,16 +38,20 @@ public class PaymentController {
     @PostMapping("/{orderId}/payment/initiate")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     @Operation(summary = "Initiate payment for an order", 
-               description = "Start the payment process for a pending order")
+               description = "Start the payment process for a pending order. " +
+                       "Retries carrying the same Idempotency-Key return the original payment instead of starting another")
     public ResponseEntity<PaymentResponse> initiatePayment(
             @Parameter(description = "Order ID") @PathVariable String orderId,
             @Parameter(description = "Payment method") @RequestParam String paymentMethod,
-            @Parameter(description = "Gateway provider") @RequestParam(defaultValue = "RAZORPAY") String gatewayProvider) {
+            @Parameter(description = "Gateway provider") @RequestParam(defaultValue = "RAZORPAY") String gatewayProvider,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         
         log.info("Initiating payment for order: {} with method: {} via gateway: {}", 
             orderId, paymentMethod, gatewayProvider);
             
-        PaymentResponse response = orderService.initiatePayment(orderId, paymentMethod, gatewayProvider);
+        PaymentResponse response = idempotencyService.execute("initiate-payment:" + orderId, idempotencyKey,
+                Map.of("paymentMethod", paymentMethod, "gatewayProvider", gatewayProvider), PaymentResponse.class,
+                () -> orderService.initiatePayment(orderId, paymentMethod, gatewayProvider));
         return ResponseEntity.ok(response);
     }
 
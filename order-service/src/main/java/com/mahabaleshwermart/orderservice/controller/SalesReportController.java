@@ -0,0 +1,52 @@
+package com.mahabaleshwermart.orderservice.controller;
+
+import com.mahabaleshwermart.common.dto.ApiResponse;
+import com.mahabaleshwermart.orderservice.dto.SalesReportDto;
+import com.mahabaleshwermart.orderservice.service.SalesRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Sales Report Controller
+ * Admin sales reporting served from daily rollups
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/orders/admin/reports")
+@RequiredArgsConstructor
+@Tag(name = "Sales Reports", description = "Admin sales reporting endpoints")
+public class SalesReportController {
+
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * Sales over a date range grouped by status, category, payment method, day or month
+     */
+    @GetMapping("/sales")
+    @PreAuthorize("hasRole('ADMIN')")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Sales report", description = "Sales totals for orders placed in a date range (Admin only)")
+    public ResponseEntity<ApiResponse<SalesReportDto>> getSalesReport(
+            @Parameter(description = "First day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "STATUS, CATEGORY, PAYMENT_METHOD, DAY or MONTH") @RequestParam(defaultValue = "DAY") SalesRollupService.GroupBy groupBy) {
+
+        log.info("Sales report from {} to {} grouped by {}", from, to, groupBy);
+
+        SalesReportDto report = salesRollupService.getReport(from, to, groupBy);
+
+        return ResponseEntity.ok(
+            ApiResponse.success(report, "Sales report retrieved successfully")
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package com.mahabaleshwermart.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk status update: orders moved to the new status, the reason each order was skipped, and the
+ * orders whose shard failed to update, which are unchanged and may be sent again
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResult {
+    private String orderStatus;
+    private int requested;
+    private List<String> updated;
+    private Map<String, String> skipped;
+    private Map<String, String> failed;
+}
@@ -0,0 +1,24 @@
+package com.mahabaleshwermart.orderservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateOrderStatusRequest {
+    @NotEmpty(message = "At least one order id is required")
+    @Size(max = 500, message = "At most 500 orders can be updated in one call")
+    private List<String> orderIds;
+    @NotNull(message = "Order status is required")
+    private String orderStatus;
+    private String notes;
+}
@@ -23,6 +23,9 @@ public class CreateOrderRequest {
 
     @Size(max = 500, message = "Special instructions cannot exceed 500 characters")
     private String specialInstructions;
+
+    @Size(max = 50, message = "Coupon code cannot exceed 50 characters")
+    private String couponCode;
 }
 
 
@@ -15,7 +15,7 @@ import java.util.List;
  * Order Data Transfer Object
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -37,6 +37,7 @@ public class OrderDto {
     private BigDecimal taxAmount;
     private BigDecimal deliveryCharge;
     private BigDecimal discountAmount;
+    private String couponCode;
     private BigDecimal totalAmount;
     private int totalItems;
     private int totalQuantity;
@@ -0,0 +1,40 @@
+package com.mahabaleshwermart.orderservice.dto;
+
+import com.mahabaleshwermart.common.exception.BusinessException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Optional parts of an {@link OrderDto}, selected with the {@code include} request parameter,
+ * e.g. {@code include=items,payment}. Without the parameter every part is included.
+ */
+public enum OrderInclude {
+    ITEMS,
+    PAYMENT,
+    TIMELINE;
+
+    /**
+     * Parse a comma separated selector; {@code null} or blank selects everything
+     */
+    public static Set<OrderInclude> parse(String include) {
+        if (include == null || include.isBlank()) {
+            return EnumSet.allOf(OrderInclude.class);
+        }
+        Set<OrderInclude> parts = EnumSet.noneOf(OrderInclude.class);
+        for (String part : include.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                parts.add(valueOf(name.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Unknown include '" + name + "', expected one of "
+                        + Arrays.toString(values()).toLowerCase());
+            }
+        }
+        return parts;
+    }
+}
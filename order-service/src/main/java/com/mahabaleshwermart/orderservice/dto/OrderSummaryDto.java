@@ -0,0 +1,65 @@
+package com.mahabaleshwermart.orderservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order Summary Data Transfer Object
+ * Compact order view for listings ("My Orders", admin lists); carries no timeline or payment details
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderSummaryDto {
+
+    private String id;
+    private String orderNumber;
+    private String userId;
+    private String userName;
+    private String userEmail;
+    private String orderStatus;
+    private String paymentStatus;
+    private String paymentMethod;
+    private BigDecimal totalAmount;
+    private int totalItems;
+    private int totalQuantity;
+    private String trackingNumber;
+    private LocalDateTime estimatedDelivery;
+    private LocalDateTime actualDelivery;
+    private LocalDateTime createdAt;
+    private List<OrderSummaryItemDto> items;
+
+    public boolean isCancellable() {
+        return "PENDING".equals(orderStatus) ||
+               "CONFIRMED".equals(orderStatus) ||
+               "PROCESSING".equals(orderStatus);
+    }
+
+    public boolean isTrackable() {
+        return "SHIPPED".equals(orderStatus) ||
+               "OUT_FOR_DELIVERY".equals(orderStatus);
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class OrderSummaryItemDto {
+        private String productId;
+        private String productName;
+        private String productImage;
+        private String productUnit;
+        private int quantity;
+        private BigDecimal totalPrice;
+    }
+}
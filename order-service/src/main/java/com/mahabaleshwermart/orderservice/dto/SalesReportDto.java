@@ -0,0 +1,40 @@
+package com.mahabaleshwermart.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sales Report Data Transfer Object
+ * Rollup totals for a date range, grouped by a status, category, payment method, day or month key
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesReportDto {
+
+    private String groupBy;
+    private LocalDate from;
+    private LocalDate to;
+    private long totalOrders;
+    private long totalQuantity;
+    private BigDecimal totalAmount;
+    private List<Row> rows;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private String key;
+        private long orders;
+        private long quantity;
+        private BigDecimal amount;
+    }
+}
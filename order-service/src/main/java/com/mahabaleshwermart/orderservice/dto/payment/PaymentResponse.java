@@ -1,5 +1,6 @@
 package com.mahabaleshwermart.orderservice.dto.payment;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -52,4 +53,13 @@ public class PaymentResponse {
     // Additional metadata
     private String notes;
     private Object gatewayResponse; // Raw gateway response for debugging
+
+    /**
+     * Whether payment-service created the payment. A PENDING payment is completed later by
+     * verification or the gateway webhook.
+     */
+    @JsonIgnore
+    public boolean isInitiated() {
+        return "PENDING".equals(status) || "PROCESSING".equals(status) || "SUCCESS".equals(status);
+    }
 }
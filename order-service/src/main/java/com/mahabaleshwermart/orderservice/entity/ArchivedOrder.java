@@ -0,0 +1,59 @@
+package com.mahabaleshwermart.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Archived Order entity
+ * A closed order moved out of the live order tables. The full order, with its items, payment and timeline,
+ * is kept as one gzip compressed JSON document; only the columns needed to find it are stored separately.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_archive_order_number", columnList = "order_number", unique = true),
+    @Index(name = "idx_archive_user", columnList = "user_id, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+
+    /** Same id the order had while live */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "order_number", nullable = false)
+    private String orderNumber;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false, length = 20)
+    private Order.OrderStatus orderStatus;
+
+    @Column(name = "total_amount", precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /** Gzip compressed JSON of the order DTO */
+    @Lob
+    @Column(name = "document", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] document;
+}
@@ -1,5 +1,6 @@
 package com.mahabaleshwermart.orderservice.entity;
 
+import com.mahabaleshwermart.common.id.BusinessNumbers;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,7 +23,13 @@ import java.util.List;
     @Index(name = "idx_order_status", columnList = "order_status"),
     @Index(name = "idx_order_number", columnList = "order_number"),
     @Index(name = "idx_order_created", columnList = "created_at"),
-    @Index(name = "idx_order_payment_status", columnList = "payment_status")
+    @Index(name = "idx_order_payment_status", columnList = "payment_status"),
+    @Index(name = "idx_order_status_created", columnList = "order_status, created_at"),
+    @Index(name = "idx_order_status_delivery", columnList = "order_status, estimated_delivery"),
+    @Index(name = "idx_order_status_updated", columnList = "order_status, updated_at"),
+    @Index(name = "uk_order_tracking_number", columnList = "tracking_number", unique = true),
+    @Index(name = "uk_order_invoice_number", columnList = "invoice_number", unique = true),
+    @Index(name = "idx_order_user_email", columnList = "user_email")
 })
 @Data
 @Builder
@@ -90,6 +97,9 @@ public class Order {
     @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
     private BigDecimal totalAmount;
     
+    @Column(name = "coupon_code", length = 50)
+    private String couponCode;
+    
     @Column(name = "total_items", nullable = false)
     private int totalItems;
     
@@ -117,6 +127,10 @@ public class Order {
     @Column(name = "tracking_number")
     private String trackingNumber;
     
+    // Payment method the sales rollup credited at placement; refunds and cancellations debit the same one
+    @Column(name = "sales_payment_method", length = 30, updatable = false)
+    private String salesPaymentMethod;
+    
     @Column(name = "invoice_number")
     private String invoiceNumber;
     
@@ -132,14 +146,17 @@ public class Order {
     @PrePersist
     private void prePersist() {
         if (orderNumber == null) {
-            orderNumber = generateOrderNumber();
+            orderNumber = BusinessNumbers.orderNumber();
         }
         if (invoiceNumber == null) {
-            invoiceNumber = generateInvoiceNumber();
+            invoiceNumber = BusinessNumbers.invoiceNumber();
         }
         if (estimatedDelivery == null) {
             estimatedDelivery = LocalDateTime.now().plusDays(3); // Default 3 days
         }
+        if (salesPaymentMethod == null && payment != null && payment.getPaymentMethod() != null) {
+            salesPaymentMethod = payment.getPaymentMethod().name();
+        }
         calculateTotalAmount();
     }
     
@@ -148,7 +165,10 @@ public class Order {
         calculateTotalAmount();
     }
     
-    private void calculateTotalAmount() {
+    /**
+     * Derive the total from the amounts; also runs on persist and update
+     */
+    public void calculateTotalAmount() {
         if (subtotal != null) {
             totalAmount = subtotal
                     .add(taxAmount != null ? taxAmount : BigDecimal.ZERO)
@@ -157,20 +177,6 @@ public class Order {
         }
     }
     
-    private String generateOrderNumber() {
-        // Format: ORD-YYYYMMDD-HHMMSS-XXXX
-        return "ORD-" + java.time.LocalDateTime.now().format(
-                java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
-        ) + "-" + String.format("%04d", (int)(Math.random() * 10000));
-    }
-    
-    private String generateInvoiceNumber() {
-        // Format: INV-YYYYMMDD-XXXX
-        return "INV-" + java.time.LocalDateTime.now().format(
-                java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd")
-        ) + "-" + String.format("%04d", (int)(Math.random() * 10000));
-    }
-    
     // Helper methods
     @Transient
     public boolean isCancellable() {
@@ -0,0 +1,73 @@
+package com.mahabaleshwermart.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order Outbox entity
+ * An order event recorded in the same transaction as the order change and relayed to Kafka after commit.
+ * The auto-increment id gives the relay a stable publish order. A relay claims events for a limited time
+ * before sending them, so no row lock is held while Kafka is slow.
+ */
+@Entity
+@Table(name = "order_outbox", indexes = {
+    @Index(name = "idx_outbox_pending", columnList = "published_at, id"),
+    @Index(name = "idx_outbox_message_key", columnList = "message_key")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "topic", nullable = false, length = 100)
+    private String topic;
+
+    /** Kafka record key; events with the same key are published in id order */
+    @Column(name = "message_key", nullable = false, length = 100)
+    private String messageKey;
+
+    @Column(name = "payload_type", nullable = false)
+    private String payloadType;
+
+    @Lob
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    /** Token of the relay run sending the event; only that run may record the outcome */
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    /** Until when the claim holds; an expired claim is taken over by the next relay run */
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
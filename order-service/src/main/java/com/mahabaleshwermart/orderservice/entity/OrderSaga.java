@@ -0,0 +1,79 @@
+package com.mahabaleshwermart.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order Saga entity
+ * State of the asynchronous checkout saga of one order. Its steps are recorded in {@link OrderSagaStep}.
+ */
+@Entity
+@Table(name = "order_sagas", indexes = {
+    @Index(name = "idx_saga_order", columnList = "order_id", unique = true),
+    @Index(name = "idx_saga_status", columnList = "status, updated_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSaga {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "order_id", nullable = false, length = 36)
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.RUNNING;
+
+    /** Last forward step that was started */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "current_step", length = 30)
+    private OrderSagaStep.Step currentStep;
+
+    @Column(name = "failure_reason", length = 1000)
+    private String failureReason;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum Status {
+        /** Forward steps in progress */
+        RUNNING,
+        /** A step failed; compensations in progress */
+        COMPENSATING,
+        /** All steps succeeded */
+        COMPLETED,
+        /** All compensations succeeded after a failure */
+        COMPENSATED,
+        /** A compensation kept failing; needs manual attention */
+        STUCK
+    }
+}
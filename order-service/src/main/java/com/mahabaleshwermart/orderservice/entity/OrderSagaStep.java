@@ -0,0 +1,97 @@
+package com.mahabaleshwermart.orderservice.entity;
+
+import com.mahabaleshwermart.common.events.SagaCommand;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order Saga Step entity
+ * Persistent log of every command the checkout saga sent and the reply it got.
+ * The row id travels with the command as the step id, so replies and redeliveries are matched to it.
+ */
+@Entity
+@Table(name = "order_saga_steps", indexes = {
+    @Index(name = "idx_saga_step_saga", columnList = "saga_id"),
+    @Index(name = "idx_saga_step_pending", columnList = "status, sent_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSagaStep {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "saga_id", nullable = false, length = 36)
+    private String sagaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step", nullable = false, length = 30)
+    private Step step;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action", nullable = false, length = 20)
+    private SagaCommand.Action action;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.SENT;
+
+    @Column(name = "attempt", nullable = false)
+    @Builder.Default
+    private int attempt = 1;
+
+    @Column(name = "message", length = 1000)
+    private String message;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (sentAt == null) {
+            sentAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Checkout steps in execution order; compensations run in reverse
+     */
+    public enum Step {
+        /** Reserve stock for the order lines; compensation releases it */
+        RESERVE_STOCK(SagaCommand.INVENTORY_TOPIC),
+        /** Empty the customer's cart; compensation puts the lines back */
+        CLEAR_CART(SagaCommand.CART_TOPIC),
+        /** Start the payment with the gateway; compensation cancels or refunds it */
+        INITIATE_PAYMENT(SagaCommand.PAYMENT_TOPIC);
+
+        private final String topic;
+
+        Step(String topic) {
+            this.topic = topic;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+    }
+
+    public enum Status {
+        SENT,
+        SUCCEEDED,
+        FAILED,
+        /** No reply within the step timeout; treated as failed with unknown effect */
+        TIMED_OUT
+    }
+}
@@ -0,0 +1,65 @@
+package com.mahabaleshwermart.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Order Sales Rollup entity
+ * Daily sales counters per reporting dimension, keyed by the day orders were placed.
+ * Reports over any date range sum the buckets instead of scanning orders.
+ */
+@Entity
+@Table(name = "order_sales_rollups", indexes = {
+    @Index(name = "idx_rollup_dimension_date", columnList = "dimension, bucket_date")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSalesRollup {
+
+    @EmbeddedId
+    private RollupId id;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    @Column(name = "quantity", nullable = false)
+    private long quantity;
+
+    @Column(name = "amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+
+    public enum Dimension {
+        /** Orders by their current status */
+        STATUS,
+        /** Net sales by product category (cancelled orders removed) */
+        CATEGORY,
+        /** Net sales by payment method (cancellations and refunds removed) */
+        PAYMENT_METHOD
+    }
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RollupId implements Serializable {
+
+        @Column(name = "bucket_date")
+        private LocalDate bucketDate;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "dimension", length = 20)
+        private Dimension dimension;
+
+        @Column(name = "dimension_value", length = 100)
+        private String dimensionValue;
+    }
+}
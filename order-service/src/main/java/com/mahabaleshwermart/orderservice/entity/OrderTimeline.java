@@ -16,6 +16,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "order_timeline", indexes = {
     @Index(name = "idx_timeline_order", columnList = "order_id"),
+    @Index(name = "idx_timeline_order_created", columnList = "order_id, created_at"),
     @Index(name = "idx_timeline_created", columnList = "created_at")
 })
 @Data
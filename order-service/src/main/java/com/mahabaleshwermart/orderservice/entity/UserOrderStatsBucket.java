@@ -0,0 +1,51 @@
+package com.mahabaleshwermart.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * User Order Stats Bucket entity
+ * Per-user daily counters keyed by the day the order was placed; rolling windows are sums over a bounded key range
+ */
+@Entity
+@Table(name = "user_order_stats_buckets", indexes = {
+    @Index(name = "idx_stats_bucket_date", columnList = "bucket_date")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderStatsBucket {
+
+    @EmbeddedId
+    private BucketId id;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    @Column(name = "cancelled_orders", nullable = false)
+    private long cancelledOrders;
+
+    @Column(name = "spent", nullable = false, precision = 14, scale = 2)
+    private BigDecimal spent;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BucketId implements Serializable {
+
+        @Column(name = "user_id")
+        private String userId;
+
+        @Column(name = "bucket_date")
+        private LocalDate bucketDate;
+    }
+}
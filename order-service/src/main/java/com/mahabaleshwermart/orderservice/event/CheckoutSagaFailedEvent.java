@@ -0,0 +1,11 @@
+package com.mahabaleshwermart.orderservice.event;
+
+/**
+ * Published by the checkout saga, inside the transaction that records the failure, when a checkout step
+ * fails or times out. The order is cancelled in the same transaction; compensations run afterwards.
+ *
+ * @param orderId the order whose checkout failed
+ * @param reason  customer facing cancellation reason
+ */
+public record CheckoutSagaFailedEvent(String orderId, String reason) {
+}
@@ -0,0 +1,41 @@
+package com.mahabaleshwermart.orderservice.event;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+
+import java.math.BigDecimal;
+
+/**
+ * Order lifecycle event published inside the transaction that changed the order.
+ * Read models listening synchronously commit or roll back together with the order.
+ *
+ * @param order          the order after the change
+ * @param type           what happened
+ * @param previousStatus order status before the change ({@code null} for PLACED)
+ * @param amount         money moved by the change: the order total for PLACED/CANCELLED, the refunded amount
+ *                       for REFUNDED, {@code null} for STATUS_CHANGED
+ */
+public record OrderLifecycleEvent(Order order, Type type, Order.OrderStatus previousStatus, BigDecimal amount) {
+
+    public enum Type {
+        PLACED,
+        STATUS_CHANGED,
+        CANCELLED,
+        REFUNDED
+    }
+
+    public static OrderLifecycleEvent placed(Order order) {
+        return new OrderLifecycleEvent(order, Type.PLACED, null, order.getTotalAmount());
+    }
+
+    public static OrderLifecycleEvent statusChanged(Order order, Order.OrderStatus previousStatus) {
+        return new OrderLifecycleEvent(order, Type.STATUS_CHANGED, previousStatus, null);
+    }
+
+    public static OrderLifecycleEvent cancelled(Order order, Order.OrderStatus previousStatus) {
+        return new OrderLifecycleEvent(order, Type.CANCELLED, previousStatus, order.getTotalAmount());
+    }
+
+    public static OrderLifecycleEvent refunded(Order order, Order.OrderStatus previousStatus, BigDecimal refundAmount) {
+        return new OrderLifecycleEvent(order, Type.REFUNDED, previousStatus, refundAmount);
+    }
+}
@@ -0,0 +1,36 @@
+package com.mahabaleshwermart.orderservice.event;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderTimeline;
+
+import java.time.LocalDateTime;
+
+/**
+ * Customer visible tracking update pushed to live order tracking streams: the new timeline entry
+ * together with the order status it left the order in. {@code previousStatus} is {@code null} for
+ * updates that are not status transitions, such as payment and refund events.
+ */
+public record OrderTrackingEvent(String orderNumber,
+                                 Order.OrderStatus orderStatus,
+                                 Order.OrderStatus previousStatus,
+                                 OrderTimeline.EventType eventType,
+                                 String title,
+                                 String description,
+                                 String trackingNumber,
+                                 String location,
+                                 @JsonFormat(shape = JsonFormat.Shape.STRING) LocalDateTime occurredAt) {
+
+    public static OrderTrackingEvent of(Order order, Order.OrderStatus previousStatus, OrderTimeline entry) {
+        return new OrderTrackingEvent(
+                order.getOrderNumber(),
+                order.getOrderStatus(),
+                previousStatus,
+                entry.getEventType(),
+                entry.getTitle(),
+                entry.getDescription(),
+                order.getTrackingNumber(),
+                entry.getLocation(),
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,7 @@
+package com.mahabaleshwermart.orderservice.external;
+
+/**
+ * Request body for adding a product to a cart in cart-service
+ */
+public record AddToCartRequest(String productId, int quantity) {
+}
@@ -5,6 +5,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -44,4 +45,10 @@ public interface CartServiceClient {
      */
     @DeleteMapping("/api/cart/clear")
     ApiResponse<Void> clearGuestCart(@RequestHeader("X-Guest-Session") String guestSessionId);
+
+    /**
+     * Add a product to the user cart; adds to the quantity of an existing line
+     */
+    @PostMapping("/api/cart/add")
+    ApiResponse<CartItemDto> addToCart(@RequestHeader("X-User-Id") String userId, @RequestBody AddToCartRequest request);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.mahabaleshwermart.orderservice.mapper;
 
 import com.mahabaleshwermart.orderservice.dto.OrderDto;
+import com.mahabaleshwermart.orderservice.dto.OrderSummaryDto;
 import com.mahabaleshwermart.orderservice.entity.*;
 import com.mahabaleshwermart.orderservice.external.CartItemDto;
 import com.mahabaleshwermart.orderservice.dto.CreateOrderAddressRequest;
@@ -25,6 +26,19 @@ public class OrderMapper {
             return null;
         }
         
+        return toCoreDto(order).toBuilder()
+                .timeline(order.getTimeline() != null ? order.getTimeline().stream().map(this::toOrderTimelineDto).collect(Collectors.toList()) : null)
+                .build();
+    }
+    
+    /**
+     * Convert Order entity to OrderDto without the timeline, which is not loaded
+     */
+    public OrderDto toCoreDto(Order order) {
+        if (order == null) {
+            return null;
+        }
+        
         return OrderDto.builder()
                 .id(order.getId())
                 .orderNumber(order.getOrderNumber())
@@ -38,6 +52,7 @@ public class OrderMapper {
                 .deliveryCharge(order.getDeliveryCharge())
                 .taxAmount(order.getTaxAmount())
                 .discountAmount(order.getDiscountAmount())
+                .couponCode(order.getCouponCode())
                 .totalAmount(order.getTotalAmount())
                 .totalItems(order.getTotalItems())
                 .totalQuantity(order.getTotalQuantity())
@@ -47,7 +62,6 @@ public class OrderMapper {
                 .items(order.getItems() != null ? order.getItems().stream().map(this::toOrderItemDto).collect(Collectors.toList()) : null)
                 .deliveryAddress(order.getDeliveryAddress() != null ? toOrderAddressDto(order.getDeliveryAddress()) : null)
                 .payment(order.getPayment() != null ? toOrderPaymentDto(order.getPayment()) : null)
-                .timeline(order.getTimeline() != null ? order.getTimeline().stream().map(this::toOrderTimelineDto).collect(Collectors.toList()) : null)
                 .createdAt(order.getCreatedAt())
                 .updatedAt(order.getUpdatedAt())
                 .build();
@@ -63,6 +77,48 @@ public class OrderMapper {
         return orders.stream().map(this::toDto).collect(Collectors.toList());
     }
     
+    /**
+     * Convert Order entity to OrderSummaryDto using pre-loaded items; never touches the lazy collections
+     */
+    public OrderSummaryDto toSummaryDto(Order order, List<OrderItem> items) {
+        if (order == null) {
+            return null;
+        }
+        
+        return OrderSummaryDto.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userId(order.getUserId())
+                .userName(order.getUserName())
+                .userEmail(order.getUserEmail())
+                .orderStatus(orderStatusToString(order.getOrderStatus()))
+                .paymentStatus(paymentStatusToString(order.getPaymentStatus()))
+                .paymentMethod(order.getPayment() != null ? paymentMethodToString(order.getPayment().getPaymentMethod()) : null)
+                .totalAmount(order.getTotalAmount())
+                .totalItems(order.getTotalItems())
+                .totalQuantity(order.getTotalQuantity())
+                .trackingNumber(order.getTrackingNumber())
+                .estimatedDelivery(order.getEstimatedDelivery())
+                .actualDelivery(order.getActualDelivery())
+                .createdAt(order.getCreatedAt())
+                .items(items != null ? items.stream().map(this::toOrderSummaryItemDto).collect(Collectors.toList()) : List.of())
+                .build();
+    }
+    
+    /**
+     * Convert OrderItem to OrderSummaryItemDto
+     */
+    public OrderSummaryDto.OrderSummaryItemDto toOrderSummaryItemDto(OrderItem orderItem) {
+        return OrderSummaryDto.OrderSummaryItemDto.builder()
+                .productId(orderItem.getProductId())
+                .productName(orderItem.getProductName())
+                .productImage(orderItem.getProductImage())
+                .productUnit(orderItem.getProductUnit())
+                .quantity(orderItem.getQuantity())
+                .totalPrice(orderItem.getTotalPrice())
+                .build();
+    }
+    
     /**
      * Convert OrderItem to OrderItemDto
      */
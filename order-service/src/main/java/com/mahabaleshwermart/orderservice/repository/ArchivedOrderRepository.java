@@ -0,0 +1,19 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for ArchivedOrder entity operations
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, String> {
+
+    /**
+     * Find an archived order by order number
+     */
+    Optional<ArchivedOrder> findByOrderNumber(String orderNumber);
+}
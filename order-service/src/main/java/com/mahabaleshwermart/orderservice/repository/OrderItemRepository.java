@@ -0,0 +1,23 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for OrderItem entity operations
+ */
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, String> {
+
+    /**
+     * Load the items of a page of orders in a single query
+     */
+    @Query("SELECT i FROM OrderItem i WHERE i.order.id IN :orderIds ORDER BY i.createdAt")
+    List<OrderItem> findByOrderIds(@Param("orderIds") Collection<String> orderIds);
+}
@@ -0,0 +1,102 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.dto.OrderSummaryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Prefix lookup of orders by order, tracking or invoice number, or customer email.
+ * Each identifier has its own index and a {@code LIKE 'prefix%'} condition is a range read on it, so every
+ * branch of the union touches only the matching index entries. Each branch keeps only the newest rows the
+ * requested page can need, so a short prefix matching many orders never makes the union collect, deduplicate
+ * and sort all of them. Rows are projected straight into summaries; no order entity, item or timeline is loaded.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderLookupRepository {
+
+    private static final String[] LOOKUP_COLUMNS = {"order_number", "tracking_number", "invoice_number", "user_email"};
+
+    private static final String SUMMARY_COLUMNS =
+            "id, order_number, user_id, user_name, user_email, order_status, payment_status, payment_method, total_amount, " +
+            "total_items, total_quantity, tracking_number, estimated_delivery, actual_delivery, created_at";
+
+    private static final String NEWEST_FIRST = " ORDER BY created_at DESC, id";
+
+    private static final String SEARCH = union(SUMMARY_COLUMNS, true) + NEWEST_FIRST + " LIMIT ? OFFSET ?";
+
+    private static final String COUNT = "SELECT COUNT(*) FROM (" + union("id", false) + ") matches";
+
+    private static final RowMapper<OrderSummaryDto> SUMMARY_MAPPER = (rs, rowNum) -> OrderSummaryDto.builder()
+            .id(rs.getString("id"))
+            .orderNumber(rs.getString("order_number"))
+            .userId(rs.getString("user_id"))
+            .userName(rs.getString("user_name"))
+            .userEmail(rs.getString("user_email"))
+            .orderStatus(rs.getString("order_status"))
+            .paymentStatus(rs.getString("payment_status"))
+            .paymentMethod(rs.getString("payment_method"))
+            .totalAmount(rs.getBigDecimal("total_amount"))
+            .totalItems(rs.getInt("total_items"))
+            .totalQuantity(rs.getInt("total_quantity"))
+            .trackingNumber(rs.getString("tracking_number"))
+            .estimatedDelivery(toLocalDateTime(rs.getTimestamp("estimated_delivery")))
+            .actualDelivery(toLocalDateTime(rs.getTimestamp("actual_delivery")))
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Orders with an identifier or email starting with {@code prefix}, newest first
+     */
+    public List<OrderSummaryDto> findByPrefix(String prefix, int offset, int limit) {
+        String pattern = likePrefix(prefix);
+        // A row of the page is among the first offset + limit rows of every branch it matches
+        int head = offset + limit;
+        return jdbcTemplate.query(SEARCH, SUMMARY_MAPPER,
+                pattern, head, pattern, head, pattern, head, pattern, head, limit, offset);
+    }
+
+    /**
+     * Number of orders {@link #findByPrefix} can return for {@code prefix}
+     */
+    public long countByPrefix(String prefix) {
+        String pattern = likePrefix(prefix);
+        Long count = jdbcTemplate.queryForObject(COUNT, Long.class, pattern, pattern, pattern, pattern);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * One branch per lookup column; with {@code limited}, each branch is ordered newest first and takes a
+     * row limit parameter after its pattern
+     */
+    private static String union(String columns, boolean limited) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : LOOKUP_COLUMNS) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ");
+            }
+            String branch = "SELECT " + columns + " FROM orders WHERE " + column + " LIKE ?";
+            sql.append(limited ? "(" + branch + NEWEST_FIRST + " LIMIT ?)" : branch);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Escape LIKE wildcards so the term only ever matches as a literal prefix
+     */
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
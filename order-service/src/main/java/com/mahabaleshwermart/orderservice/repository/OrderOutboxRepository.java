@@ -0,0 +1,82 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.OrderOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for OrderOutbox entity operations
+ */
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+
+    /**
+     * Lock the oldest unpublished events that still have attempts left and are not claimed, skipping keys
+     * with an earlier event that is parked or claimed by another relay. A concurrent claim waits on these
+     * row locks until this claim commits.
+     */
+    @Query(value = "SELECT * FROM order_outbox o WHERE o.published_at IS NULL AND o.attempts < :maxAttempts " +
+            "AND (o.claimed_until IS NULL OR o.claimed_until < :now) " +
+            "AND NOT EXISTS (SELECT 1 FROM order_outbox p WHERE p.message_key = o.message_key AND p.id < o.id " +
+            "AND p.published_at IS NULL AND (p.attempts >= :maxAttempts OR p.claimed_until >= :now)) " +
+            "ORDER BY o.id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<OrderOutbox> lockClaimableBatch(@Param("maxAttempts") int maxAttempts,
+                                         @Param("now") LocalDateTime now,
+                                         @Param("limit") int limit);
+
+    /**
+     * Unpublished events of {@code keys} before {@code beforeId} that are parked or claimed. Read with locks,
+     * so claims committed while {@link #lockClaimableBatch} waited are seen.
+     */
+    @Query(value = "SELECT id AS id, message_key AS messageKey FROM order_outbox " +
+            "WHERE message_key IN (:keys) AND id < :beforeId AND published_at IS NULL " +
+            "AND (attempts >= :maxAttempts OR claimed_until >= :now) FOR UPDATE", nativeQuery = true)
+    List<BlockingEvent> lockBlockingEvents(@Param("keys") Collection<String> keys,
+                                           @Param("beforeId") long beforeId,
+                                           @Param("maxAttempts") int maxAttempts,
+                                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OrderOutbox o SET o.publishedAt = :publishedAt, o.lastError = NULL, " +
+           "o.claimedBy = NULL, o.claimedUntil = NULL WHERE o.id IN :ids AND o.claimedBy = :claimedBy")
+    int markPublished(@Param("ids") Collection<Long> ids,
+                      @Param("claimedBy") String claimedBy,
+                      @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("UPDATE OrderOutbox o SET o.attempts = o.attempts + 1, o.lastError = :lastError, " +
+           "o.claimedBy = NULL, o.claimedUntil = NULL WHERE o.id = :id AND o.claimedBy = :claimedBy")
+    int markFailed(@Param("id") Long id, @Param("claimedBy") String claimedBy, @Param("lastError") String lastError);
+
+    /**
+     * Give back claims on events that were not sent, or whose outcome is unknown
+     */
+    @Modifying
+    @Query("UPDATE OrderOutbox o SET o.claimedBy = NULL, o.claimedUntil = NULL " +
+           "WHERE o.id IN :ids AND o.claimedBy = :claimedBy")
+    int releaseClaims(@Param("ids") Collection<Long> ids, @Param("claimedBy") String claimedBy);
+
+    /**
+     * Count unpublished events
+     */
+    long countByPublishedAtIsNull();
+
+    /**
+     * Creation time of the oldest unpublished event
+     */
+    @Query("SELECT MIN(o.createdAt) FROM OrderOutbox o WHERE o.publishedAt IS NULL")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    interface BlockingEvent {
+        Long getId();
+
+        String getMessageKey();
+    }
+}
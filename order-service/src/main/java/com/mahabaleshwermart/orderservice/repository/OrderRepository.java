@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,24 @@ public interface OrderRepository extends JpaRepository<Order, String> {
      */
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    /**
+     * Current status of an order, without loading it
+     */
+    @Query("SELECT o.orderStatus FROM Order o WHERE o.id = :id")
+    Optional<Order.OrderStatus> findStatusById(@Param("id") String id);
+    
+    /**
+     * Current status of an order by order number, without loading it
+     */
+    @Query("SELECT o.orderStatus FROM Order o WHERE o.orderNumber = :orderNumber")
+    Optional<Order.OrderStatus> findStatusByOrderNumber(@Param("orderNumber") String orderNumber);
+    
+    /**
+     * Current status of several orders, without loading them
+     */
+    @Query("SELECT o.id AS id, o.orderStatus AS orderStatus FROM Order o WHERE o.id IN :ids")
+    List<OrderStatusView> findStatusesByIdIn(@Param("ids") Collection<String> ids);
+    
     /**
      * Find orders by user ID
      */
@@ -80,41 +99,37 @@ public interface OrderRepository extends JpaRepository<Order, String> {
     BigDecimal getTotalOrderValueByUser(@Param("userId") String userId, @Param("excludeStatus") Order.OrderStatus excludeStatus);
     
     /**
-     * Find orders requiring action (pending confirmation, processing, etc.)
+     * Ids of orders in a closed status that have not changed since {@code closedBefore}, oldest first
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.orderStatus IN :statuses AND o.updatedAt < :closedBefore " +
+           "AND COALESCE(o.actualDelivery, o.cancelledAt, o.updatedAt) < :closedBefore ORDER BY o.updatedAt, o.id")
+    List<String> findClosedOrderIds(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                    @Param("closedBefore") LocalDateTime closedBefore,
+                                    Pageable pageable);
+    
+    /**
+     * Find orders requiring action (pending confirmation, processing, etc.).
+     * Loads the whole set; background sweeps use {@link OrderWorkItemRepository}.
      */
     @Query("SELECT o FROM Order o WHERE o.orderStatus IN ('PENDING', 'CONFIRMED', 'PROCESSING') ORDER BY o.createdAt ASC")
     List<Order> findOrdersRequiringAction();
     
     /**
-     * Find orders for delivery today
+     * Find orders for delivery in [{@code dayStart}, {@code nextDayStart}); a range on the column rather
+     * than a date function keeps the estimated delivery index usable
      */
-    @Query("SELECT o FROM Order o WHERE DATE(o.estimatedDelivery) = CURRENT_DATE AND o.orderStatus IN ('SHIPPED', 'OUT_FOR_DELIVERY')")
-    List<Order> findOrdersForDeliveryToday();
+    @Query("SELECT o FROM Order o WHERE o.estimatedDelivery >= :dayStart AND o.estimatedDelivery < :nextDayStart " +
+           "AND o.orderStatus IN ('SHIPPED', 'OUT_FOR_DELIVERY')")
+    List<Order> findOrdersForDeliveryToday(@Param("dayStart") LocalDateTime dayStart,
+                                           @Param("nextDayStart") LocalDateTime nextDayStart);
     
     /**
-     * Find overdue orders (past estimated delivery)
+     * Find overdue orders (past estimated delivery).
+     * Loads the whole set; background sweeps use {@link OrderWorkItemRepository}.
      */
     @Query("SELECT o FROM Order o WHERE o.estimatedDelivery < :currentTime AND o.orderStatus NOT IN ('DELIVERED', 'CANCELLED', 'RETURNED')")
     List<Order> findOverdueOrders(@Param("currentTime") LocalDateTime currentTime);
     
-    /**
-     * Get orders summary by date range
-     */
-    @Query("SELECT DATE(o.createdAt) as orderDate, COUNT(o) as orderCount, SUM(o.totalAmount) as totalAmount " +
-           "FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate " +
-           "GROUP BY DATE(o.createdAt) ORDER BY DATE(o.createdAt)")
-    List<Object[]> getOrdersSummaryByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                              @Param("endDate") LocalDateTime endDate);
-    
-    /**
-     * Get orders summary by status
-     */
-    @Query("SELECT o.orderStatus, COUNT(o) as orderCount, SUM(o.totalAmount) as totalAmount " +
-           "FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate " +
-           "GROUP BY o.orderStatus")
-    List<Object[]> getOrdersSummaryByStatus(@Param("startDate") LocalDateTime startDate, 
-                                           @Param("endDate") LocalDateTime endDate);
-    
     /**
      * Find orders with specific items (by product ID)
      */
@@ -137,27 +152,14 @@ public interface OrderRepository extends JpaRepository<Order, String> {
      */
     Optional<Order> findByInvoiceNumber(String invoiceNumber);
     
-    /**
-     * Get monthly order statistics
-     */
-    @Query("SELECT YEAR(o.createdAt) as year, MONTH(o.createdAt) as month, " +
-           "COUNT(o) as orderCount, SUM(o.totalAmount) as totalAmount, AVG(o.totalAmount) as averageAmount " +
-           "FROM Order o WHERE o.createdAt >= :fromDate " +
-           "GROUP BY YEAR(o.createdAt), MONTH(o.createdAt) " +
-           "ORDER BY YEAR(o.createdAt) DESC, MONTH(o.createdAt) DESC")
-    List<Object[]> getMonthlyOrderStatistics(@Param("fromDate") LocalDateTime fromDate);
-    
     /**
      * Find orders needing refund processing
      */
     @Query("SELECT o FROM Order o WHERE o.orderStatus = 'CANCELLED' AND o.paymentStatus = 'COMPLETED' AND o.refundAmount IS NULL")
     List<Order> findOrdersNeedingRefund();
     
-    /**
-     * Search orders by order number or user email
-     */
-    @Query("SELECT o FROM Order o WHERE LOWER(o.orderNumber) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(o.userEmail) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "ORDER BY o.createdAt DESC")
-    Page<Order> searchOrders(@Param("search") String search, Pageable pageable);
-} 
\ No newline at end of file
+    interface OrderStatusView {
+        String getId();
+        Order.OrderStatus getOrderStatus();
+    }
+}
@@ -0,0 +1,19 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.OrderSaga;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for OrderSaga entity operations
+ */
+@Repository
+public interface OrderSagaRepository extends JpaRepository<OrderSaga, String> {
+
+    /**
+     * Find the checkout saga of an order
+     */
+    Optional<OrderSaga> findByOrderId(String orderId);
+}
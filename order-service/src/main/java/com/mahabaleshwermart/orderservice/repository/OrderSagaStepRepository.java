@@ -0,0 +1,46 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.OrderSagaStep;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for OrderSagaStep entity operations
+ */
+@Repository
+public interface OrderSagaStepRepository extends JpaRepository<OrderSagaStep, String> {
+
+    /**
+     * All steps of a saga in the order they were sent
+     */
+    List<OrderSagaStep> findBySagaIdOrderBySentAtAsc(String sagaId);
+
+    /**
+     * Move a step out of SENT. Only one reply (or timeout) can win, so duplicates and
+     * late replies update nothing and are dropped by the caller.
+     *
+     * @return 1 when this caller completed the step, 0 when it was already completed
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE OrderSagaStep s SET s.status = :status, s.message = :message, s.completedAt = :completedAt " +
+           "WHERE s.id = :id AND s.status = com.mahabaleshwermart.orderservice.entity.OrderSagaStep$Status.SENT")
+    int complete(@Param("id") String id,
+                 @Param("status") OrderSagaStep.Status status,
+                 @Param("message") String message,
+                 @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Steps still waiting for a reply that were sent before {@code cutoff}
+     */
+    @Query("SELECT s FROM OrderSagaStep s " +
+           "WHERE s.status = com.mahabaleshwermart.orderservice.entity.OrderSagaStep$Status.SENT AND s.sentAt < :cutoff " +
+           "ORDER BY s.sentAt")
+    List<OrderSagaStep> findOverdue(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
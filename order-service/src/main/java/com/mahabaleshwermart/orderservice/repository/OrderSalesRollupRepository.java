@@ -0,0 +1,69 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.OrderSalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for daily sales rollups
+ */
+@Repository
+public interface OrderSalesRollupRepository extends JpaRepository<OrderSalesRollup, OrderSalesRollup.RollupId> {
+
+    /**
+     * Apply deltas to a rollup bucket, creating it on first use
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_sales_rollups (bucket_date, dimension, dimension_value, orders, quantity, amount) " +
+            "VALUES (:bucketDate, :dimension, :dimensionValue, :orders, :quantity, :amount) " +
+            "ON DUPLICATE KEY UPDATE orders = orders + VALUES(orders), " +
+            "quantity = quantity + VALUES(quantity), " +
+            "amount = amount + VALUES(amount)", nativeQuery = true)
+    int increment(@Param("bucketDate") LocalDate bucketDate,
+                  @Param("dimension") String dimension,
+                  @Param("dimensionValue") String dimensionValue,
+                  @Param("orders") long orders,
+                  @Param("quantity") long quantity,
+                  @Param("amount") BigDecimal amount);
+
+    /**
+     * Totals per dimension value over a date range
+     */
+    @Query("SELECT r.id.dimensionValue AS dimensionValue, SUM(r.orders) AS orders, SUM(r.quantity) AS quantity, SUM(r.amount) AS amount " +
+            "FROM OrderSalesRollup r WHERE r.id.dimension = :dimension AND r.id.bucketDate BETWEEN :from AND :to " +
+            "GROUP BY r.id.dimensionValue ORDER BY SUM(r.amount) DESC")
+    List<RollupTotals> sumByValue(@Param("dimension") OrderSalesRollup.Dimension dimension,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+
+    /**
+     * Totals per day of one dimension over a date range
+     */
+    @Query("SELECT r.id.bucketDate AS bucketDate, SUM(r.orders) AS orders, SUM(r.quantity) AS quantity, SUM(r.amount) AS amount " +
+            "FROM OrderSalesRollup r WHERE r.id.dimension = :dimension AND r.id.bucketDate BETWEEN :from AND :to " +
+            "GROUP BY r.id.bucketDate ORDER BY r.id.bucketDate")
+    List<DailyTotals> sumByDay(@Param("dimension") OrderSalesRollup.Dimension dimension,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+
+    interface RollupTotals {
+        String getDimensionValue();
+        long getOrders();
+        long getQuantity();
+        BigDecimal getAmount();
+    }
+
+    interface DailyTotals {
+        LocalDate getBucketDate();
+        long getOrders();
+        long getQuantity();
+        BigDecimal getAmount();
+    }
+}
@@ -0,0 +1,132 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderTimeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compare-and-set order status transitions.
+ * Each update only applies while the order is still in the expected status, so concurrent writers
+ * never overwrite each other and no row lock is held across the read. Timeline rows for the applied
+ * transitions are appended as one JDBC batch in the same transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderStatusTransitionRepository {
+
+    private static final String UPDATE_STATUS =
+            "UPDATE orders SET order_status = ?, updated_at = ?, " +
+            "tracking_number = COALESCE(tracking_number, ?), " +
+            "actual_delivery = COALESCE(?, actual_delivery) " +
+            "WHERE id = ? AND order_status = ?";
+
+    private static final String INSERT_TIMELINE =
+            "INSERT INTO order_timeline (id, order_id, event_type, title, description, order_status, " +
+            "tracking_details, performed_by, performed_by_name, is_customer_visible, is_critical, " +
+            "notification_sent, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A requested transition; {@code trackingNumber} and {@code actualDelivery} are only written when the
+     * order does not already have them
+     */
+    public record Transition(String orderId,
+                             Order.OrderStatus from,
+                             Order.OrderStatus to,
+                             String trackingNumber,
+                             LocalDateTime actualDelivery) {
+    }
+
+    /**
+     * Apply the transitions as one batch.
+     *
+     * @return for each transition whether it was applied (false when the order had left the expected status)
+     */
+    public boolean[] compareAndSet(List<Transition> transitions) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS, transitions, transitions.size(), (ps, t) -> {
+            ps.setString(1, t.to().name());
+            ps.setTimestamp(2, now);
+            ps.setString(3, t.trackingNumber());
+            ps.setTimestamp(4, t.actualDelivery() != null ? Timestamp.valueOf(t.actualDelivery()) : null);
+            ps.setString(5, t.orderId());
+            ps.setString(6, t.from().name());
+        });
+
+        boolean[] applied = new boolean[transitions.size()];
+        List<Integer> unknown = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown.add(i);
+                }
+                applied[i++] = count > 0;
+            }
+        }
+        if (!unknown.isEmpty()) {
+            // Rewritten batches may not report row counts; check the rows we wrote instead
+            Map<String, String> statuses = currentStatuses(unknown.stream().map(k -> transitions.get(k).orderId()).toList());
+            for (int k : unknown) {
+                applied[k] = transitions.get(k).to().name().equals(statuses.get(transitions.get(k).orderId()));
+            }
+        }
+        return applied;
+    }
+
+    private Map<String, String> currentStatuses(List<String> orderIds) {
+        String placeholders = String.join(",", Collections.nCopies(orderIds.size(), "?"));
+        Map<String, String> statuses = new HashMap<>();
+        jdbcTemplate.query("SELECT id, order_status FROM orders WHERE id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> statuses.put(rs.getString(1), rs.getString(2)), orderIds.toArray());
+        return statuses;
+    }
+
+    /**
+     * Append timeline events; the events' {@code order} association is ignored in favour of {@code orderIds}
+     */
+    public void appendTimeline(List<String> orderIds, List<OrderTimeline> events) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_TIMELINE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderTimeline event = events.get(i);
+                ps.setString(1, UUID.randomUUID().toString());
+                ps.setString(2, orderIds.get(i));
+                ps.setString(3, event.getEventType().name());
+                ps.setString(4, event.getTitle());
+                ps.setString(5, event.getDescription());
+                ps.setString(6, event.getOrderStatus() != null ? event.getOrderStatus().name() : null);
+                ps.setString(7, event.getTrackingDetails());
+                ps.setString(8, event.getPerformedBy());
+                ps.setString(9, event.getPerformedByName());
+                ps.setBoolean(10, event.isCustomerVisible());
+                ps.setBoolean(11, event.isCritical());
+                ps.setBoolean(12, event.isNotificationSent());
+                ps.setTimestamp(13, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return events.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.OrderTimeline;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for OrderTimeline entity operations
+ */
+@Repository
+public interface OrderTimelineRepository extends JpaRepository<OrderTimeline, String> {
+
+    /**
+     * A page of an order's timeline, oldest event first
+     */
+    @Query(value = "SELECT t FROM OrderTimeline t WHERE t.order.id = :orderId ORDER BY t.createdAt, t.id",
+           countQuery = "SELECT COUNT(t) FROM OrderTimeline t WHERE t.order.id = :orderId")
+    Page<OrderTimeline> findByOrderId(@Param("orderId") String orderId, Pageable pageable);
+}
@@ -0,0 +1,116 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset-paged scans over orders of one status for background workers.
+ * Each chunk starts right after the last row of the previous one on ({@code sort column}, id), so every
+ * chunk is an index range read on (order_status, sort column) no matter how far the scan has got, and
+ * only the columns the workers need are read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderWorkItemRepository {
+
+    private static final String SELECT =
+            "SELECT id, order_number, order_status, user_name, user_email, user_phone, tracking_number, " +
+            "created_at, estimated_delivery FROM orders WHERE order_status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Column a scan is ordered by; range bounds apply to it too
+     */
+    public enum SortColumn {
+        CREATED_AT("created_at"),
+        ESTIMATED_DELIVERY("estimated_delivery");
+
+        private final String column;
+
+        SortColumn(String column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * The order fields background workers act on
+     */
+    public record WorkItem(String id,
+                           String orderNumber,
+                           Order.OrderStatus orderStatus,
+                           String userName,
+                           String userEmail,
+                           String userPhone,
+                           String trackingNumber,
+                           LocalDateTime createdAt,
+                           LocalDateTime estimatedDelivery) {
+
+        public Cursor cursor(SortColumn sort) {
+            return new Cursor(sort == SortColumn.CREATED_AT ? createdAt : estimatedDelivery, id);
+        }
+    }
+
+    /**
+     * Position after which the next chunk starts
+     */
+    public record Cursor(LocalDateTime sortValue, String id) {
+    }
+
+    /**
+     * Next chunk of orders in {@code status} whose sort column lies in [{@code from}, {@code to})
+     *
+     * @param from  inclusive lower bound, or {@code null}
+     * @param to    exclusive upper bound, or {@code null}
+     * @param after cursor of the last row already processed, or {@code null} to start from the beginning
+     */
+    public List<WorkItem> nextChunk(Order.OrderStatus status, SortColumn sort, LocalDateTime from, LocalDateTime to,
+                                    Cursor after, int limit) {
+        String column = sort.column;
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>();
+        args.add(status.name());
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (from == null && to == null) {
+            sql.append(" AND ").append(column).append(" IS NOT NULL");
+        }
+        if (after != null) {
+            sql.append(" AND (").append(column).append(" > ? OR (").append(column).append(" = ? AND id > ?))");
+            Timestamp sortValue = Timestamp.valueOf(after.sortValue());
+            args.add(sortValue);
+            args.add(sortValue);
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY ").append(column).append(", id LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new WorkItem(
+                rs.getString("id"),
+                rs.getString("order_number"),
+                Order.OrderStatus.valueOf(rs.getString("order_status")),
+                rs.getString("user_name"),
+                rs.getString("user_email"),
+                rs.getString("user_phone"),
+                rs.getString("tracking_number"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("estimated_delivery"))), args.toArray());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.orderservice.entity.UserOrderStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for the user order statistics read model
+ */
+@Repository
+public interface UserOrderStatsRepository extends JpaRepository<UserOrderStats, String> {
+
+    /**
+     * Apply deltas to a user's lifetime totals, creating the row on first use
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_order_stats (user_id, total_orders, cancelled_orders, total_spent, last_order_at, updated_at) " +
+            "VALUES (:userId, :orders, :cancelled, :spent, :lastOrderAt, :now) " +
+            "ON DUPLICATE KEY UPDATE total_orders = total_orders + VALUES(total_orders), " +
+            "cancelled_orders = cancelled_orders + VALUES(cancelled_orders), " +
+            "total_spent = total_spent + VALUES(total_spent), " +
+            "last_order_at = COALESCE(GREATEST(last_order_at, VALUES(last_order_at)), last_order_at, VALUES(last_order_at)), " +
+            "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int increment(@Param("userId") String userId,
+                  @Param("orders") long orders,
+                  @Param("cancelled") long cancelled,
+                  @Param("spent") BigDecimal spent,
+                  @Param("lastOrderAt") LocalDateTime lastOrderAt,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Apply deltas to a user's daily bucket, creating it on first use
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_order_stats_buckets (user_id, bucket_date, orders, cancelled_orders, spent) " +
+            "VALUES (:userId, :bucketDate, :orders, :cancelled, :spent) " +
+            "ON DUPLICATE KEY UPDATE orders = orders + VALUES(orders), " +
+            "cancelled_orders = cancelled_orders + VALUES(cancelled_orders), " +
+            "spent = spent + VALUES(spent)", nativeQuery = true)
+    int incrementBucket(@Param("userId") String userId,
+                        @Param("bucketDate") LocalDate bucketDate,
+                        @Param("orders") long orders,
+                        @Param("cancelled") long cancelled,
+                        @Param("spent") BigDecimal spent);
+
+    /**
+     * Sum a user's buckets from the given day onwards (a primary key range scan)
+     */
+    @Query("SELECT COALESCE(SUM(b.orders), 0) AS orders, COALESCE(SUM(b.cancelledOrders), 0) AS cancelledOrders, " +
+            "COALESCE(SUM(b.spent), 0) AS spent " +
+            "FROM UserOrderStatsBucket b WHERE b.id.userId = :userId AND b.id.bucketDate >= :fromDate")
+    WindowTotals sumBucketsSince(@Param("userId") String userId, @Param("fromDate") LocalDate fromDate);
+
+    interface WindowTotals {
+        long getOrders();
+        long getCancelledOrders();
+        BigDecimal getSpent();
+    }
+}
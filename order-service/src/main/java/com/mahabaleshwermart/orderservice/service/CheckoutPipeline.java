@@ -0,0 +1,151 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.logging.ForwardedHeaders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Checkout Pipeline
+ * Runs independent downstream calls of the checkout path concurrently on virtual threads.
+ * Every stage is timed under {@code checkout.stage}; a forked call that fails or misses its deadline
+ * resolves to {@code null} so the caller decides how to degrade.
+ * Tasks never see the servlet request: the headers downstream calls forward and the MDC are copied on the
+ * calling thread and bound inside each task.
+ */
+@Slf4j
+@Component
+public class CheckoutPipeline {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final MeterRegistry meterRegistry;
+    private final Duration lookupTimeout;
+
+    public CheckoutPipeline(MeterRegistry meterRegistry,
+                            @Value("${app.checkout.lookup-timeout-ms:3000}") long lookupTimeoutMillis) {
+        this.meterRegistry = meterRegistry;
+        this.lookupTimeout = Duration.ofMillis(lookupTimeoutMillis);
+    }
+
+    /**
+     * Start a lookup that belongs to the current request. Forwarded headers and MDC are copied so Feign
+     * interceptors see the same headers and correlation id as on the request thread.
+     */
+    public <T> CompletableFuture<T> fork(String stage, Supplier<T> call) {
+        Map<String, String> headers = ForwardedHeaders.capture();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    bind(headers, mdc);
+                    try {
+                        return time(stage, call);
+                    } finally {
+                        unbind();
+                    }
+                }, executor)
+                .orTimeout(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        log.warn("Checkout stage {} missed its {} ms deadline", stage, lookupTimeout.toMillis());
+                    } else {
+                        log.warn("Checkout stage {} failed: {}", stage, cause.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Run a stage synchronously on the calling thread, recording it under the same timer
+     */
+    public <T> T time(String stage, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("checkout.stage", "stage", stage, "outcome", outcome));
+        }
+    }
+
+    /**
+     * Fire-and-forget a side effect once the current transaction commits (immediately when none is active).
+     * It does not hold up the response and is skipped when the transaction rolls back.
+     */
+    public void afterCommit(String stage, Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runAsync(stage, task);
+            return;
+        }
+        Map<String, String> headers = ForwardedHeaders.capture();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(stage, headers, mdc, task);
+            }
+        });
+    }
+
+    /**
+     * Fire-and-forget a side effect right away, regardless of the current transaction
+     */
+    public void runAsync(String stage, Runnable task) {
+        submit(stage, ForwardedHeaders.capture(), MDC.getCopyOfContextMap(), task);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Checkout pipeline still had running stages at shutdown");
+        }
+    }
+
+    private void submit(String stage, Map<String, String> headers, Map<String, String> mdc, Runnable task) {
+        executor.execute(() -> {
+            bind(headers, mdc);
+            try {
+                time(stage, () -> {
+                    task.run();
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("Checkout stage {} failed: {}", stage, e.getMessage());
+            } finally {
+                unbind();
+            }
+        });
+    }
+
+    private static void bind(Map<String, String> headers, Map<String, String> mdc) {
+        ForwardedHeaders.bind(headers);
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        }
+    }
+
+    private static void unbind() {
+        ForwardedHeaders.clear();
+        MDC.clear();
+    }
+}
@@ -0,0 +1,229 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.common.exception.ConflictException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service
+ * Runs a non-idempotent operation at most once per client supplied {@code Idempotency-Key}.
+ * The first request claims the key in Redis and stores its result for the TTL; replays get the stored result,
+ * and duplicates arriving while the first is still running wait for it instead of running again.
+ * The claim is renewed while the operation runs, so a slow operation never loses it; it only expires when
+ * the instance running it dies. Failed operations release the key so the client can retry.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "idempotency:";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration resultTtl;
+    private final Duration inFlightTtl;
+    private final long waitTimeoutMillis;
+    private final long pollIntervalMillis;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-claim-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotencyService(StringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.in-flight-ttl-seconds:60}") long inFlightTtlSeconds,
+                              @Value("${app.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis,
+                              @Value("${app.idempotency.poll-interval-ms:100}") long pollIntervalMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.resultTtl = Duration.ofHours(ttlHours);
+        this.inFlightTtl = Duration.ofSeconds(inFlightTtlSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Run {@code action} once per {@code scope} and key. Without a key the action simply runs.
+     *
+     * @param scope   namespace of the key, e.g. the operation and its owner, so keys of different users never meet
+     * @param key     the client supplied idempotency key (may be {@code null})
+     * @param request the request payload; reusing a key with a different payload is rejected
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> resultType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String redisKey = KEY_PREFIX + scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        Entry completed = awaitClaim(redisKey, fingerprint);
+        if (completed != null) {
+            return storedResult(redisKey, completed, resultType);
+        }
+        return runAndStore(redisKey, fingerprint, action);
+    }
+
+    /**
+     * Claim the key, waiting while another request holds it.
+     *
+     * @return the completed entry stored for the key, or {@code null} when this request claimed it
+     *         (or Redis is down and it has to run without deduplication)
+     */
+    private Entry awaitClaim(String redisKey, String fingerprint) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        try {
+            while (true) {
+                Boolean claimed = redisTemplate.opsForValue()
+                        .setIfAbsent(redisKey, write(new Entry(State.IN_PROGRESS, fingerprint, null)), inFlightTtl);
+                if (Boolean.TRUE.equals(claimed)) {
+                    return null;
+                }
+
+                Entry entry = read(redisKey);
+                if (entry != null) {
+                    if (!fingerprint.equals(entry.fingerprint())) {
+                        throw new BusinessException(HEADER + " was already used for a different request");
+                    }
+                    if (entry.state() == State.COMPLETED) {
+                        return entry;
+                    }
+                }
+                // entry == null means the first attempt failed and released the key; the next loop claims it
+
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new ConflictException("A request with this " + HEADER + " is still being processed");
+                }
+                Thread.sleep(pollIntervalMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for a request with the same " + HEADER);
+        } catch (DataAccessException e) {
+            // Fail open: without Redis we cannot deduplicate, but refusing orders would be worse
+            log.warn("Idempotency store unavailable, running {} without deduplication: {}", redisKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> T storedResult(String redisKey, Entry entry, Class<T> resultType) {
+        log.info("Replaying stored result for idempotent request {}", redisKey);
+        try {
+            return objectMapper.readerFor(resultType)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(entry.result());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read stored idempotent result for " + redisKey, e);
+        }
+    }
+
+    /**
+     * Run the claimed action exactly once. Redis errors after this point are only logged: the action has
+     * taken effect, and running it again would be the duplicate the key exists to prevent.
+     */
+    private <T> T runAndStore(String redisKey, String fingerprint, Supplier<T> action) {
+        long renewMillis = Math.max(inFlightTtl.toMillis() / 3, 1);
+        ScheduledFuture<?> renewal = renewer.scheduleAtFixedRate(() -> renew(redisKey),
+                renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            renewal.cancel(false);
+            release(redisKey);
+            throw e;
+        }
+        renewal.cancel(false);
+        try {
+            redisTemplate.opsForValue().set(redisKey,
+                    write(new Entry(State.COMPLETED, fingerprint, objectMapper.writeValueAsString(result))), resultTtl);
+        } catch (JsonProcessingException | DataAccessException e) {
+            // Duplicates wait for the claim to expire and then run again; nothing more can be done here
+            log.error("Unable to store the result of idempotent request {}: {}", redisKey, e.getMessage());
+        }
+        return result;
+    }
+
+    private void renew(String redisKey) {
+        try {
+            redisTemplate.expire(redisKey, inFlightTtl);
+        } catch (DataAccessException e) {
+            log.warn("Unable to renew idempotency claim {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private void release(String redisKey) {
+        try {
+            redisTemplate.delete(redisKey);
+        } catch (DataAccessException e) {
+            log.warn("Unable to release idempotency claim {}; it expires in {}: {}", redisKey, inFlightTtl, e.getMessage());
+        }
+    }
+
+    private Entry read(String redisKey) {
+        String raw = redisTemplate.opsForValue().get(redisKey);
+        if (raw == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(raw, Entry.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read stored idempotent result for " + redisKey, e);
+        }
+    }
+
+    private String write(Entry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write idempotency entry", e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to fingerprint idempotent request", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    enum State {
+        IN_PROGRESS,
+        COMPLETED
+    }
+
+    record Entry(State state, String fingerprint, String result) {
+    }
+}
@@ -2,9 +2,9 @@ package com.mahabaleshwermart.orderservice.service;
 
 import com.mahabaleshwermart.common.events.OrderNotificationEvent;
 import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.WorkItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -12,14 +12,16 @@ import java.time.LocalDateTime;
 
 /**
  * Notification Service
- * Handles sending notifications for order events via Kafka
+ * Handles sending notifications for order events via Kafka.
+ * Events are written to the order outbox in the caller's transaction and published by {@link OrderOutboxRelay};
+ * a failed write fails the caller, so the order change and its event commit or roll back together.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OrderOutboxWriter outboxWriter;
     
     // Kafka Topic Names
     private static final String ORDER_CONFIRMED_TOPIC = "order-confirmed";
@@ -34,24 +36,19 @@ public class NotificationService {
     public void sendOrderConfirmation(Order order) {
         log.info("Sending order confirmation notification for order: {}", order.getOrderNumber());
         
-        try {
-            OrderNotificationEvent event = OrderNotificationEvent.builder()
-                    .eventType("ORDER_CONFIRMED")
-                    .orderId(order.getId())
-                    .orderNumber(order.getOrderNumber())
-                    .userEmail(order.getUserEmail())
-                    .userName(order.getUserName())
-                    .userPhone(order.getUserPhone())
-                    .totalAmount(order.getTotalAmount())
-                    .message("Your order has been confirmed successfully!")
-                    .build();
-            
-            kafkaTemplate.send(ORDER_CONFIRMED_TOPIC, order.getOrderNumber(), event);
-            log.info("Order confirmation notification sent successfully to Kafka topic: {}", ORDER_CONFIRMED_TOPIC);
-            
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation notification for order: {}", order.getOrderNumber(), e);
-        }
+        OrderNotificationEvent event = OrderNotificationEvent.builder()
+                .eventType("ORDER_CONFIRMED")
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userEmail(order.getUserEmail())
+                .userName(order.getUserName())
+                .userPhone(order.getUserPhone())
+                .totalAmount(order.getTotalAmount())
+                .message("Your order has been confirmed successfully!")
+                .build();
+        
+        outboxWriter.enqueue(ORDER_CONFIRMED_TOPIC, order.getOrderNumber(), event);
+        log.info("Order confirmation notification queued for Kafka topic: {}", ORDER_CONFIRMED_TOPIC);
     }
     
     /**
@@ -61,26 +58,21 @@ public class NotificationService {
         log.info("Sending order status update notification for order: {} from {} to {}", 
                 order.getOrderNumber(), oldStatus, newStatus);
         
-        try {
-            OrderNotificationEvent event = OrderNotificationEvent.builder()
-                    .eventType("ORDER_STATUS_UPDATED")
-                    .orderId(order.getId())
-                    .orderNumber(order.getOrderNumber())
-                    .userEmail(order.getUserEmail())
-                    .userName(order.getUserName())
-                    .userPhone(order.getUserPhone())
-                    .oldStatus(oldStatus.name())
-                    .newStatus(newStatus.name())
-                    .message(getStatusUpdateMessage(newStatus))
-                    .trackingNumber(order.getTrackingNumber())
-                    .build();
-            
-            kafkaTemplate.send(ORDER_STATUS_UPDATED_TOPIC, order.getOrderNumber(), event);
-            log.info("Order status update notification sent successfully to Kafka topic: {}", ORDER_STATUS_UPDATED_TOPIC);
-            
-        } catch (Exception e) {
-            log.error("Failed to send order status update notification for order: {}", order.getOrderNumber(), e);
-        }
+        OrderNotificationEvent event = OrderNotificationEvent.builder()
+                .eventType("ORDER_STATUS_UPDATED")
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userEmail(order.getUserEmail())
+                .userName(order.getUserName())
+                .userPhone(order.getUserPhone())
+                .oldStatus(oldStatus.name())
+                .newStatus(newStatus.name())
+                .message(getStatusUpdateMessage(newStatus))
+                .trackingNumber(order.getTrackingNumber())
+                .build();
+        
+        outboxWriter.enqueue(ORDER_STATUS_UPDATED_TOPIC, order.getOrderNumber(), event);
+        log.info("Order status update notification queued for Kafka topic: {}", ORDER_STATUS_UPDATED_TOPIC);
     }
     
     /**
@@ -89,25 +81,20 @@ public class NotificationService {
     public void sendOrderCancellation(Order order, String reason) {
         log.info("Sending order cancellation notification for order: {}", order.getOrderNumber());
         
-        try {
-            OrderNotificationEvent event = OrderNotificationEvent.builder()
-                    .eventType("ORDER_CANCELLED")
-                    .orderId(order.getId())
-                    .orderNumber(order.getOrderNumber())
-                    .userEmail(order.getUserEmail())
-                    .userName(order.getUserName())
-                    .userPhone(order.getUserPhone())
-                    .totalAmount(order.getTotalAmount())
-                    .message("Your order has been cancelled. " + (reason != null ? "Reason: " + reason : ""))
-                    .cancellationReason(reason)
-                    .build();
-            
-            kafkaTemplate.send(ORDER_CANCELLED_TOPIC, order.getOrderNumber(), event);
-            log.info("Order cancellation notification sent successfully to Kafka topic: {}", ORDER_CANCELLED_TOPIC);
-            
-        } catch (Exception e) {
-            log.error("Failed to send order cancellation notification for order: {}", order.getOrderNumber(), e);
-        }
+        OrderNotificationEvent event = OrderNotificationEvent.builder()
+                .eventType("ORDER_CANCELLED")
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userEmail(order.getUserEmail())
+                .userName(order.getUserName())
+                .userPhone(order.getUserPhone())
+                .totalAmount(order.getTotalAmount())
+                .message("Your order has been cancelled. " + (reason != null ? "Reason: " + reason : ""))
+                .cancellationReason(reason)
+                .build();
+        
+        outboxWriter.enqueue(ORDER_CANCELLED_TOPIC, order.getOrderNumber(), event);
+        log.info("Order cancellation notification queued for Kafka topic: {}", ORDER_CANCELLED_TOPIC);
     }
     
     /**
@@ -116,25 +103,20 @@ public class NotificationService {
     public void sendPaymentConfirmation(Order order, String transactionId) {
         log.info("Sending payment confirmation notification for order: {}", order.getOrderNumber());
         
-        try {
-            OrderNotificationEvent event = OrderNotificationEvent.builder()
-                    .eventType("PAYMENT_CONFIRMED")
-                    .orderId(order.getId())
-                    .orderNumber(order.getOrderNumber())
-                    .userEmail(order.getUserEmail())
-                    .userName(order.getUserName())
-                    .userPhone(order.getUserPhone())
-                    .totalAmount(order.getTotalAmount())
-                    .transactionId(transactionId)
-                    .message("Your payment has been processed successfully!")
-                    .build();
-            
-            kafkaTemplate.send(PAYMENT_CONFIRMED_TOPIC, order.getOrderNumber(), event);
-            log.info("Payment confirmation notification sent successfully to Kafka topic: {}", PAYMENT_CONFIRMED_TOPIC);
-            
-        } catch (Exception e) {
-            log.error("Failed to send payment confirmation notification for order: {}", order.getOrderNumber(), e);
-        }
+        OrderNotificationEvent event = OrderNotificationEvent.builder()
+                .eventType("PAYMENT_CONFIRMED")
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userEmail(order.getUserEmail())
+                .userName(order.getUserName())
+                .userPhone(order.getUserPhone())
+                .totalAmount(order.getTotalAmount())
+                .transactionId(transactionId)
+                .message("Your payment has been processed successfully!")
+                .build();
+        
+        outboxWriter.enqueue(PAYMENT_CONFIRMED_TOPIC, order.getOrderNumber(), event);
+        log.info("Payment confirmation notification queued for Kafka topic: {}", PAYMENT_CONFIRMED_TOPIC);
     }
     
     /**
@@ -143,24 +125,41 @@ public class NotificationService {
     public void sendDeliveryNotification(Order order) {
         log.info("Sending delivery notification for order: {}", order.getOrderNumber());
         
-        try {
-            OrderNotificationEvent event = OrderNotificationEvent.builder()
-                    .eventType("ORDER_DELIVERED")
-                    .orderId(order.getId())
-                    .orderNumber(order.getOrderNumber())
-                    .userEmail(order.getUserEmail())
-                    .userName(order.getUserName())
-                    .userPhone(order.getUserPhone())
-                    .message("Your order has been delivered successfully!")
-                    .deliveryAddress(order.getDeliveryAddress().getFullAddress())
-                    .build();
-            
-            kafkaTemplate.send(ORDER_DELIVERED_TOPIC, order.getOrderNumber(), event);
-            log.info("Delivery notification sent successfully to Kafka topic: {}", ORDER_DELIVERED_TOPIC);
-            
-        } catch (Exception e) {
-            log.error("Failed to send delivery notification for order: {}", order.getOrderNumber(), e);
-        }
+        OrderNotificationEvent event = OrderNotificationEvent.builder()
+                .eventType("ORDER_DELIVERED")
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userEmail(order.getUserEmail())
+                .userName(order.getUserName())
+                .userPhone(order.getUserPhone())
+                .message("Your order has been delivered successfully!")
+                .deliveryAddress(order.getDeliveryAddress().getFullAddress())
+                .build();
+        
+        outboxWriter.enqueue(ORDER_DELIVERED_TOPIC, order.getOrderNumber(), event);
+        log.info("Delivery notification queued for Kafka topic: {}", ORDER_DELIVERED_TOPIC);
+    }
+    
+    /**
+     * Send a reminder that the order is due for delivery today
+     */
+    public void sendDeliveryReminder(WorkItem order) {
+        log.info("Sending delivery reminder for order: {}", order.orderNumber());
+        
+        OrderNotificationEvent event = OrderNotificationEvent.builder()
+                .eventType("DELIVERY_TODAY")
+                .orderId(order.id())
+                .orderNumber(order.orderNumber())
+                .userEmail(order.userEmail())
+                .userName(order.userName())
+                .userPhone(order.userPhone())
+                .oldStatus(order.orderStatus().name())
+                .newStatus(order.orderStatus().name())
+                .message("Your order is scheduled to be delivered today.")
+                .trackingNumber(order.trackingNumber())
+                .build();
+        
+        outboxWriter.enqueue(ORDER_STATUS_UPDATED_TOPIC, order.orderNumber(), event);
     }
     
     private String getStatusUpdateMessage(Order.OrderStatus status) {
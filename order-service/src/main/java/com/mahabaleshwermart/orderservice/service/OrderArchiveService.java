@@ -0,0 +1,190 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mahabaleshwermart.orderservice.dto.OrderDto;
+import com.mahabaleshwermart.orderservice.entity.ArchivedOrder;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.mapper.OrderMapper;
+import com.mahabaleshwermart.orderservice.repository.ArchivedOrderRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Order Archive Service
+ * Keeps the live order tables small by moving orders that were delivered or cancelled more than
+ * {@code app.order.archive.after-months} ago into {@code orders_archive}, one compressed document per order,
+ * and serves archived orders to lookups that miss the live tables.
+ */
+@Slf4j
+@Service
+public class OrderArchiveService {
+
+    private static final List<Order.OrderStatus> ARCHIVABLE_STATUSES = List.of(
+            Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED);
+    private static final String LEASE = "order-archive";
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderMapper orderMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkerLease workerLease;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader documentReader;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShardRouter shardRouter;
+    private final int afterMonths;
+    private final int chunkSize;
+    private final Duration leaseTtl;
+
+    public OrderArchiveService(OrderRepository orderRepository,
+                               ArchivedOrderRepository archivedOrderRepository,
+                               OrderMapper orderMapper,
+                               JdbcTemplate jdbcTemplate,
+                               WorkerLease workerLease,
+                               MeterRegistry meterRegistry,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               OrderShardRouter shardRouter,
+                               @Value("${app.order.archive.after-months:6}") int afterMonths,
+                               @Value("${app.order.archive.chunk-size:200}") int chunkSize,
+                               @Value("${app.order.workers.lease-ttl-ms:120000}") long leaseTtlMillis) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderMapper = orderMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.workerLease = workerLease;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        // Documents outlive DTO changes; fields removed since they were written are ignored
+        this.documentReader = objectMapper.readerFor(OrderDto.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.afterMonths = afterMonths;
+        this.chunkSize = chunkSize;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+    }
+
+    /**
+     * Find an archived order by its id
+     */
+    public Optional<OrderDto> findById(String orderId) {
+        return archivedOrderRepository.findById(orderId).map(this::read);
+    }
+
+    /**
+     * Find an archived order by its order number
+     */
+    public Optional<OrderDto> findByOrderNumber(String orderNumber) {
+        return archivedOrderRepository.findByOrderNumber(orderNumber).map(this::read);
+    }
+
+    /**
+     * Move closed orders into the archive, a chunk per transaction, until none are left or the lease is lost
+     */
+    @Scheduled(cron = "${app.order.archive.cron:0 0 2 * * *}")
+    public void archiveClosedOrders() {
+        shardRouter.forEachShard("Order archiving", this::archiveClosedOrders);
+    }
+
+    private void archiveClosedOrders(int shard) {
+        String lease = shardRouter.qualify(LEASE, shard);
+        Optional<String> token = workerLease.acquire(lease, leaseTtl);
+        if (token.isEmpty()) {
+            log.debug("Skipping order archiving on shard {}: lease held elsewhere", shard);
+            return;
+        }
+        LocalDateTime closedBefore = LocalDateTime.now().minusMonths(afterMonths);
+        long archived = 0;
+        try {
+            while (true) {
+                Integer moved = transactionTemplate.execute(status -> archiveChunk(closedBefore));
+                archived += moved != null ? moved : 0;
+                if (moved == null || moved < chunkSize || !workerLease.renew(lease, token.get(), leaseTtl)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Order archiving failed on shard {} after {} orders", shard, archived, e);
+        } finally {
+            workerLease.release(lease, token.get());
+            meterRegistry.counter("order.archive.orders").increment(archived);
+        }
+        log.info("Archived {} orders closed before {} on shard {}", archived, closedBefore, shard);
+    }
+
+    private int archiveChunk(LocalDateTime closedBefore) {
+        List<String> ids = orderRepository.findClosedOrderIds(ARCHIVABLE_STATUSES, closedBefore, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ArchivedOrder> archived = orderRepository.findAllById(ids).stream()
+                .map(order -> ArchivedOrder.builder()
+                        .id(order.getId())
+                        .orderNumber(order.getOrderNumber())
+                        .userId(order.getUserId())
+                        .orderStatus(order.getOrderStatus())
+                        .totalAmount(order.getTotalAmount())
+                        .createdAt(order.getCreatedAt())
+                        .closedAt(order.getActualDelivery() != null ? order.getActualDelivery() : order.getCancelledAt())
+                        .archivedAt(now)
+                        .document(write(orderMapper.toDto(order)))
+                        .build())
+                .toList();
+        archivedOrderRepository.saveAll(archived);
+        archivedOrderRepository.flush();
+
+        List<String> archivedIds = archived.stream().map(ArchivedOrder::getId).toList();
+        String placeholders = String.join(",", Collections.nCopies(archivedIds.size(), "?"));
+        Object[] args = archivedIds.toArray();
+        jdbcTemplate.update("DELETE FROM order_timeline WHERE order_id IN (" + placeholders + ")", args);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + placeholders + ")", args);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (" + placeholders + ")", args);
+        return ids.size();
+    }
+
+    private byte[] write(OrderDto order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, order);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to archive order " + order.getOrderNumber(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private OrderDto read(ArchivedOrder archived) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archived.getDocument()))) {
+            return documentReader.readValue(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read archived order " + archived.getOrderNumber(), e);
+        }
+    }
+}
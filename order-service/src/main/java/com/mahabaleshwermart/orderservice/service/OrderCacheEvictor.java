@@ -0,0 +1,63 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Order Cache Evictor
+ * Evicts the cached core, order-number and timeline entries of one order once the transaction changing it
+ * commits, leaving the entries of every other order in place.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderCacheEvictor {
+
+    static final String ORDER_CACHE = "order";
+    static final String ORDER_NUMBER_CACHE = "order-number";
+    static final String ORDER_TIMELINE_CACHE = "order-timeline";
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Evict the order after the current transaction commits (immediately when none is active), so a
+     * concurrent read cannot cache the old state again
+     */
+    public void evictAfterCommit(Order order) {
+        String orderId = order.getId();
+        String orderNumber = order.getOrderNumber();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(orderId, orderNumber);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(orderId, orderNumber);
+            }
+        });
+    }
+
+    void evict(String orderId, String orderNumber) {
+        Cache orders = cacheManager.getCache(ORDER_CACHE);
+        if (orders != null) {
+            orders.evict(orderId);
+        }
+        Cache byNumber = cacheManager.getCache(ORDER_NUMBER_CACHE);
+        if (byNumber != null && orderNumber != null) {
+            byNumber.evict(orderNumber);
+        }
+        // Timeline pages are keyed <orderId>:<page>:<size>; only Redis can drop one order's pages by pattern
+        Cache timeline = cacheManager.getCache(ORDER_TIMELINE_CACHE);
+        if (timeline instanceof RedisCache redisTimeline) {
+            redisTimeline.clear(orderId + ":*");
+        } else if (timeline != null) {
+            timeline.clear();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate;
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate.PurgeStep;
+import com.mahabaleshwermart.orderservice.entity.OrderOutbox;
+import com.mahabaleshwermart.orderservice.repository.OrderOutboxRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order Outbox Relay
+ * Drains the order outbox to Kafka in batches. A batch is claimed in a short transaction, sent pipelined
+ * with no database locks held, and its outcome recorded in a second transaction. Per-key order is preserved:
+ * once an event fails, later events with the same key in the batch are held back, and a key is not claimed
+ * while an earlier event for it is parked or claimed by another relay.
+ */
+@Slf4j
+@Component
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShardRouter shardRouter;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${app.outbox.claim-ttl-ms:60000}")
+    private long claimTtlMillis;
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            KafkaTemplate<String, Object> kafkaTemplate,
+                            ObjectMapper objectMapper,
+                            DataSource dataSource,
+                            MeterRegistry meterRegistry,
+                            PlatformTransactionManager transactionManager,
+                            OrderShardRouter shardRouter) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        Gauge.builder("outbox.pending", pendingEvents, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagSeconds, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Relay batches from every shard's outbox until it is drained or a batch makes no progress
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        long[] pending = new long[1];
+        long[] lag = new long[1];
+        shardRouter.forEachShard("Order outbox relay", shard -> {
+            try {
+                int published;
+                do {
+                    published = relayBatch();
+                } while (published == batchSize);
+            } finally {
+                collectLagMetrics(pending, lag);
+            }
+        });
+        pendingEvents.set(pending[0]);
+        lagSeconds.set(lag[0]);
+    }
+
+    /**
+     * Hard-delete published events past the retention period
+     */
+    @Scheduled(cron = "${app.outbox.retention-cron:0 15 4 * * *}")
+    public void purgePublished() {
+        LocalDateTime publishedBefore = LocalDateTime.now().minusDays(retentionDays);
+        shardRouter.forEachShard("Order outbox retention", shard -> {
+            Map<String, Long> purged = new ChunkedPurgeTemplate(dataSource,
+                    shardRouter.qualify("order-service.outbox-retention", shard), 500, 100)
+                    .execute(List.of(new PurgeStep("published-order-outbox",
+                            "DELETE FROM order_outbox WHERE published_at < ? ORDER BY id LIMIT ?",
+                            publishedBefore)));
+            purged.forEach((step, rows) ->
+                    meterRegistry.counter("retention.rows.purged", "step", step).increment(rows));
+        });
+    }
+
+    private int relayBatch() {
+        String claimToken = UUID.randomUUID().toString();
+        List<OrderOutbox> batch = transactionTemplate.execute(status -> claimBatch(claimToken));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(batch.size());
+        for (OrderOutbox event : batch) {
+            sends.add(send(event));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        List<Long> published = new ArrayList<>();
+        Map<Long, String> failed = new LinkedHashMap<>();
+        List<Long> unsettled = new ArrayList<>();
+        Set<String> heldBackKeys = new HashSet<>();
+        boolean interrupted = false;
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutbox event = batch.get(i);
+            if (interrupted || heldBackKeys.contains(event.getMessageKey())) {
+                // An earlier event for this key failed; publishing this one would reorder them.
+                // It may already be on the broker, in which case the retry produces a duplicate, never a gap.
+                unsettled.add(event.getId());
+                continue;
+            }
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(event.getId());
+                meterRegistry.counter("outbox.published", "topic", event.getTopic()).increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                unsettled.add(event.getId());
+            } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                failed.put(event.getId(), recordFailure(event, cause));
+                heldBackKeys.add(event.getMessageKey());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!published.isEmpty()) {
+                outboxRepository.markPublished(published, claimToken, now);
+            }
+            failed.forEach((id, error) -> outboxRepository.markFailed(id, claimToken, error));
+            if (!unsettled.isEmpty()) {
+                outboxRepository.releaseClaims(unsettled, claimToken);
+            }
+        });
+
+        log.debug("Relayed {} of {} order outbox events", published.size(), batch.size());
+        return interrupted ? 0 : published.size();
+    }
+
+    /**
+     * Claim the next events to send. Events whose key has an earlier parked or foreign-claimed event stay behind.
+     */
+    private List<OrderOutbox> claimBatch(String claimToken) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderOutbox> candidates = outboxRepository.lockClaimableBatch(maxAttempts, now, batchSize);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> keys = new HashSet<>();
+        candidates.forEach(event -> keys.add(event.getMessageKey()));
+        long lastId = candidates.get(candidates.size() - 1).getId();
+        Map<String, Long> blockedFrom = new HashMap<>();
+        for (OrderOutboxRepository.BlockingEvent blocking : outboxRepository.lockBlockingEvents(keys, lastId, maxAttempts, now)) {
+            blockedFrom.merge(blocking.getMessageKey(), blocking.getId(), Math::min);
+        }
+
+        LocalDateTime claimedUntil = now.plus(Duration.ofMillis(claimTtlMillis));
+        List<OrderOutbox> claimed = new ArrayList<>(candidates.size());
+        for (OrderOutbox event : candidates) {
+            Long blockingId = blockedFrom.get(event.getMessageKey());
+            if (blockingId != null && blockingId < event.getId()) {
+                continue;
+            }
+            // Managed entities; the claim is written on commit
+            event.setClaimedBy(claimToken);
+            event.setClaimedUntil(claimedUntil);
+            claimed.add(event);
+        }
+        if (claimed.size() < candidates.size()) {
+            log.debug("Held back {} order outbox events behind parked or claimed events", candidates.size() - claimed.size());
+        }
+        return claimed;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OrderOutbox event) {
+        try {
+            Object payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return the error to store with the event
+     */
+    private String recordFailure(OrderOutbox event, Throwable cause) {
+        int attempts = event.getAttempts() + 1;
+        String message = String.valueOf(cause.getMessage());
+        meterRegistry.counter("outbox.failed", "topic", event.getTopic()).increment();
+        if (attempts >= maxAttempts) {
+            log.error("Order outbox event {} for key {} parked after {} attempts; later events for the key wait for it: {}",
+                    event.getId(), event.getMessageKey(), attempts, message);
+        } else {
+            log.warn("Order outbox event {} for key {} failed (attempt {}): {}",
+                    event.getId(), event.getMessageKey(), attempts, message);
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    /**
+     * Add the current shard's backlog to {@code pending} and raise {@code lag} to its oldest event
+     */
+    private void collectLagMetrics(long[] pending, long[] lag) {
+        try {
+            pending[0] += outboxRepository.countByPublishedAtIsNull();
+            LocalDateTime oldest = outboxRepository.findOldestPendingCreatedAt();
+            if (oldest != null) {
+                lag[0] = Math.max(lag[0], Duration.between(oldest, LocalDateTime.now()).getSeconds());
+            }
+        } catch (RuntimeException e) {
+            log.debug("Unable to refresh order outbox lag metrics: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahabaleshwermart.orderservice.entity.OrderOutbox;
+import com.mahabaleshwermart.orderservice.repository.OrderOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Order Outbox Writer
+ * Records a Kafka message in the order outbox as part of the caller's transaction;
+ * {@link OrderOutboxRelay} publishes it after commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutboxWriter {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Queue {@code payload} for {@code topic}; messages with the same key are published in the order queued
+     */
+    public void enqueue(String topic, String key, Object payload) {
+        try {
+            outboxRepository.save(OrderOutbox.builder()
+                    .topic(topic)
+                    .messageKey(key)
+                    .payloadType(payload.getClass().getName())
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize " + payload.getClass().getSimpleName() + " for " + topic, e);
+        }
+    }
+}
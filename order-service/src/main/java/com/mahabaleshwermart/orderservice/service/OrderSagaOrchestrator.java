@@ -0,0 +1,354 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.events.SagaCommand;
+import com.mahabaleshwermart.common.events.SagaReply;
+import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import com.mahabaleshwermart.orderservice.config.PaymentConfig;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderPayment;
+import com.mahabaleshwermart.orderservice.entity.OrderSaga;
+import com.mahabaleshwermart.orderservice.entity.OrderSagaStep;
+import com.mahabaleshwermart.orderservice.event.CheckoutSagaFailedEvent;
+import com.mahabaleshwermart.orderservice.event.OrderLifecycleEvent;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaStepRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import com.mahabaleshwermart.orderservice.shard.ShardContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Order Saga Orchestrator
+ * Drives checkout after the order is saved: reserve stock, clear the cart, then initiate payment.
+ * Each step is a command sent through the order outbox and answered by a {@link SagaReply}; every
+ * command and its outcome is logged as an {@link OrderSagaStep}. When a step fails or gets no reply
+ * within the step timeout, the order is cancelled and the steps that may have taken effect are
+ * compensated one at a time in reverse order.
+ */
+@Slf4j
+@Service
+public class OrderSagaOrchestrator {
+
+    private static final int OVERDUE_BATCH_SIZE = 100;
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final OrderSagaRepository sagaRepository;
+    private final OrderSagaStepRepository stepRepository;
+    private final OrderRepository orderRepository;
+    private final OrderOutboxWriter outboxWriter;
+    private final PaymentConfig paymentConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShardRouter shardRouter;
+    private final long stepTimeoutMillis;
+    private final int maxCompensationAttempts;
+
+    public OrderSagaOrchestrator(OrderSagaRepository sagaRepository,
+                                 OrderSagaStepRepository stepRepository,
+                                 OrderRepository orderRepository,
+                                 OrderOutboxWriter outboxWriter,
+                                 PaymentConfig paymentConfig,
+                                 ApplicationEventPublisher eventPublisher,
+                                 MeterRegistry meterRegistry,
+                                 PlatformTransactionManager transactionManager,
+                                 OrderShardRouter shardRouter,
+                                 @Value("${app.saga.step-timeout-ms:60000}") long stepTimeoutMillis,
+                                 @Value("${app.saga.max-compensation-attempts:5}") int maxCompensationAttempts) {
+        this.sagaRepository = sagaRepository;
+        this.stepRepository = stepRepository;
+        this.orderRepository = orderRepository;
+        this.outboxWriter = outboxWriter;
+        this.paymentConfig = paymentConfig;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.stepTimeoutMillis = stepTimeoutMillis;
+        this.maxCompensationAttempts = maxCompensationAttempts;
+    }
+
+    /**
+     * Start the checkout saga of a new order. Runs in the order's transaction, so the saga and its
+     * first command exist exactly when the order does.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void start(Order order) {
+        OrderSaga saga = sagaRepository.save(OrderSaga.builder()
+                .orderId(order.getId())
+                .build());
+        List<OrderSagaStep.Step> steps = stepsFor(order);
+        send(saga, order, steps.get(0), SagaCommand.Action.EXECUTE, 1);
+        log.info("Checkout saga {} started for order {} with steps {}", saga.getId(), order.getOrderNumber(), steps);
+    }
+
+    /**
+     * Give back the stock of a cancelled or returned order. Sent in the transaction that changed the
+     * order, outside any saga, so it carries no step id and gets no reply. An order cancelled because its
+     * checkout saga failed is left to the saga, which releases the reservation as one of its compensations.
+     */
+    @EventListener
+    public void onOrderLifecycle(OrderLifecycleEvent event) {
+        Order order = event.order();
+        boolean returned = event.type() == OrderLifecycleEvent.Type.STATUS_CHANGED
+                && order.getOrderStatus() == Order.OrderStatus.RETURNED;
+        if (event.type() != OrderLifecycleEvent.Type.CANCELLED && !returned) {
+            return;
+        }
+        boolean compensating = sagaRepository.findByOrderId(order.getId())
+                .filter(saga -> saga.getStatus() == OrderSaga.Status.COMPENSATING)
+                .isPresent();
+        if (compensating) {
+            return;
+        }
+        SagaCommand command = SagaCommand.builder()
+                .orderId(order.getId())
+                .step(OrderSagaStep.Step.RESERVE_STOCK.name())
+                .action(SagaCommand.Action.COMPENSATE)
+                .userId(order.getUserId())
+                .items(itemsOf(order))
+                .build();
+        outboxWriter.enqueue(SagaCommand.INVENTORY_TOPIC, order.getId(), command);
+        log.info("Stock release queued for {} order {}", order.getOrderStatus(), order.getOrderNumber());
+    }
+
+    /**
+     * Handle a participant's reply. The step is completed with a conditional update, so a redelivered
+     * reply, or one arriving after the step timed out, changes nothing and is dropped.
+     */
+    @KafkaListener(topics = SagaReply.TOPIC, groupId = "order-service-saga")
+    public void onReply(@Payload SagaReply reply) {
+        // The saga lives on the order's shard, which has to be chosen before the transaction starts
+        ShardContext.callOn(shardRouter.shardForOrder(reply.getOrderId()), () -> {
+            transactionTemplate.executeWithoutResult(status -> handleReply(reply));
+            return null;
+        });
+    }
+
+    private void handleReply(SagaReply reply) {
+        OrderSagaStep.Status outcome = reply.isSuccess() ? OrderSagaStep.Status.SUCCEEDED : OrderSagaStep.Status.FAILED;
+        if (stepRepository.complete(reply.getStepId(), outcome, truncate(reply.getMessage()), LocalDateTime.now()) == 0) {
+            log.debug("Ignoring duplicate or late saga reply for step {} of order {}", reply.getStepId(), reply.getOrderId());
+            return;
+        }
+        OrderSagaStep step = stepRepository.findById(reply.getStepId())
+                .orElseThrow(() -> new ResourceNotFoundException("OrderSagaStep", "id", reply.getStepId()));
+        log.info("Saga step {} {} of order {} {}: {}", step.getStep(), step.getAction(), reply.getOrderId(),
+                outcome, reply.getMessage());
+        advance(step, outcome);
+    }
+
+    /**
+     * Time out steps that got no reply. A timed out forward step is treated as failed with unknown effect
+     * and is compensated along with the earlier steps; a timed out compensation is sent again.
+     */
+    @Scheduled(fixedDelayString = "${app.saga.watchdog-interval-ms:15000}")
+    public void timeOutOverdueSteps() {
+        shardRouter.forEachShard("Saga watchdog", shard -> timeOutOverdueStepsOnShard());
+    }
+
+    private void timeOutOverdueStepsOnShard() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(stepTimeoutMillis * 1_000_000);
+        List<OrderSagaStep> overdue = stepRepository.findOverdue(cutoff, PageRequest.of(0, OVERDUE_BATCH_SIZE));
+        for (OrderSagaStep step : overdue) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    String message = "No reply within " + stepTimeoutMillis + " ms";
+                    if (stepRepository.complete(step.getId(), OrderSagaStep.Status.TIMED_OUT, message, LocalDateTime.now()) == 0) {
+                        return; // replied meanwhile
+                    }
+                    log.warn("Saga step {} {} of saga {} timed out", step.getStep(), step.getAction(), step.getSagaId());
+                    advance(stepRepository.findById(step.getId()).orElseThrow(), OrderSagaStep.Status.TIMED_OUT);
+                });
+            } catch (Exception e) {
+                log.error("Failed to time out saga step {}", step.getId(), e);
+            }
+        }
+    }
+
+    private void advance(OrderSagaStep step, OrderSagaStep.Status outcome) {
+        OrderSaga saga = sagaRepository.findById(step.getSagaId())
+                .orElseThrow(() -> new ResourceNotFoundException("OrderSaga", "id", step.getSagaId()));
+        Order order = orderRepository.findById(saga.getOrderId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", saga.getOrderId()));
+
+        if (step.getAction() == SagaCommand.Action.COMPENSATE) {
+            if (outcome == OrderSagaStep.Status.SUCCEEDED) {
+                compensateNext(saga, order);
+            } else {
+                retryCompensation(saga, order, step);
+            }
+            return;
+        }
+
+        if (saga.getStatus() != OrderSaga.Status.RUNNING) {
+            // Already compensating; a step that still took effect is picked up by compensateNext
+            if (saga.getStatus() == OrderSaga.Status.COMPENSATING) {
+                compensateNext(saga, order);
+            }
+            return;
+        }
+        if (outcome == OrderSagaStep.Status.SUCCEEDED) {
+            Optional<OrderSagaStep.Step> next = nextStep(order, step.getStep());
+            if (next.isPresent()) {
+                send(saga, order, next.get(), SagaCommand.Action.EXECUTE, 1);
+            } else {
+                saga.setStatus(OrderSaga.Status.COMPLETED);
+                sagaRepository.save(saga);
+                meterRegistry.counter("order.saga", "outcome", "completed").increment();
+                log.info("Checkout saga completed for order {}", order.getOrderNumber());
+            }
+            return;
+        }
+
+        String reason = step.getStep() + (outcome == OrderSagaStep.Status.TIMED_OUT ? " timed out" : " failed")
+                + (step.getMessage() != null ? ": " + step.getMessage() : "");
+        saga.setStatus(OrderSaga.Status.COMPENSATING);
+        saga.setFailureReason(truncate(reason));
+        sagaRepository.save(saga);
+        log.warn("Checkout saga for order {} failed, compensating: {}", order.getOrderNumber(), reason);
+        eventPublisher.publishEvent(new CheckoutSagaFailedEvent(order.getId(), checkoutFailureReason(step.getStep())));
+        compensateNext(saga, order);
+    }
+
+    /**
+     * Compensate the latest forward step that may have taken effect and is not compensated yet,
+     * or finish the saga when none is left
+     */
+    private void compensateNext(OrderSaga saga, Order order) {
+        List<OrderSagaStep> steps = stepRepository.findBySagaIdOrderBySentAtAsc(saga.getId());
+        boolean compensationPending = steps.stream().anyMatch(s ->
+                s.getAction() == SagaCommand.Action.COMPENSATE && s.getStatus() == OrderSagaStep.Status.SENT);
+        if (compensationPending) {
+            return;
+        }
+        Set<OrderSagaStep.Step> compensated = steps.stream()
+                .filter(s -> s.getAction() == SagaCommand.Action.COMPENSATE && s.getStatus() == OrderSagaStep.Status.SUCCEEDED)
+                .map(OrderSagaStep::getStep)
+                .collect(Collectors.toSet());
+
+        List<OrderSagaStep> executed = new ArrayList<>(steps.stream()
+                .filter(s -> s.getAction() == SagaCommand.Action.EXECUTE && mayHaveTakenEffect(s))
+                .filter(s -> !compensated.contains(s.getStep()))
+                .toList());
+        if (executed.isEmpty()) {
+            saga.setStatus(OrderSaga.Status.COMPENSATED);
+            sagaRepository.save(saga);
+            meterRegistry.counter("order.saga", "outcome", "compensated").increment();
+            log.info("Checkout saga for order {} compensated", order.getOrderNumber());
+            return;
+        }
+        send(saga, order, executed.get(executed.size() - 1).getStep(), SagaCommand.Action.COMPENSATE, 1);
+    }
+
+    private void retryCompensation(OrderSaga saga, Order order, OrderSagaStep failed) {
+        if (failed.getAttempt() < maxCompensationAttempts) {
+            send(saga, order, failed.getStep(), SagaCommand.Action.COMPENSATE, failed.getAttempt() + 1);
+            return;
+        }
+        saga.setStatus(OrderSaga.Status.STUCK);
+        saga.setFailureReason(truncate("Compensation of " + failed.getStep() + " failed after "
+                + failed.getAttempt() + " attempts: " + failed.getMessage()));
+        sagaRepository.save(saga);
+        meterRegistry.counter("order.saga", "outcome", "stuck").increment();
+        log.error("Checkout saga {} for order {} is stuck: {}", saga.getId(), order.getOrderNumber(), saga.getFailureReason());
+    }
+
+    /**
+     * Succeeded and timed out steps may have changed the participant. A failed payment step may too,
+     * because a gateway error does not prove that no payment was created.
+     */
+    private static boolean mayHaveTakenEffect(OrderSagaStep step) {
+        return switch (step.getStatus()) {
+            case SUCCEEDED, TIMED_OUT -> true;
+            case FAILED -> step.getStep() == OrderSagaStep.Step.INITIATE_PAYMENT;
+            case SENT -> false;
+        };
+    }
+
+    private void send(OrderSaga saga, Order order, OrderSagaStep.Step step, SagaCommand.Action action, int attempt) {
+        OrderSagaStep row = stepRepository.save(OrderSagaStep.builder()
+                .sagaId(saga.getId())
+                .step(step)
+                .action(action)
+                .attempt(attempt)
+                .build());
+        if (action == SagaCommand.Action.EXECUTE) {
+            saga.setCurrentStep(step);
+            sagaRepository.save(saga);
+        }
+
+        OrderPayment payment = order.getPayment();
+        SagaCommand command = SagaCommand.builder()
+                .sagaId(saga.getId())
+                .stepId(row.getId())
+                .orderId(order.getId())
+                .step(step.name())
+                .action(action)
+                .userId(order.getUserId())
+                .paymentMethod(payment != null && payment.getPaymentMethod() != null ? payment.getPaymentMethod().name() : null)
+                .gatewayProvider(payment != null && payment.getPaymentGateway() != null ? payment.getPaymentGateway() : "RAZORPAY")
+                .items(itemsOf(order))
+                .build();
+        // Keyed by order so a saga's commands stay in order on each topic
+        outboxWriter.enqueue(step.getTopic(), order.getId(), command);
+    }
+
+    private static List<SagaCommand.Item> itemsOf(Order order) {
+        return order.getItems().stream()
+                .map(item -> new SagaCommand.Item(item.getProductId(), item.getQuantity()))
+                .toList();
+    }
+
+    /**
+     * Forward steps for an order. Payment is started by the saga only for prepaid orders when payment
+     * processing is enabled.
+     */
+    private List<OrderSagaStep.Step> stepsFor(Order order) {
+        List<OrderSagaStep.Step> steps = new ArrayList<>(List.of(OrderSagaStep.Step.RESERVE_STOCK, OrderSagaStep.Step.CLEAR_CART));
+        OrderPayment payment = order.getPayment();
+        boolean cashOnDelivery = payment != null && payment.getPaymentMethod() == OrderPayment.PaymentMethod.CASH_ON_DELIVERY;
+        if (!cashOnDelivery && !paymentConfig.shouldSkipPaymentProcessing()) {
+            steps.add(OrderSagaStep.Step.INITIATE_PAYMENT);
+        }
+        return steps;
+    }
+
+    private Optional<OrderSagaStep.Step> nextStep(Order order, OrderSagaStep.Step current) {
+        List<OrderSagaStep.Step> steps = stepsFor(order);
+        int index = steps.indexOf(current);
+        return index >= 0 && index + 1 < steps.size() ? Optional.of(steps.get(index + 1)) : Optional.empty();
+    }
+
+    private static String checkoutFailureReason(OrderSagaStep.Step step) {
+        return switch (step) {
+            case RESERVE_STOCK -> "Some items are no longer available in the requested quantity";
+            case CLEAR_CART -> "Checkout could not be completed, please try again";
+            case INITIATE_PAYMENT -> "Payment could not be initiated";
+        };
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+}
@@ -0,0 +1,122 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.events.SagaCommand;
+import com.mahabaleshwermart.common.events.SagaReply;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.orderservice.dto.ApiResponse;
+import com.mahabaleshwermart.orderservice.dto.payment.PaymentResponse;
+import com.mahabaleshwermart.orderservice.entity.OrderSagaStep;
+import com.mahabaleshwermart.orderservice.external.AddToCartRequest;
+import com.mahabaleshwermart.orderservice.external.CartItemDto;
+import com.mahabaleshwermart.orderservice.external.CartServiceClient;
+import com.mahabaleshwermart.orderservice.external.CartSummaryDto;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaStepRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import com.mahabaleshwermart.orderservice.shard.ShardContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order Saga Participants
+ * Executes the cart and payment steps of the checkout saga. cart-service and payment-service are only
+ * reachable over HTTP, so these adapters take the saga commands off Kafka, make the Feign calls and
+ * reply like any other participant.
+ * A command whose step is no longer waiting for a reply (a redelivery, or one that timed out) is skipped.
+ * Transient errors are thrown so the listener retries; a definite failure is replied.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSagaParticipants {
+
+    private final OrderSagaStepRepository stepRepository;
+    private final OrderService orderService;
+    private final CartServiceClient cartServiceClient;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OrderShardRouter shardRouter;
+
+    /**
+     * Clear the cart, or put the order lines back in it
+     */
+    @KafkaListener(topics = SagaCommand.CART_TOPIC, groupId = "order-service-cart-participant")
+    public void onCartCommand(@Payload SagaCommand command) {
+        if (!isAwaitingReply(command)) {
+            return;
+        }
+        if (command.getAction() == SagaCommand.Action.EXECUTE) {
+            ApiResponse<Void> response = cartServiceClient.clearUserCart(command.getUserId());
+            reply(command, response != null && response.isSuccess(), response != null ? response.getMessage() : "No response from cart-service");
+        } else {
+            restoreCart(command);
+            reply(command, true, "Cart restored");
+        }
+    }
+
+    /**
+     * Initiate the order payment, or cancel/refund it
+     */
+    @KafkaListener(topics = SagaCommand.PAYMENT_TOPIC, groupId = "order-service-payment-participant")
+    public void onPaymentCommand(@Payload SagaCommand command) {
+        if (!isAwaitingReply(command)) {
+            return;
+        }
+        if (command.getAction() == SagaCommand.Action.COMPENSATE) {
+            orderService.cancelCheckoutPayment(command.getOrderId());
+            reply(command, true, "Payment cancelled");
+            return;
+        }
+        try {
+            PaymentResponse response = orderService.initiatePayment(command.getOrderId(),
+                    command.getPaymentMethod(), command.getGatewayProvider());
+            // A created payment completes the step; verification or the webhook settles it
+            boolean success = response != null && response.isInitiated();
+            reply(command, success, response != null ? response.getMessage() : "No response from payment-service");
+        } catch (BusinessException e) {
+            // The compensation still runs for a failed payment step, so an uncertain failure is safe to reply
+            reply(command, false, e.getMessage());
+        }
+    }
+
+    /**
+     * Put back what the order took, topping up lines the customer re-added meanwhile instead of doubling them
+     */
+    private void restoreCart(SagaCommand command) {
+        Map<String, Integer> inCart = new HashMap<>();
+        ApiResponse<CartSummaryDto> cart = cartServiceClient.getUserCart(command.getUserId());
+        if (cart != null && cart.isSuccess() && cart.getData() != null && cart.getData().items() != null) {
+            for (CartItemDto item : cart.getData().items()) {
+                inCart.merge(item.productId(), item.quantity(), Integer::sum);
+            }
+        }
+        for (SagaCommand.Item item : command.getItems()) {
+            int missing = item.getQuantity() - inCart.getOrDefault(item.getProductId(), 0);
+            if (missing > 0) {
+                cartServiceClient.addToCart(command.getUserId(), new AddToCartRequest(item.getProductId(), missing));
+            }
+        }
+    }
+
+    private boolean isAwaitingReply(SagaCommand command) {
+        // The step is stored on the shard of the ordering user
+        boolean awaiting = ShardContext.callOn(shardRouter.shardForUser(command.getUserId()), () ->
+                stepRepository.findById(command.getStepId())
+                        .map(step -> step.getStatus() == OrderSagaStep.Status.SENT)
+                        .orElse(false));
+        if (!awaiting) {
+            log.info("Skipping saga command {} {} for order {}: step no longer awaiting a reply",
+                    command.getStep(), command.getAction(), command.getOrderId());
+        }
+        return awaiting;
+    }
+
+    private void reply(SagaCommand command, boolean success, String message) {
+        kafkaTemplate.send(SagaReply.TOPIC, command.getOrderId(), SagaReply.to(command, success, message));
+    }
+}
@@ -12,7 +12,9 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderStatistics {
+    private int days;
     private long totalOrders;
+    private long cancelledOrders;
     private BigDecimal totalSpent;
     private BigDecimal averageOrderValue;
 }
@@ -0,0 +1,162 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.event.OrderTrackingEvent;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import com.mahabaleshwermart.orderservice.shard.ShardKey;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Order Tracking Stream Service
+ * Keeps server-sent event subscriptions for live order tracking and pushes tracking updates to them.
+ * Updates are published on a Redis channel after the changing transaction commits, so a customer gets
+ * them whichever instance holds the connection. Idle connections are parked as async requests and do
+ * not hold a thread.
+ */
+@Slf4j
+@Service
+public class OrderTrackingStreamService implements MessageListener {
+
+    public static final String CHANNEL = "order-tracking";
+
+    private static final String EVENT_TRACKING = "tracking";
+    private static final String EVENT_SNAPSHOT = "snapshot";
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final OrderRepository orderRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeoutMillis;
+    private final int maxConnections;
+
+    public OrderTrackingStreamService(OrderRepository orderRepository,
+                                      StringRedisTemplate redisTemplate,
+                                      ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.tracking.stream-timeout-ms:1800000}") long streamTimeoutMillis,
+                                      @Value("${app.tracking.max-connections:50000}") int maxConnections) {
+        this.orderRepository = orderRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.maxConnections = maxConnections;
+        Gauge.builder("order.tracking.connections", connections, AtomicInteger::get)
+                .description("Open live order tracking streams on this instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a tracking stream for an order. The first event is a snapshot of the current status;
+     * later events carry only new tracking updates.
+     */
+    public SseEmitter subscribe(@ShardKey(ShardKey.Type.ORDER_NUMBER) String orderNumber) {
+        Order.OrderStatus status = orderRepository.findStatusByOrderNumber(orderNumber)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "orderNumber", orderNumber));
+        // Reserve the slot first so concurrent subscribers cannot all pass the check; give it back on rejection
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new BusinessException("Too many open tracking streams, please retry later");
+        }
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        // Add under the map's lock so a concurrent remove cannot drop the set this emitter goes into
+        subscribers.compute(orderNumber, (k, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        emitter.onCompletion(() -> remove(orderNumber, emitter));
+        emitter.onTimeout(() -> remove(orderNumber, emitter));
+        emitter.onError(e -> remove(orderNumber, emitter));
+
+        send(orderNumber, emitter, SseEmitter.event()
+                .name(EVENT_SNAPSHOT)
+                .data(Map.of("orderNumber", orderNumber, "orderStatus", status), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    /**
+     * Publish a tracking update once the transaction that produced it has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(OrderTrackingEvent event) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // Still reach customers connected to this instance
+            log.warn("Failed to publish tracking update for order {}: {}", event.orderNumber(), e.getMessage());
+            deliver(event);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            deliver(objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), OrderTrackingEvent.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable tracking update: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Comment frames keep proxies from closing idle streams and reveal dead connections
+     */
+    @Scheduled(fixedDelayString = "${app.tracking.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach((orderNumber, emitters) ->
+                emitters.forEach(emitter -> send(orderNumber, emitter, SseEmitter.event().comment("keep-alive"))));
+    }
+
+    private void deliver(OrderTrackingEvent event) {
+        Set<SseEmitter> emitters = subscribers.get(event.orderNumber());
+        if (emitters == null) {
+            return;
+        }
+        emitters.forEach(emitter -> send(event.orderNumber(), emitter, SseEmitter.event()
+                .name(EVENT_TRACKING)
+                .data(event, MediaType.APPLICATION_JSON)));
+    }
+
+    private void send(String orderNumber, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; completing triggers the cleanup callback
+            remove(orderNumber, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(String orderNumber, SseEmitter emitter) {
+        subscribers.computeIfPresent(orderNumber, (k, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
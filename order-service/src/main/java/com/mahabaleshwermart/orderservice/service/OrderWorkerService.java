@@ -0,0 +1,260 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.Cursor;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.SortColumn;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.WorkItem;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import com.mahabaleshwermart.orderservice.shard.ShardContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order Worker Service
+ * Background sweeps over orders that need attention: orders waiting for action, orders past their
+ * estimated delivery, and orders due for delivery today.
+ * Each sweep is split into one partition per order status and shard. Partitions run in parallel, each under a
+ * {@link WorkerLease} so that only one instance works on it, and stream their orders in keyset chunks
+ * instead of loading the whole set. Every run records its duration, scanned and flagged counts per partition.
+ */
+@Slf4j
+@Service
+public class OrderWorkerService {
+
+    private static final List<Order.OrderStatus> ACTION_REQUIRED_STATUSES = List.of(
+            Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED, Order.OrderStatus.PROCESSING);
+    private static final List<Order.OrderStatus> OPEN_STATUSES = List.of(
+            Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED, Order.OrderStatus.PROCESSING,
+            Order.OrderStatus.PACKED, Order.OrderStatus.SHIPPED, Order.OrderStatus.OUT_FOR_DELIVERY);
+    private static final List<Order.OrderStatus> IN_TRANSIT_STATUSES = List.of(
+            Order.OrderStatus.SHIPPED, Order.OrderStatus.OUT_FOR_DELIVERY);
+
+    private static final String CHECKPOINT_PREFIX = "order-worker:checkpoint:";
+    private static final Duration CHECKPOINT_TTL = Duration.ofDays(2);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, AtomicLong> lastRunGauges = new ConcurrentHashMap<>();
+
+    private final OrderWorkItemRepository workItemRepository;
+    private final WorkerLease workerLease;
+    private final NotificationService notificationService;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderShardRouter shardRouter;
+    private final int chunkSize;
+    private final Duration leaseTtl;
+    private final Duration actionRequiredAfter;
+
+    public OrderWorkerService(OrderWorkItemRepository workItemRepository,
+                              WorkerLease workerLease,
+                              NotificationService notificationService,
+                              StringRedisTemplate redisTemplate,
+                              MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager,
+                              OrderShardRouter shardRouter,
+                              @Value("${app.order.workers.chunk-size:500}") int chunkSize,
+                              @Value("${app.order.workers.lease-ttl-ms:120000}") long leaseTtlMillis,
+                              @Value("${app.order.auto-confirm-timeout:1800}") long autoConfirmTimeoutSeconds) {
+        this.workItemRepository = workItemRepository;
+        this.workerLease = workerLease;
+        this.notificationService = notificationService;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.chunkSize = chunkSize;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+        this.actionRequiredAfter = Duration.ofSeconds(autoConfirmTimeoutSeconds);
+    }
+
+    /**
+     * Processes one chunk of a partition
+     */
+    @FunctionalInterface
+    interface ChunkHandler {
+        /**
+         * @return how many orders of the chunk were flagged or acted on
+         */
+        int handle(List<WorkItem> chunk);
+    }
+
+    /**
+     * A sweep over orders of the given statuses whose sort column lies in [{@code from}, {@code to}).
+     * With a {@code runKey}, progress is checkpointed so a run that is interrupted, or repeated with the
+     * same key, continues after the last processed order instead of acting on orders twice.
+     */
+    record Job(String name, List<Order.OrderStatus> partitions, SortColumn sort,
+               LocalDateTime from, LocalDateTime to, String runKey, ChunkHandler handler) {
+    }
+
+    /**
+     * Count orders left waiting longer than the auto-confirm timeout in each action-required status
+     */
+    @Scheduled(fixedDelayString = "${app.order.workers.action-required-interval-ms:300000}")
+    public void sweepOrdersRequiringAction() {
+        LocalDateTime waitingSince = LocalDateTime.now().minus(actionRequiredAfter);
+        run(new Job("action-required", ACTION_REQUIRED_STATUSES, SortColumn.CREATED_AT, null, waitingSince, null,
+                List::size));
+    }
+
+    /**
+     * Count orders still open after their estimated delivery
+     */
+    @Scheduled(fixedDelayString = "${app.order.workers.overdue-interval-ms:900000}")
+    public void sweepOverdueOrders() {
+        run(new Job("overdue", OPEN_STATUSES, SortColumn.ESTIMATED_DELIVERY, null, LocalDateTime.now(), null,
+                List::size));
+    }
+
+    /**
+     * Remind customers whose order is due today; checkpointed per day so each order is reminded once
+     */
+    @Scheduled(cron = "${app.order.workers.delivery-today-cron:0 0 8 * * *}")
+    public void sweepDeliveriesDueToday() {
+        LocalDate today = LocalDate.now();
+        run(new Job("delivery-today", IN_TRANSIT_STATUSES, SortColumn.ESTIMATED_DELIVERY,
+                today.atStartOfDay(), today.plusDays(1).atStartOfDay(), today.toString(),
+                chunk -> {
+                    chunk.forEach(notificationService::sendDeliveryReminder);
+                    return chunk.size();
+                }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        List<Callable<Void>> partitions = new ArrayList<>();
+        for (int i = 0; i < shardRouter.shardCount(); i++) {
+            int shard = i;
+            for (Order.OrderStatus status : job.partitions()) {
+                partitions.add(() -> ShardContext.callOn(shard, () -> {
+                    runPartition(job, shard, status);
+                    return null;
+                }));
+            }
+        }
+        try {
+            executor.invokeAll(partitions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runPartition(Job job, int shard, Order.OrderStatus partition) {
+        String leaseName = shardRouter.qualify("order-worker:" + job.name() + ":" + partition, shard);
+        Optional<String> token = workerLease.acquire(leaseName, leaseTtl);
+        if (token.isEmpty()) {
+            log.debug("Skipping {} partition {}: lease held elsewhere", job.name(), partition);
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        long scanned = 0;
+        long flagged = 0;
+        try {
+            Cursor cursor = loadCheckpoint(job, shard, partition);
+            while (true) {
+                List<WorkItem> chunk = workItemRepository.nextChunk(partition, job.sort(), job.from(), job.to(),
+                        cursor, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                Integer handled = transactionTemplate.execute(status -> job.handler().handle(chunk));
+                flagged += handled != null ? handled : 0;
+                scanned += chunk.size();
+                cursor = chunk.get(chunk.size() - 1).cursor(job.sort());
+                saveCheckpoint(job, shard, partition, cursor);
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                if (!workerLease.renew(leaseName, token.get(), leaseTtl)) {
+                    outcome = "lease-lost";
+                    log.warn("Lost lease for {} partition {} after {} orders", job.name(), partition, scanned);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            outcome = "failed";
+            log.error("Order worker {} failed on shard {} partition {} after {} orders", job.name(), shard, partition, scanned, e);
+        } finally {
+            workerLease.release(leaseName, token.get());
+            sample.stop(meterRegistry.timer("order.worker.run",
+                    "job", job.name(), "shard", String.valueOf(shard), "partition", partition.name(), "outcome", outcome));
+        }
+
+        lastRun(job, shard, partition, "scanned").set(scanned);
+        lastRun(job, shard, partition, "flagged").set(flagged);
+        if (flagged > 0) {
+            log.info("Order worker {} shard {} partition {}: {} of {} orders flagged",
+                    job.name(), shard, partition, flagged, scanned);
+        }
+    }
+
+    private AtomicLong lastRun(Job job, int shard, Order.OrderStatus partition, String count) {
+        return lastRunGauges.computeIfAbsent(job.name() + ":" + shard + ":" + partition + ":" + count, key -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("order.worker.last.run." + count, value, AtomicLong::get)
+                    .description("Orders " + count + " by the last completed run of the worker partition")
+                    .tags("job", job.name(), "shard", String.valueOf(shard), "partition", partition.name())
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    private Cursor loadCheckpoint(Job job, int shard, Order.OrderStatus partition) {
+        if (job.runKey() == null) {
+            return null;
+        }
+        try {
+            String value = redisTemplate.opsForValue().get(checkpointKey(job, shard, partition));
+            if (value == null) {
+                return null;
+            }
+            int separator = value.indexOf('|');
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (DataAccessException e) {
+            // Without the checkpoint the run could act on orders twice, so do not start it
+            throw new IllegalStateException("Unable to read checkpoint for " + job.name() + " " + partition, e);
+        }
+    }
+
+    private void saveCheckpoint(Job job, int shard, Order.OrderStatus partition, Cursor cursor) {
+        if (job.runKey() != null) {
+            redisTemplate.opsForValue().set(checkpointKey(job, shard, partition),
+                    cursor.sortValue() + "|" + cursor.id(), CHECKPOINT_TTL);
+        }
+    }
+
+    private String checkpointKey(Job job, int shard, Order.OrderStatus partition) {
+        return shardRouter.qualify(CHECKPOINT_PREFIX + job.name() + ":" + partition + ":" + job.runKey(), shard);
+    }
+}
@@ -0,0 +1,214 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.orderservice.dto.SalesReportDto;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderItem;
+import com.mahabaleshwermart.orderservice.entity.OrderSalesRollup.Dimension;
+import com.mahabaleshwermart.orderservice.event.OrderLifecycleEvent;
+import com.mahabaleshwermart.orderservice.repository.OrderSalesRollupRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSalesRollupRepository.DailyTotals;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sales Rollup Service
+ * Keeps daily sales rollups by status, category and payment method current from order lifecycle events,
+ * and answers admin reports by summing buckets. Updates share the order's transaction, so every shard keeps
+ * the rollups of its own orders and reports add up the shards.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final long MAX_REPORT_DAYS = 3660;
+
+    private final OrderSalesRollupRepository rollupRepository;
+    private final OrderShardRouter shardRouter;
+
+    public enum GroupBy {
+        STATUS, CATEGORY, PAYMENT_METHOD, DAY, MONTH
+    }
+
+    @EventListener
+    public void on(OrderLifecycleEvent event) {
+        Order order = event.order();
+        LocalDate day = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+        BigDecimal total = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+
+        switch (event.type()) {
+            case PLACED -> {
+                increment(day, Dimension.STATUS, statusOf(order.getOrderStatus()), 1, order.getTotalQuantity(), total);
+                applySales(order, day, 1);
+            }
+            case CANCELLED -> {
+                moveStatus(event, day, total);
+                applySales(order, day, -1);
+            }
+            case STATUS_CHANGED -> moveStatus(event, day, total);
+            case REFUNDED -> {
+                moveStatus(event, day, total);
+                // Cancelled orders already left the sales figures; a refund cannot be attributed to categories
+                if (event.previousStatus() != Order.OrderStatus.CANCELLED && event.amount() != null) {
+                    increment(day, Dimension.PAYMENT_METHOD, creditedPaymentMethodOf(order), 0, 0, event.amount().negate());
+                }
+            }
+        }
+    }
+
+    /**
+     * Report over an inclusive date range (days the orders were placed)
+     */
+    public SalesReportDto getReport(LocalDate from, LocalDate to, GroupBy groupBy) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new BusinessException("Invalid report range: from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_REPORT_DAYS) {
+            throw new BusinessException("Report range must not exceed " + MAX_REPORT_DAYS + " days");
+        }
+
+        List<SalesReportDto.Row> rows = switch (groupBy) {
+            case STATUS -> gather(() -> byValue(Dimension.STATUS, from, to), false);
+            case CATEGORY -> gather(() -> byValue(Dimension.CATEGORY, from, to), false);
+            case PAYMENT_METHOD -> gather(() -> byValue(Dimension.PAYMENT_METHOD, from, to), false);
+            case DAY -> gather(() -> rollupRepository.sumByDay(Dimension.PAYMENT_METHOD, from, to).stream()
+                    .map(d -> row(d.getBucketDate().toString(), d.getOrders(), d.getQuantity(), d.getAmount()))
+                    .toList(), true);
+            case MONTH -> gather(() -> byMonth(rollupRepository.sumByDay(Dimension.PAYMENT_METHOD, from, to)), true);
+        };
+
+        // Each order sits in exactly one status and one payment method bucket; categories can overlap
+        List<SalesReportDto.Row> totalsSource = groupBy == GroupBy.CATEGORY
+                ? gather(() -> byValue(Dimension.PAYMENT_METHOD, from, to), false)
+                : rows;
+        return SalesReportDto.builder()
+                .groupBy(groupBy.name())
+                .from(from)
+                .to(to)
+                .totalOrders(totalsSource.stream().mapToLong(SalesReportDto.Row::getOrders).sum())
+                .totalQuantity(totalsSource.stream().mapToLong(SalesReportDto.Row::getQuantity).sum())
+                .totalAmount(totalsSource.stream().map(SalesReportDto.Row::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .rows(rows)
+                .build();
+    }
+
+    private void moveStatus(OrderLifecycleEvent event, LocalDate day, BigDecimal total) {
+        Order order = event.order();
+        if (event.previousStatus() == null || event.previousStatus() == order.getOrderStatus()) {
+            return;
+        }
+        increment(day, Dimension.STATUS, statusOf(event.previousStatus()), -1, -order.getTotalQuantity(), total.negate());
+        increment(day, Dimension.STATUS, statusOf(order.getOrderStatus()), 1, order.getTotalQuantity(), total);
+    }
+
+    /**
+     * Add ({@code sign} 1) or remove ({@code sign} -1) an order from the category and payment method sales
+     */
+    private void applySales(Order order, LocalDate day, int sign) {
+        BigDecimal total = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        increment(day, Dimension.PAYMENT_METHOD, creditedPaymentMethodOf(order), sign, (long) sign * order.getTotalQuantity(),
+                sign > 0 ? total : total.negate());
+
+        if (order.getItems() == null) {
+            return;
+        }
+        Map<String, long[]> quantities = new LinkedHashMap<>();
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        for (OrderItem item : order.getItems()) {
+            String category = item.getProductCategory() != null ? item.getProductCategory() : UNKNOWN;
+            quantities.computeIfAbsent(category, c -> new long[1])[0] += item.getQuantity();
+            amounts.merge(category, item.getTotalPrice() != null ? item.getTotalPrice() : BigDecimal.ZERO, BigDecimal::add);
+        }
+        quantities.forEach((category, quantity) -> {
+            BigDecimal amount = amounts.get(category);
+            increment(day, Dimension.CATEGORY, category, sign, sign * quantity[0], sign > 0 ? amount : amount.negate());
+        });
+    }
+
+    private void increment(LocalDate day, Dimension dimension, String value, long orders, long quantity, BigDecimal amount) {
+        rollupRepository.increment(day, dimension.name(), value, orders, quantity, amount);
+    }
+
+    /**
+     * Run the query on every shard and add up the rows with the same key
+     *
+     * @param sortByKey order the merged rows by key, for date keys; otherwise rows keep the order they were first seen in
+     */
+    private List<SalesReportDto.Row> gather(Supplier<List<SalesReportDto.Row>> query, boolean sortByKey) {
+        List<List<SalesReportDto.Row>> perShard = shardRouter.scatter(shard -> query.get());
+        if (perShard.size() == 1) {
+            return perShard.get(0);
+        }
+        Map<String, SalesReportDto.Row> merged = new LinkedHashMap<>();
+        for (List<SalesReportDto.Row> rows : perShard) {
+            for (SalesReportDto.Row r : rows) {
+                merged.merge(r.getKey(), r, (a, b) -> row(a.getKey(), a.getOrders() + b.getOrders(),
+                        a.getQuantity() + b.getQuantity(), a.getAmount().add(b.getAmount())));
+            }
+        }
+        return sortByKey
+                ? merged.values().stream().sorted(Comparator.comparing(SalesReportDto.Row::getKey)).toList()
+                : List.copyOf(merged.values());
+    }
+
+    private List<SalesReportDto.Row> byValue(Dimension dimension, LocalDate from, LocalDate to) {
+        return rollupRepository.sumByValue(dimension, from, to).stream()
+                .map(t -> row(t.getDimensionValue(), t.getOrders(), t.getQuantity(), t.getAmount()))
+                .toList();
+    }
+
+    private List<SalesReportDto.Row> byMonth(List<DailyTotals> days) {
+        Map<YearMonth, SalesReportDto.Row> months = new LinkedHashMap<>();
+        for (DailyTotals d : days) {
+            months.merge(YearMonth.from(d.getBucketDate()),
+                    row(null, d.getOrders(), d.getQuantity(), d.getAmount()),
+                    (a, b) -> row(null, a.getOrders() + b.getOrders(), a.getQuantity() + b.getQuantity(),
+                            a.getAmount().add(b.getAmount())));
+        }
+        return months.entrySet().stream()
+                .map(e -> row(e.getKey().toString(), e.getValue().getOrders(), e.getValue().getQuantity(), e.getValue().getAmount()))
+                .toList();
+    }
+
+    private static SalesReportDto.Row row(String key, long orders, long quantity, BigDecimal amount) {
+        return SalesReportDto.Row.builder()
+                .key(key)
+                .orders(orders)
+                .quantity(quantity)
+                .amount(amount != null ? amount : BigDecimal.ZERO)
+                .build();
+    }
+
+    private static String statusOf(Order.OrderStatus status) {
+        return status != null ? status.name() : UNKNOWN;
+    }
+
+    /**
+     * The method the order's sales were credited to when it was placed; the payment method can change afterwards
+     * when the customer retries with another one
+     */
+    private static String creditedPaymentMethodOf(Order order) {
+        return order.getSalesPaymentMethod() != null ? order.getSalesPaymentMethod() : paymentMethodOf(order);
+    }
+
+    private static String paymentMethodOf(Order order) {
+        return order.getPayment() != null && order.getPayment().getPaymentMethod() != null
+                ? order.getPayment().getPaymentMethod().name()
+                : UNKNOWN;
+    }
+}
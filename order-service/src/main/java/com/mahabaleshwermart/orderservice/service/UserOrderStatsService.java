@@ -0,0 +1,130 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate;
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate.PurgeStep;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.UserOrderStats;
+import com.mahabaleshwermart.orderservice.event.OrderLifecycleEvent;
+import com.mahabaleshwermart.orderservice.repository.UserOrderStatsRepository;
+import com.mahabaleshwermart.orderservice.repository.UserOrderStatsRepository.WindowTotals;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * User Order Stats Service
+ * Maintains the per-user statistics read model from order lifecycle events and serves it.
+ * Updates run in the transaction that changed the order, so statistics never disagree with committed orders.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserOrderStatsService {
+
+    private final UserOrderStatsRepository statsRepository;
+    private final DataSource dataSource;
+    private final OrderShardRouter shardRouter;
+
+    /** Daily buckets are kept for this many days; longer windows fall back to lifetime totals */
+    @Value("${app.order.stats.max-window-days:365}")
+    private int maxWindowDays;
+
+    @EventListener
+    public void on(OrderLifecycleEvent event) {
+        Order order = event.order();
+        BigDecimal amount = event.amount() != null ? event.amount() : BigDecimal.ZERO;
+        long orders = 0;
+        long cancelled = 0;
+        BigDecimal spent;
+        switch (event.type()) {
+            case PLACED -> {
+                orders = 1;
+                spent = amount;
+            }
+            case CANCELLED -> {
+                cancelled = 1;
+                spent = amount.negate();
+            }
+            case REFUNDED -> {
+                // A cancelled order was already taken out of the spend when it was cancelled
+                if (order.getOrderStatus() == Order.OrderStatus.CANCELLED) {
+                    return;
+                }
+                spent = amount.negate();
+            }
+            default -> {
+                return;
+            }
+        }
+
+        LocalDateTime placedAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        statsRepository.increment(order.getUserId(), orders, cancelled, spent,
+                event.type() == OrderLifecycleEvent.Type.PLACED ? placedAt : null, LocalDateTime.now());
+        // Adjustments land in the bucket of the day the order was placed, so windows mean "orders placed in the last N days"
+        statsRepository.incrementBucket(order.getUserId(), placedAt.toLocalDate(), orders, cancelled, spent);
+    }
+
+    /**
+     * Statistics for orders placed in the last {@code days} days; lifetime totals when the window
+     * is longer than the bucket retention
+     */
+    @Transactional(readOnly = true)
+    public OrderStatistics getStatistics(String userId, int days) {
+        long totalOrders;
+        long cancelledOrders;
+        BigDecimal totalSpent;
+        if (days > 0 && days <= maxWindowDays) {
+            WindowTotals totals = statsRepository.sumBucketsSince(userId, LocalDate.now().minusDays(days - 1L));
+            totalOrders = totals.getOrders();
+            cancelledOrders = totals.getCancelledOrders();
+            totalSpent = totals.getSpent();
+        } else {
+            Optional<UserOrderStats> lifetime = statsRepository.findById(userId);
+            totalOrders = lifetime.map(UserOrderStats::getTotalOrders).orElse(0L);
+            cancelledOrders = lifetime.map(UserOrderStats::getCancelledOrders).orElse(0L);
+            totalSpent = lifetime.map(UserOrderStats::getTotalSpent).orElse(BigDecimal.ZERO);
+        }
+
+        long countedOrders = totalOrders - cancelledOrders;
+        BigDecimal average = countedOrders > 0
+                ? totalSpent.divide(BigDecimal.valueOf(countedOrders), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        return OrderStatistics.builder()
+                .days(days)
+                .totalOrders(totalOrders)
+                .cancelledOrders(cancelledOrders)
+                .totalSpent(totalSpent)
+                .averageOrderValue(average)
+                .build();
+    }
+
+    /**
+     * Drop daily buckets that no longer fall in any served window
+     */
+    @Scheduled(cron = "${app.order.stats.retention-cron:0 30 4 * * *}")
+    public void purgeExpiredBuckets() {
+        LocalDate expiredBefore = LocalDate.now().minusDays(maxWindowDays);
+        shardRouter.forEachShard("User order stats bucket purge", shard -> {
+            Map<String, Long> purged = new ChunkedPurgeTemplate(dataSource,
+                    shardRouter.qualify("order-service.stats-retention", shard), 500, 100)
+                    .execute(List.of(new PurgeStep("expired-user-order-stats-buckets",
+                            "DELETE FROM user_order_stats_buckets WHERE bucket_date < ? ORDER BY bucket_date LIMIT ?",
+                            expiredBefore)));
+            log.info("User order stats bucket purge completed on shard {}: {}", shard, purged);
+        });
+    }
+}
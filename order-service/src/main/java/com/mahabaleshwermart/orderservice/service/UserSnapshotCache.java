@@ -0,0 +1,113 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.events.UserProfileChangedEvent;
+import com.mahabaleshwermart.orderservice.dto.ApiResponse;
+import com.mahabaleshwermart.orderservice.external.UserDto;
+import com.mahabaleshwermart.orderservice.external.UserServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User Snapshot Cache
+ * Keeps the name, email and phone of recent customers in memory so checkout and payment do not call
+ * user-service for every order. Entries are replaced by the profile change events user-service publishes;
+ * the TTL only bounds how long a missed event can leave a snapshot stale. When user-service cannot be
+ * reached, an expired snapshot is still served. Every write takes a version from a per-cache counter, and a
+ * fetched snapshot is dropped when an event replaced the entry while the fetch was in flight.
+ */
+@Slf4j
+@Component
+public class UserSnapshotCache {
+
+    /**
+     * The profile fields orders copy
+     */
+    public record UserSnapshot(String id, String name, String email, String phone) {
+    }
+
+    private record Entry(UserSnapshot snapshot, long loadedAt, long version) {
+    }
+
+    private final UserServiceClient userServiceClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Entry> snapshots;
+    private final AtomicLong versions = new AtomicLong();
+    private final long ttlMillis;
+
+    public UserSnapshotCache(UserServiceClient userServiceClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.user-snapshot.max-entries:50000}") int maxEntries,
+                             @Value("${app.user-snapshot.ttl-minutes:60}") long ttlMinutes) {
+        this.userServiceClient = userServiceClient;
+        this.meterRegistry = meterRegistry;
+        this.ttlMillis = Duration.ofMinutes(ttlMinutes).toMillis();
+        this.snapshots = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        meterRegistry.gaugeMapSize("user.snapshot.cache.size", Tags.empty(), snapshots);
+    }
+
+    /**
+     * The user's snapshot, from memory when fresh, otherwise from user-service
+     *
+     * @return empty when the user is unknown and user-service gave no answer
+     */
+    public Optional<UserSnapshot> get(String userId) {
+        Entry cached = snapshots.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < ttlMillis) {
+            meterRegistry.counter("user.snapshot.cache", "result", "hit").increment();
+            return Optional.of(cached.snapshot());
+        }
+        long fetchVersion = versions.get();
+        try {
+            ApiResponse<UserDto> response = userServiceClient.getUserById(userId);
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                UserDto user = response.getData();
+                Entry fetched = new Entry(new UserSnapshot(userId, user.name(), user.email(), user.phone()),
+                        System.currentTimeMillis(), fetchVersion);
+                Entry stored = snapshots.compute(userId, (id, current) ->
+                        current != null && current.version() > fetchVersion ? current : fetched);
+                meterRegistry.counter("user.snapshot.cache", "result", "miss").increment();
+                return Optional.of(stored.snapshot());
+            }
+            log.warn("User service returned empty or unsuccessful response for user: {}", userId);
+        } catch (Exception e) {
+            log.warn("Unable to fetch user {} from user service: {}", userId, e.getMessage());
+        }
+        if (cached != null) {
+            meterRegistry.counter("user.snapshot.cache", "result", "stale").increment();
+            return Optional.of(cached.snapshot());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Replace the snapshot of a changed profile. Every instance keeps its own cache, so each one
+     * consumes all events in a group named after the instance, starting from the latest offset.
+     * Events of one user arrive in order, so the latest one always wins.
+     */
+    @KafkaListener(topics = UserProfileChangedEvent.TOPIC,
+            groupId = "${app.user-snapshot.group-id:order-service-user-snapshots-${HOSTNAME:localhost}}",
+            properties = "auto.offset.reset=latest")
+    public void onProfileChanged(@Payload UserProfileChangedEvent event) {
+        snapshots.put(event.getUserId(), new Entry(
+                new UserSnapshot(event.getUserId(), event.getName(), event.getEmail(), event.getPhone()),
+                System.currentTimeMillis(), versions.incrementAndGet()));
+        log.debug("User snapshot refreshed for user: {}", event.getUserId());
+    }
+}
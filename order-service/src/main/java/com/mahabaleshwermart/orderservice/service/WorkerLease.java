@@ -0,0 +1,78 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Worker Lease
+ * Time-limited exclusive ownership of a named unit of background work, held in Redis, so that only one
+ * instance works on it at a time. A holder that dies loses the lease when it expires; a live holder renews
+ * it while working. Renew and release only act on the caller's own lease.
+ * When Redis is unavailable no lease is granted and the work is skipped for that run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkerLease {
+
+    private static final String KEY_PREFIX = "worker-lease:";
+
+    private static final DefaultRedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Try to take the lease
+     *
+     * @return the holder token, empty when another holder has it
+     */
+    public Optional<String> acquire(String name, Duration ttl) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + name, token, ttl);
+            return Boolean.TRUE.equals(acquired) ? Optional.of(token) : Optional.empty();
+        } catch (DataAccessException e) {
+            log.warn("Unable to acquire worker lease {}: {}", name, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Extend a held lease
+     *
+     * @return false when the lease was lost, in which case the caller must stop working
+     */
+    public boolean renew(String name, String token, Duration ttl) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW, List.of(KEY_PREFIX + name), token, String.valueOf(ttl.toMillis()));
+            return renewed != null && renewed == 1L;
+        } catch (DataAccessException e) {
+            log.warn("Unable to renew worker lease {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    public void release(String name, String token) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(KEY_PREFIX + name), token);
+        } catch (DataAccessException e) {
+            // Expires on its own
+            log.warn("Unable to release worker lease {}: {}", name, e.getMessage());
+        }
+    }
+}
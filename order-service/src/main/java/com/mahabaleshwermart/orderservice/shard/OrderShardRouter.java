@@ -0,0 +1,226 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import com.mahabaleshwermart.common.id.BusinessNumbers;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Decides which shard holds an order.
+ * A user's orders live on the shard the user id hashes to. Order numbers end in their shard number, so a
+ * lookup by order number goes straight to one shard; a lookup by order id asks every shard once and
+ * remembers the answer. With sharding disabled there is a single shard 0 and nothing is looked up.
+ */
+@Slf4j
+@Component
+public class OrderShardRouter {
+
+    private static final String SHARD_SEPARATOR = "-";
+    private static final int UNSHARDED_NUMBER_PARTS = 3;
+
+    private final List<DataSource> shards;
+    private final ShardRing ring;
+    private final Map<String, Integer> locations;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public OrderShardRouter(ShardingProperties properties, ObjectProvider<ShardRoutingDataSource> routingDataSource) {
+        ShardRoutingDataSource routing = routingDataSource.getIfAvailable();
+        this.shards = routing != null ? routing.shards() : List.of();
+        this.ring = new ShardRing(shardCount(), properties.getVirtualNodes());
+        int cacheSize = properties.getLocationCacheSize();
+        this.locations = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        if (isSharded()) {
+            log.info("Order sharding enabled with {} shards", shards.size());
+        }
+    }
+
+    public int shardCount() {
+        return Math.max(1, shards.size());
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    public int shardFor(ShardKey.Type type, String key) {
+        return switch (type) {
+            case USER_ID -> shardForUser(key);
+            case ORDER_ID -> shardForOrder(key);
+            case ORDER_NUMBER -> shardForOrderNumber(key);
+        };
+    }
+
+    public int shardForUser(String userId) {
+        return isSharded() && userId != null ? ring.shardFor(userId) : 0;
+    }
+
+    /**
+     * Order numbers from before sharding carry no shard and live on shard 0
+     */
+    public int shardForOrderNumber(String orderNumber) {
+        if (!isSharded() || orderNumber == null) {
+            return 0;
+        }
+        String[] parts = orderNumber.split(SHARD_SEPARATOR);
+        if (parts.length != UNSHARDED_NUMBER_PARTS + 1) {
+            return 0;
+        }
+        try {
+            int shard = Integer.parseInt(parts[UNSHARDED_NUMBER_PARTS]);
+            return shard >= 0 && shard < shardCount() ? shard : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Shard of a live or archived order; shard 0 when no shard has it, so the caller reports it as missing
+     */
+    public int shardForOrder(String orderId) {
+        if (!isSharded() || orderId == null) {
+            return 0;
+        }
+        return groupOrdersByShard(List.of(orderId)).keySet().iterator().next();
+    }
+
+    /**
+     * Group order ids by the shard holding them; ids no shard has are put with shard 0.
+     * Ids not located before are looked up with one query per shard.
+     */
+    public Map<Integer, List<String>> groupOrdersByShard(Collection<String> orderIds) {
+        if (!isSharded()) {
+            return orderIds.isEmpty() ? Map.of() : Map.of(0, List.copyOf(orderIds));
+        }
+        Map<String, Integer> shardOf = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String orderId : orderIds) {
+            Integer known = locations.get(orderId);
+            if (known != null) {
+                shardOf.put(orderId, known);
+            } else {
+                unknown.add(orderId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            String placeholders = String.join(",", Collections.nCopies(unknown.size(), "?"));
+            String sql = "SELECT id FROM orders WHERE id IN (" + placeholders + ") " +
+                         "UNION SELECT id FROM orders_archive WHERE id IN (" + placeholders + ")";
+            List<String> args = new ArrayList<>(unknown);
+            args.addAll(unknown);
+            List<List<String>> found = scatter(shard ->
+                    new JdbcTemplate(shards.get(shard)).queryForList(sql, String.class, args.toArray()));
+            for (int shard = 0; shard < found.size(); shard++) {
+                for (String orderId : found.get(shard)) {
+                    shardOf.put(orderId, shard);
+                    locations.put(orderId, shard);
+                }
+            }
+        }
+        Map<Integer, List<String>> groups = new TreeMap<>();
+        for (String orderId : orderIds) {
+            groups.computeIfAbsent(shardOf.getOrDefault(orderId, 0), k -> new ArrayList<>()).add(orderId);
+        }
+        return groups;
+    }
+
+    /**
+     * Record where a new order was written, saving the lookup on its next access by id
+     */
+    public void remember(String orderId, int shard) {
+        if (isSharded()) {
+            locations.put(orderId, shard);
+        }
+    }
+
+    /**
+     * A new order number that encodes {@code shard}
+     */
+    public String newOrderNumber(int shard) {
+        String orderNumber = BusinessNumbers.orderNumber();
+        return isSharded() ? orderNumber + SHARD_SEPARATOR + shard : orderNumber;
+    }
+
+    /**
+     * Name of a per-shard resource such as a worker lease; unchanged without sharding
+     */
+    public String qualify(String name, int shard) {
+        return isSharded() ? name + "@shard-" + shard : name;
+    }
+
+    /**
+     * Run {@code task} on every shard in parallel and return the results by shard number.
+     * Each task runs on its own thread, so it must open its own transaction if it needs one.
+     */
+    public <T> List<T> scatter(IntFunction<T> task) {
+        if (!isSharded()) {
+            return List.of(ShardContext.callOn(0, () -> task.apply(0)));
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(executor.submit(() -> ShardContext.callOn(shard, () -> task.apply(shard))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying order shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Order shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Run a background job once per shard, one shard after the other; a failing shard does not stop the rest
+     */
+    public void forEachShard(String job, IntConsumer task) {
+        for (int i = 0; i < shardCount(); i++) {
+            int shard = i;
+            try {
+                ShardContext.callOn(shard, () -> {
+                    task.accept(shard);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.error("{} failed on shard {}", job, shard, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
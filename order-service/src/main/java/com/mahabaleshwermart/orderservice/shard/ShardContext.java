@@ -0,0 +1,48 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread works on; read by {@link ShardRoutingDataSource} when a connection is opened.
+ * Unset means the default shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run {@code action} on {@code shard}, restoring the previous shard afterwards
+     */
+    public static <T> T callOn(int shard, Supplier<T> action) {
+        Integer previous = enter(shard);
+        try {
+            return action.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * Switch to {@code shard}; returns the shard to hand back to {@link #exit}
+     */
+    static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    static void exit(Integer previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
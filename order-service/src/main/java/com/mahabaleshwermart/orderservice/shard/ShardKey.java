@@ -0,0 +1,21 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter that decides which shard a service call runs on.
+ * {@link ShardRoutingAspect} resolves the shard before any transaction of the call begins.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+    Type value();
+
+    enum Type {
+        USER_ID, ORDER_ID, ORDER_NUMBER
+    }
+}
@@ -0,0 +1,58 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Runs calls with a {@link ShardKey} parameter on the shard of that key.
+ * Ordered ahead of the transaction and cache interceptors, so the shard is set before a transaction opens.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ShardRoutingAspect {
+
+    private final OrderShardRouter router;
+
+    @Around("execution(* com.mahabaleshwermart.orderservice..*(.., @com.mahabaleshwermart.orderservice.shard.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint pjp) throws Throwable {
+        if (!router.isSharded()) {
+            return pjp.proceed();
+        }
+        Annotation[][] annotations = ((MethodSignature) pjp.getSignature()).getMethod().getParameterAnnotations();
+        Object[] args = pjp.getArgs();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey key && args[i] instanceof String value) {
+                    return proceedOn(pjp, router.shardFor(key.value(), value));
+                }
+            }
+        }
+        return pjp.proceed();
+    }
+
+    private Object proceedOn(ProceedingJoinPoint pjp, int shard) throws Throwable {
+        Integer current = ShardContext.current();
+        if (current != null && current != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The open transaction already holds a connection to another shard
+            throw new IllegalStateException(pjp.getSignature().toShortString() + " needs shard " + shard
+                    + " inside a transaction on shard " + current);
+        }
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return pjp.proceed();
+        } finally {
+            ShardContext.exit(previous);
+        }
+    }
+}
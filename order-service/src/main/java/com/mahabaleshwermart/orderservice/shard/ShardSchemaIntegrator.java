@@ -0,0 +1,46 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.Map;
+
+/**
+ * Applies the schema action Hibernate takes on startup ({@code spring.jpa.hibernate.ddl-auto}) to every shard.
+ * Hibernate itself only reaches the default shard 0, so the other shards are migrated here, each with its
+ * connections routed through {@link ShardContext}. A delayed drop ({@code create-drop}) is left to shard 0.
+ */
+@Slf4j
+public class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+
+    public ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        SessionFactoryServiceRegistry serviceRegistry = (SessionFactoryServiceRegistry) sessionFactory.getServiceRegistry();
+        Map<String, Object> settings = serviceRegistry.requireService(ConfigurationService.class).getSettings();
+        for (int i = 1; i < shardCount; i++) {
+            int shard = i;
+            log.info("Applying order schema to shard {}", shard);
+            ShardContext.callOn(shard, () -> {
+                SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings, dropAction -> {
+                });
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+    /** Points per shard on the hash ring; more points spread users more evenly */
+    private int virtualNodes = 128;
+    /** Order id to shard locations remembered per instance */
+    private int locationCacheSize = 100_000;
+    /** Shard 0 first; shard numbers are list positions and must never be reordered */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 20;
+    }
+}
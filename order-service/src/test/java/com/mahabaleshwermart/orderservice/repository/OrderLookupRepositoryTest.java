@@ -0,0 +1,122 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.common.id.IdGeneratorAutoConfiguration;
+import com.mahabaleshwermart.orderservice.dto.OrderSummaryDto;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderAddress;
+import com.mahabaleshwermart.orderservice.entity.OrderPayment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prefix search pages through the newest matches of every identifier, each order once, although every
+ * branch of the union only reads the rows the requested page can need.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "app.id.worker-id=0"
+})
+@ContextConfiguration(classes = OrderLookupRepositoryTest.JpaConfiguration.class)
+@ImportAutoConfiguration(IdGeneratorAutoConfiguration.class)
+@Import(OrderLookupRepository.class)
+class OrderLookupRepositoryTest {
+
+    @SpringBootConfiguration
+    @EntityScan("com.mahabaleshwermart.orderservice.entity")
+    @EnableJpaRepositories("com.mahabaleshwermart.orderservice.repository")
+    @EnableJpaAuditing
+    static class JpaConfiguration {
+    }
+
+    @Autowired
+    private OrderLookupRepository lookup;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void setUp() {
+        // Hours ago decide the order: matches by order number, email and tracking number interleave
+        save("ABC-1", "one@example.com", null, 10);
+        save("MM-2", "ABCfarm@example.com", null, 9);
+        save("ABC-3", "three@example.com", null, 8);
+        save("ABC-4", "four@example.com", "ABC-T4", 7);
+        save("MM-5", "ABCfarm@example.com", null, 6);
+        save("ABC-6", "six@example.com", null, 5);
+        save("MM-7", "seven@example.com", "TRK-7", 4);
+        save("ABC-8", "eight@example.com", null, 3);
+    }
+
+    @Test
+    void pagesThroughEveryMatchNewestFirst() {
+        List<String> paged = new ArrayList<>();
+        for (int offset = 0; offset < 9; offset += 3) {
+            lookup.findByPrefix("ABC", offset, 3).forEach(summary -> paged.add(summary.getOrderNumber()));
+        }
+
+        assertThat(paged).containsExactly("ABC-8", "ABC-6", "MM-5", "ABC-4", "ABC-3", "MM-2", "ABC-1");
+        assertThat(lookup.countByPrefix("ABC")).isEqualTo(7);
+    }
+
+    @Test
+    void orderMatchingSeveralIdentifiersIsListedOnce() {
+        List<OrderSummaryDto> page = lookup.findByPrefix("ABC-", 2, 2);
+
+        assertThat(page).extracting(OrderSummaryDto::getOrderNumber).containsExactly("ABC-4", "ABC-3");
+    }
+
+    @Test
+    void wildcardsInTheTermAreLiteral() {
+        assertThat(lookup.findByPrefix("AB_", 0, 10)).isEmpty();
+        assertThat(lookup.countByPrefix("%")).isZero();
+    }
+
+    private void save(String orderNumber, String email, String trackingNumber, int hoursAgo) {
+        Order order = Order.builder()
+                .orderNumber(orderNumber)
+                .userId("user-1")
+                .userName("Customer")
+                .userEmail(email)
+                .trackingNumber(trackingNumber)
+                .deliveryAddress(OrderAddress.builder()
+                        .addressType(OrderAddress.AddressType.HOME)
+                        .addressName("Home")
+                        .street("1 Market Road")
+                        .city("Mahabaleshwar")
+                        .state("Maharashtra")
+                        .pincode("412806")
+                        .build())
+                .payment(OrderPayment.builder()
+                        .paymentMethod(OrderPayment.PaymentMethod.CASH_ON_DELIVERY)
+                        .build())
+                .subtotal(new BigDecimal("30.00"))
+                .totalAmount(new BigDecimal("30.00"))
+                .timeline(new ArrayList<>())
+                .items(new ArrayList<>())
+                .build();
+        String id = orderRepository.saveAndFlush(order).getId();
+        // Auditing stamps the current time
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", now.minusHours(hoursAgo), id);
+    }
+}
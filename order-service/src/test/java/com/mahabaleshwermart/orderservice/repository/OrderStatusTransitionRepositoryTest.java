@@ -0,0 +1,137 @@
+package com.mahabaleshwermart.orderservice.repository;
+
+import com.mahabaleshwermart.common.id.IdGeneratorAutoConfiguration;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderAddress;
+import com.mahabaleshwermart.orderservice.entity.OrderPayment;
+import com.mahabaleshwermart.orderservice.entity.OrderTimeline;
+import com.mahabaleshwermart.orderservice.repository.OrderStatusTransitionRepository.Transition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Status transitions only apply to orders still in the status they were read in.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "app.id.worker-id=0"
+})
+@ContextConfiguration(classes = OrderStatusTransitionRepositoryTest.JpaConfiguration.class)
+@ImportAutoConfiguration(IdGeneratorAutoConfiguration.class)
+@Import(OrderStatusTransitionRepository.class)
+class OrderStatusTransitionRepositoryTest {
+
+    @SpringBootConfiguration
+    @EntityScan("com.mahabaleshwermart.orderservice.entity")
+    @EnableJpaRepositories("com.mahabaleshwermart.orderservice.repository")
+    @EnableJpaAuditing
+    static class JpaConfiguration {
+    }
+
+    @Autowired
+    private OrderStatusTransitionRepository transitions;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void appliesOnlyWhileTheOrderIsInTheExpectedStatus() {
+        String confirmed = save("MM-1", Order.OrderStatus.CONFIRMED, null);
+        String processing = save("MM-2", Order.OrderStatus.PROCESSING, null);
+
+        boolean[] applied = transitions.compareAndSet(List.of(
+                new Transition(confirmed, Order.OrderStatus.CONFIRMED, Order.OrderStatus.PROCESSING, null, null),
+                new Transition(processing, Order.OrderStatus.CONFIRMED, Order.OrderStatus.PROCESSING, null, null)));
+
+        assertThat(applied).containsExactly(true, false);
+        assertThat(status(confirmed)).isEqualTo("PROCESSING");
+        assertThat(status(processing)).isEqualTo("PROCESSING");
+    }
+
+    @Test
+    void transitionReadBeforeAnotherOneAppliedLoses() {
+        String orderId = save("MM-1", Order.OrderStatus.PACKED, null);
+        Transition ship = new Transition(orderId, Order.OrderStatus.PACKED, Order.OrderStatus.SHIPPED, "TRK-1", null);
+        Transition cancel = new Transition(orderId, Order.OrderStatus.PACKED, Order.OrderStatus.CANCELLED, null, null);
+
+        assertThat(transitions.compareAndSet(List.of(ship))).containsExactly(true);
+        assertThat(transitions.compareAndSet(List.of(cancel))).containsExactly(false);
+
+        assertThat(status(orderId)).isEqualTo("SHIPPED");
+    }
+
+    @Test
+    void keepsATrackingNumberTheOrderAlreadyHas() {
+        String orderId = save("MM-1", Order.OrderStatus.PACKED, "TRK-OLD");
+
+        transitions.compareAndSet(List.of(
+                new Transition(orderId, Order.OrderStatus.PACKED, Order.OrderStatus.SHIPPED, "TRK-NEW", null)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT tracking_number FROM orders WHERE id = ?", String.class, orderId))
+                .isEqualTo("TRK-OLD");
+    }
+
+    @Test
+    void appendsOneTimelineRowPerAppliedTransition() {
+        String orderId = save("MM-1", Order.OrderStatus.CONFIRMED, null);
+
+        transitions.appendTimeline(List.of(orderId), List.of(
+                OrderTimeline.builder()
+                        .eventType(OrderTimeline.EventType.ORDER_PROCESSING)
+                        .title("Processing")
+                        .orderStatus(Order.OrderStatus.PROCESSING)
+                        .performedBy("SYSTEM")
+                        .build()));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_timeline WHERE order_id = ?",
+                Integer.class, orderId)).isEqualTo(1);
+    }
+
+    private String save(String orderNumber, Order.OrderStatus status, String trackingNumber) {
+        Order order = Order.builder()
+                .orderNumber(orderNumber)
+                .userId("user-1")
+                .userName("Customer")
+                .userEmail("customer@example.com")
+                .orderStatus(status)
+                .trackingNumber(trackingNumber)
+                .deliveryAddress(OrderAddress.builder()
+                        .addressType(OrderAddress.AddressType.HOME)
+                        .addressName("Home")
+                        .street("1 Market Road")
+                        .city("Mahabaleshwar")
+                        .state("Maharashtra")
+                        .pincode("412806")
+                        .build())
+                .payment(OrderPayment.builder()
+                        .paymentMethod(OrderPayment.PaymentMethod.CASH_ON_DELIVERY)
+                        .build())
+                .subtotal(new BigDecimal("30.00"))
+                .totalAmount(new BigDecimal("30.00"))
+                .timeline(new ArrayList<>())
+                .items(new ArrayList<>())
+                .build();
+        return orderRepository.saveAndFlush(order).getId();
+    }
+
+    private String status(String orderId) {
+        return jdbcTemplate.queryForObject("SELECT order_status FROM orders WHERE id = ?", String.class, orderId);
+    }
+}
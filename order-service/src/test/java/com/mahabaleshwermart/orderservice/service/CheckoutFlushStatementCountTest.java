@@ -0,0 +1,113 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.pricing.PricingResult;
+import com.mahabaleshwermart.orderservice.dto.ApiResponse;
+import com.mahabaleshwermart.orderservice.dto.CreateOrderAddressRequest;
+import com.mahabaleshwermart.orderservice.dto.CreateOrderPaymentRequest;
+import com.mahabaleshwermart.orderservice.dto.CreateOrderRequest;
+import com.mahabaleshwermart.orderservice.external.CartItemDto;
+import com.mahabaleshwermart.orderservice.external.CartSummaryDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Placing an order writes the order, its items and its first timeline event in one flush, batched per
+ * table, so the number of INSERT statements does not grow with the size of the cart. The time each
+ * checkout flush takes is logged for comparison.
+ */
+@Slf4j
+class CheckoutFlushStatementCountTest extends OrderServiceJpaTestSupport {
+
+    private static final BigDecimal PRICE = new BigDecimal("30.00");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private int orderSequence;
+
+    @BeforeEach
+    void setUp() {
+        when(checkoutPipeline.fork(anyString(), any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(1).get()));
+        when(userSnapshotCache.get(anyString())).thenReturn(Optional.empty());
+        when(shardRouter.newOrderNumber(anyInt())).thenAnswer(invocation -> "MM-TEST-" + (++orderSequence));
+    }
+
+    @Test
+    void insertStatementsDoNotGrowWithTheCart() {
+        Map<Integer, Long> statements = new LinkedHashMap<>();
+        for (int items : new int[]{1, 20, 100}) {
+            statements.put(items, checkoutStatements(items));
+        }
+
+        // One prepared INSERT each for the order, its items and its timeline, whatever the cart size
+        assertThat(statements).containsValues(3L).allSatisfy((items, count) -> assertThat(count).isEqualTo(3));
+    }
+
+    private long checkoutStatements(int itemCount) {
+        String userId = "user-" + itemCount;
+        when(cartServiceClient.validateCart(userId)).thenReturn(ApiResponse.success(cart(userId, itemCount)));
+        BigDecimal subtotal = PRICE.multiply(BigDecimal.valueOf(itemCount));
+        when(pricingEngine.price(any(), any())).thenReturn(new PricingResult(subtotal, BigDecimal.ZERO,
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, subtotal, List.of(), null));
+        entityManager.clear();
+        statistics().clear();
+
+        long started = System.nanoTime();
+        orderService.createOrderFromCart(userId, request());
+        long micros = (System.nanoTime() - started) / 1_000;
+
+        long statements = statistics().getPrepareStatementCount();
+        log.info("Checkout of {} items: {} statements, {} us", itemCount, statements, micros);
+        assertThat(statistics().getEntityInsertCount()).isEqualTo(itemCount + 2);
+        return statements;
+    }
+
+    private static CartSummaryDto cart(String userId, int itemCount) {
+        List<CartItemDto> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new CartItemDto("cart-item-" + i, userId, "product-" + i, "Product " + i, "product-" + i + ".png",
+                    PRICE, PRICE, "kg", 1, 1, PRICE, true, "FRUITS", "SKU-" + i, false, true,
+                    null, null, BigDecimal.ZERO, false));
+        }
+        BigDecimal total = PRICE.multiply(BigDecimal.valueOf(itemCount));
+        return new CartSummaryDto(items, itemCount, itemCount, total, BigDecimal.ZERO, BigDecimal.ZERO, total,
+                false, false, null, false, false);
+    }
+
+    private static CreateOrderRequest request() {
+        return CreateOrderRequest.builder()
+                .deliveryAddress(CreateOrderAddressRequest.builder()
+                        .addressType("HOME")
+                        .addressName("Home")
+                        .street("1 Market Road")
+                        .city("Mahabaleshwar")
+                        .state("Maharashtra")
+                        .pincode("412806")
+                        .contactName("Customer")
+                        .contactPhone("9999999999")
+                        .build())
+                .payment(CreateOrderPaymentRequest.builder()
+                        .paymentMethod("CASH_ON_DELIVERY")
+                        .build())
+                .build();
+    }
+}
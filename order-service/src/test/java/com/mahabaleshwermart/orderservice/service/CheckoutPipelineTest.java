@@ -0,0 +1,132 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.logging.CorrelationIdFilter;
+import com.mahabaleshwermart.common.logging.FeignCorrelationInterceptor;
+import com.mahabaleshwermart.common.logging.ForwardedHeaders;
+import feign.RequestTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout tasks forward the headers and correlation id of the request that started them, even once the
+ * request has been recycled, and degrade to {@code null} when a lookup fails or misses its deadline.
+ */
+class CheckoutPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CheckoutPipeline pipeline;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new CheckoutPipeline(meterRegistry, 500);
+        request = new MockHttpServletRequest();
+        request.addHeader(ForwardedHeaders.USER_ID_HEADER, "user-1");
+        request.addHeader(ForwardedHeaders.GUEST_SESSION_HEADER, "guest-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MDC.put(CorrelationIdFilter.MDC_CORRELATION_ID_KEY, "corr-1");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+        pipeline.shutdown();
+    }
+
+    @Test
+    void forkedLookupForwardsTheRequestHeadersAfterTheRequestIsRecycled() throws Exception {
+        CountDownLatch recycled = new CountDownLatch(1);
+
+        CompletableFuture<Map<String, Collection<String>>> forwarded = pipeline.fork("profile", () -> {
+            await(recycled);
+            RequestTemplate template = new RequestTemplate();
+            new FeignCorrelationInterceptor().apply(template);
+            return template.headers();
+        });
+        RequestContextHolder.resetRequestAttributes();
+        request.removeHeader(ForwardedHeaders.USER_ID_HEADER);
+        request.addHeader(ForwardedHeaders.USER_ID_HEADER, "someone-else");
+        MDC.clear();
+        recycled.countDown();
+
+        assertThat(forwarded.get(5, TimeUnit.SECONDS))
+                .containsEntry(ForwardedHeaders.USER_ID_HEADER, List.of("user-1"))
+                .containsEntry(ForwardedHeaders.GUEST_SESSION_HEADER, List.of("guest-token"))
+                .containsEntry(CorrelationIdFilter.CORRELATION_ID_HEADER, List.of("corr-1"));
+    }
+
+    @Test
+    void failedLookupResolvesToNull() throws Exception {
+        CompletableFuture<String> profile = pipeline.fork("profile", () -> {
+            throw new IllegalStateException("user-service down");
+        });
+
+        assertThat(profile.get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(meterRegistry.get("checkout.stage").tags("stage", "profile", "outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void slowLookupResolvesToNullAtItsDeadline() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+
+        CompletableFuture<String> profile = pipeline.fork("profile", () -> {
+            await(never);
+            return "late";
+        });
+
+        assertThat(profile.get(5, TimeUnit.SECONDS)).isNull();
+        never.countDown();
+    }
+
+    @Test
+    void afterCommitTaskRunsOnlyOnceCommitted() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            AtomicBoolean rolledBackTaskRan = new AtomicBoolean();
+            pipeline.afterCommit("clear-cart", ran::countDown);
+            assertThat(ran.getCount()).isEqualTo(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            pipeline.afterCommit("clear-cart", () -> rolledBackTaskRan.set(true));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            pipeline.shutdown();
+            assertThat(rolledBackTaskRan).isFalse();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The action behind an Idempotency-Key runs once, whatever Redis does after it was claimed.
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        idempotencyService = new IdempotencyService(redisTemplate, new ObjectMapper(), 24, 1, 1000, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyService.shutdown();
+    }
+
+    @Test
+    void actionIsNotRepeatedWhenStoringItsResultFails() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        AtomicInteger runs = new AtomicInteger();
+
+        String result = idempotencyService.execute("order:user-1", "key-1", "request", String.class,
+                () -> "order-" + runs.incrementAndGet());
+
+        assertThat(result).isEqualTo("order-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void actionRunsWithoutDeduplicationWhenTheClaimFails() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyService.execute("order:user-1", "key-1", "request", String.class, () -> "order-" + runs.incrementAndGet());
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void claimIsRenewedWhileTheActionRuns() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        idempotencyService.execute("order:user-1", "key-1", "request", String.class, () -> {
+            try {
+                Thread.sleep(800); // longer than a third of the one second claim
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "order-1";
+        });
+
+        verify(redisTemplate, atLeastOnce()).expire(eq("idempotency:order:user-1:key-1"), eq(Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,121 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.dto.PageResponse;
+import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import com.mahabaleshwermart.orderservice.dto.OrderDto;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderTimeline;
+import com.mahabaleshwermart.orderservice.repository.ArchivedOrderRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Orders closed longer than the archive age move to the archive, and lookups by id, order number and
+ * timeline that miss the live tables are served from it.
+ */
+class OrderArchiveFallbackTest extends OrderServiceJpaTestSupport {
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        when(shardRouter.qualify(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<IntConsumer>getArgument(1).accept(0);
+            return null;
+        }).when(shardRouter).forEachShard(anyString(), any(IntConsumer.class));
+        when(workerLease.acquire(anyString(), any(Duration.class))).thenReturn(Optional.of("token"));
+    }
+
+    @Test
+    void archivedOrderIsFoundByIdAndOrderNumber() {
+        String oldId = closedOrder("MM-OLD", Order.OrderStatus.DELIVERED, 7);
+        String recentId = closedOrder("MM-RECENT", Order.OrderStatus.DELIVERED, 1);
+
+        orderArchiveService.archiveClosedOrders();
+        entityManager.clear();
+
+        assertThat(orderRepository.existsById(oldId)).isFalse();
+        assertThat(archivedOrderRepository.existsById(oldId)).isTrue();
+        assertThat(orderRepository.existsById(recentId)).isTrue();
+
+        OrderDto byId = orderService.getOrderById(oldId);
+        assertThat(byId.getOrderNumber()).isEqualTo("MM-OLD");
+        assertThat(byId.getOrderStatus()).isEqualTo("DELIVERED");
+        assertThat(byId.getItems()).hasSize(2);
+        assertThat(byId.getTimeline()).isNull();
+        assertThat(orderService.getOrderByOrderNumber("MM-OLD").getId()).isEqualTo(oldId);
+    }
+
+    @Test
+    void archivedTimelineIsServedFromTheDocument() {
+        String oldId = closedOrder("MM-OLD", Order.OrderStatus.CANCELLED, 8);
+
+        orderArchiveService.archiveClosedOrders();
+        entityManager.clear();
+
+        PageResponse<OrderDto.OrderTimelineDto> timeline = orderService.getOrderTimeline(oldId, PageRequest.of(0, 10));
+        assertThat(timeline.getContent()).hasSize(1);
+        assertThat(timeline.getContent().get(0).getEventType()).isEqualTo("ORDER_PLACED");
+    }
+
+    @Test
+    void unknownOrderIsStillNotFound() {
+        assertThatThrownBy(() -> orderService.getOrderById("missing"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> orderService.getOrderByOrderNumber("MM-MISSING"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    /**
+     * Save an order with one timeline event, closed {@code monthsAgo} months ago
+     */
+    private String closedOrder(String orderNumber, Order.OrderStatus status, int monthsAgo) {
+        Order order = newOrder("user-1", orderNumber, 2);
+        order.setOrderStatus(status);
+        order.getTimeline().add(OrderTimeline.builder()
+                .order(order)
+                .eventType(OrderTimeline.EventType.ORDER_PLACED)
+                .title("Order placed")
+                .description("Order placed")
+                .performedBy("user-1")
+                .build());
+        entityManager.persist(order);
+        entityManager.flush();
+
+        // Auditing stamps the current time, so the close time is moved back directly
+        LocalDateTime closedAt = LocalDateTime.now().minusMonths(monthsAgo);
+        jdbcTemplate.update("UPDATE orders SET updated_at = ?, actual_delivery = ?, cancelled_at = ? WHERE id = ?",
+                closedAt, status == Order.OrderStatus.DELIVERED ? closedAt : null,
+                status == Order.OrderStatus.CANCELLED ? closedAt : null, order.getId());
+        entityManager.clear();
+        return order.getId();
+    }
+}
@@ -0,0 +1,72 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Changing an order evicts only that order's cached entries, and only once the change has committed.
+ */
+class OrderCacheEvictorTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictsOnlyTheChangedOrderAfterCommit() {
+        CacheManager cacheManager = new ConcurrentMapCacheManager(OrderCacheEvictor.ORDER_CACHE,
+                OrderCacheEvictor.ORDER_NUMBER_CACHE, OrderCacheEvictor.ORDER_TIMELINE_CACHE);
+        Cache orders = cacheManager.getCache(OrderCacheEvictor.ORDER_CACHE);
+        Cache byNumber = cacheManager.getCache(OrderCacheEvictor.ORDER_NUMBER_CACHE);
+        orders.put("order-1", "order 1");
+        orders.put("order-2", "order 2");
+        byNumber.put("MM-1", "order 1");
+        byNumber.put("MM-2", "order 2");
+        TransactionSynchronizationManager.initSynchronization();
+
+        new OrderCacheEvictor(cacheManager).evictAfterCommit(order("order-1", "MM-1"));
+        assertThat(orders.get("order-1")).isNotNull();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(orders.get("order-1")).isNull();
+        assertThat(byNumber.get("MM-1")).isNull();
+        assertThat(orders.get("order-2")).isNotNull();
+        assertThat(byNumber.get("MM-2")).isNotNull();
+    }
+
+    @Test
+    void dropsOnlyTheChangedOrdersTimelinePagesFromRedis() {
+        CacheManager cacheManager = mock(CacheManager.class);
+        RedisCache timeline = mock(RedisCache.class);
+        when(cacheManager.getCache(OrderCacheEvictor.ORDER_TIMELINE_CACHE)).thenReturn(timeline);
+
+        new OrderCacheEvictor(cacheManager).evictAfterCommit(order("order-1", "MM-1"));
+
+        verify(timeline).clear("order-1:*");
+        verify(timeline, never()).clear();
+    }
+
+    private static Order order(String id, String orderNumber) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNumber(orderNumber);
+        return order;
+    }
+}
@@ -0,0 +1,130 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.events.SagaCommand;
+import com.mahabaleshwermart.orderservice.config.PaymentConfig;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderItem;
+import com.mahabaleshwermart.orderservice.event.OrderLifecycleEvent;
+import com.mahabaleshwermart.orderservice.mapper.OrderMapper;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaStepRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cancelling or returning an order gives its reserved stock back through the outbox.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderCancellationStockReleaseTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private OrderOutboxWriter outboxWriter;
+    @Mock
+    private OrderCacheEvictor orderCacheEvictor;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    private OrderSagaOrchestrator sagaOrchestrator;
+
+    @BeforeEach
+    void setUp() {
+        sagaOrchestrator = new OrderSagaOrchestrator(mock(OrderSagaRepository.class), mock(OrderSagaStepRepository.class),
+                orderRepository, outboxWriter, mock(PaymentConfig.class), eventPublisher, new SimpleMeterRegistry(),
+                mock(PlatformTransactionManager.class), mock(OrderShardRouter.class), 60000, 5);
+    }
+
+    @Test
+    void cancellingAnOrderReleasesItsStock() {
+        Order order = order(Order.OrderStatus.CONFIRMED);
+        when(orderRepository.findById("order-1")).thenReturn(Optional.of(order));
+        when(orderRepository.save(order)).thenReturn(order);
+        // Deliver lifecycle events synchronously, as the application context does
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof OrderLifecycleEvent event) {
+                sagaOrchestrator.onOrderLifecycle(event);
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        orderService.cancelOrder("order-1", "Changed my mind", "user-1");
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(outboxWriter).enqueue(eq(SagaCommand.INVENTORY_TOPIC), eq("order-1"), payload.capture());
+        SagaCommand command = (SagaCommand) payload.getValue();
+        assertThat(command.getAction()).isEqualTo(SagaCommand.Action.COMPENSATE);
+        assertThat(command.getStep()).isEqualTo("RESERVE_STOCK");
+        assertThat(command.getStepId()).isNull();
+        assertThat(command.getItems())
+                .extracting(SagaCommand.Item::getProductId, SagaCommand.Item::getQuantity)
+                .containsExactly(tuple("product-1", 2),
+                        tuple("product-2", 1));
+    }
+
+    @Test
+    void returningAnOrderReleasesItsStock() {
+        Order order = order(Order.OrderStatus.RETURNED);
+
+        sagaOrchestrator.onOrderLifecycle(OrderLifecycleEvent.statusChanged(order, Order.OrderStatus.DELIVERED));
+
+        verify(outboxWriter).enqueue(eq(SagaCommand.INVENTORY_TOPIC), eq("order-1"), any(SagaCommand.class));
+    }
+
+    @Test
+    void otherStatusChangesKeepTheStock() {
+        Order order = order(Order.OrderStatus.SHIPPED);
+
+        sagaOrchestrator.onOrderLifecycle(OrderLifecycleEvent.statusChanged(order, Order.OrderStatus.PACKED));
+
+        verify(outboxWriter, never()).enqueue(anyString(), anyString(), any());
+    }
+
+    private static Order order(Order.OrderStatus status) {
+        Order order = Order.builder()
+                .id("order-1")
+                .orderNumber("MM-1")
+                .userId("user-1")
+                .orderStatus(status)
+                .totalAmount(new BigDecimal("150.00"))
+                .timeline(new ArrayList<>())
+                .build();
+        order.setItems(List.of(
+                OrderItem.builder().order(order).productId("product-1").quantity(2).build(),
+                OrderItem.builder().order(order).productId("product-2").quantity(1).build()));
+        return order;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.common.export.ExportFormat;
+import com.mahabaleshwermart.orderservice.shard.ShardRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Order exports read only the live tables, so ranges that may reach archived orders are refused.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private ObjectProvider<ShardRoutingDataSource> routingDataSource;
+
+    private OrderExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new OrderExportService(dataSource, routingDataSource, 6);
+    }
+
+    @Test
+    void refusesRangesThatMayReachArchivedOrders() {
+        LocalDate earliest = LocalDate.now().minusMonths(6).plusDays(1);
+
+        assertThatThrownBy(() -> exportService.exportOrders(new MockHttpServletRequest(), earliest.minusDays(1),
+                LocalDate.now(), ExportFormat.CSV))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining(earliest.toString());
+    }
+
+    @Test
+    void exportsRangesOfLiveOrders() {
+        LocalDate earliest = LocalDate.now().minusMonths(6).plusDays(1);
+
+        assertThat(exportService.exportOrders(new MockHttpServletRequest(), earliest, LocalDate.now(),
+                ExportFormat.CSV).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
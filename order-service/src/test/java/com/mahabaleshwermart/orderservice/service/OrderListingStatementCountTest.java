@@ -0,0 +1,63 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.dto.PageResponse;
+import com.mahabaleshwermart.orderservice.dto.OrderSummaryDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * "My Orders" loads a page of summaries with a fixed number of statements, however many orders and
+ * items the page holds.
+ */
+class OrderListingStatementCountTest extends OrderServiceJpaTestSupport {
+
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void pageOfOrdersIsLoadedWithTheSameStatementsForFewAndManyOrders() {
+        long few = statementsToList("user-few", 2);
+        long many = statementsToList("user-many", 20);
+
+        // Page of orders and the items of the whole page; the page is not full, so no count query
+        assertThat(few).isEqualTo(2);
+        assertThat(many).isEqualTo(few);
+    }
+
+    @Test
+    void summariesCarryTheCustomerAndItems() {
+        saveOrders("user-1", 1);
+        entityManager.clear();
+
+        PageResponse<OrderSummaryDto> page = orderService.getUserOrders("user-1", PageRequest.of(0, 50));
+
+        OrderSummaryDto summary = page.getContent().get(0);
+        assertThat(summary.getUserEmail()).isEqualTo("user-1@example.com");
+        assertThat(summary.getItems()).hasSize(ITEMS_PER_ORDER);
+    }
+
+    private long statementsToList(String userId, int orders) {
+        saveOrders(userId, orders);
+        entityManager.clear();
+        statistics().clear();
+
+        PageResponse<OrderSummaryDto> page = orderService.getUserOrders(userId, PageRequest.of(0, 50));
+
+        assertThat(page.getContent()).hasSize(orders)
+                .allSatisfy(summary -> assertThat(summary.getItems()).hasSize(ITEMS_PER_ORDER));
+        return statistics().getPrepareStatementCount();
+    }
+
+    private void saveOrders(String userId, int count) {
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(newOrder(userId, userId + "-" + i, ITEMS_PER_ORDER));
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,186 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahabaleshwermart.orderservice.entity.OrderOutbox;
+import com.mahabaleshwermart.orderservice.repository.OrderOutboxRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import com.mahabaleshwermart.orderservice.shard.ShardRoutingDataSource;
+import com.mahabaleshwermart.orderservice.shard.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relays the outbox on an embedded database: claims are committed before sending and per-key order holds
+ * across failures, parked events and other relays' claims.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@ContextConfiguration(classes = OrderServiceJpaTestSupport.JpaConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderOutboxRelayTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final List<String> sentKeys = new ArrayList<>();
+    private final List<Boolean> sentInTransaction = new ArrayList<>();
+    private OrderOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        OrderShardRouter shardRouter = new OrderShardRouter(new ShardingProperties(),
+                context.getBeanProvider(ShardRoutingDataSource.class));
+        relay = new OrderOutboxRelay(outboxRepository, kafkaTemplate, new ObjectMapper(), dataSource,
+                new SimpleMeterRegistry(), transactionManager, shardRouter);
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(relay, "claimTtlMillis", 60_000L);
+        failKeys(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void sendsOutsideAnyTransactionAndClearsTheClaims() {
+        OrderOutbox first = save("order-1");
+        OrderOutbox second = save("order-2");
+
+        relay.relay();
+
+        assertThat(sentKeys).containsExactly("order-1", "order-2");
+        assertThat(sentInTransaction).containsOnly(false);
+        for (OrderOutbox event : List.of(reload(first), reload(second))) {
+            assertThat(event.getPublishedAt()).isNotNull();
+            assertThat(event.getClaimedBy()).isNull();
+            assertThat(event.getClaimedUntil()).isNull();
+        }
+    }
+
+    @Test
+    void holdsBackTheRestOfAKeyAfterAFailure() {
+        OrderOutbox failing = save("order-1");
+        OrderOutbox later = save("order-1");
+        OrderOutbox other = save("order-2");
+        failKeys(Set.of("order-1"));
+
+        relay.relay();
+
+        assertThat(reload(failing).getAttempts()).isEqualTo(1);
+        assertThat(reload(failing).getLastError()).isEqualTo("broker down");
+        assertThat(reload(later).getPublishedAt()).isNull();
+        assertThat(reload(later).getAttempts()).isZero();
+        assertThat(reload(later).getClaimedBy()).isNull();
+        assertThat(reload(other).getPublishedAt()).isNotNull();
+    }
+
+    @Test
+    void doesNotClaimAKeyBehindAParkedEvent() {
+        OrderOutbox parked = save("order-1");
+        parked.setAttempts(MAX_ATTEMPTS);
+        outboxRepository.save(parked);
+        OrderOutbox later = save("order-1");
+        OrderOutbox other = save("order-2");
+
+        relay.relay();
+
+        assertThat(sentKeys).containsExactly("order-2");
+        assertThat(reload(later).getPublishedAt()).isNull();
+        assertThat(reload(other).getPublishedAt()).isNotNull();
+    }
+
+    @Test
+    void doesNotClaimAKeyBehindAnEventClaimedByAnotherRelay() {
+        OrderOutbox claimed = save("order-1");
+        claimed.setClaimedBy("other-relay");
+        claimed.setClaimedUntil(LocalDateTime.now().plusMinutes(1));
+        outboxRepository.save(claimed);
+        OrderOutbox later = save("order-1");
+
+        relay.relay();
+
+        assertThat(sentKeys).isEmpty();
+        assertThat(reload(claimed).getClaimedBy()).isEqualTo("other-relay");
+        assertThat(reload(later).getClaimedBy()).isNull();
+    }
+
+    @Test
+    void takesOverAnExpiredClaim() {
+        OrderOutbox abandoned = save("order-1");
+        abandoned.setClaimedBy("crashed-relay");
+        abandoned.setClaimedUntil(LocalDateTime.now().minusSeconds(1));
+        outboxRepository.save(abandoned);
+        OrderOutbox later = save("order-1");
+
+        relay.relay();
+
+        assertThat(sentKeys).containsExactly("order-1", "order-1");
+        assertThat(reload(abandoned).getPublishedAt()).isNotNull();
+        assertThat(reload(later).getPublishedAt()).isNotNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void failKeys(Set<String> failingKeys) {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            sentKeys.add(key);
+            sentInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return failingKeys.contains(key)
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+    }
+
+    private OrderOutbox save(String key) {
+        return outboxRepository.save(OrderOutbox.builder()
+                .topic("order-events")
+                .messageKey(key)
+                .payloadType("java.util.LinkedHashMap")
+                .payload("{}")
+                .build());
+    }
+
+    private OrderOutbox reload(OrderOutbox event) {
+        return outboxRepository.findById(event.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,241 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.events.SagaCommand;
+import com.mahabaleshwermart.common.events.SagaReply;
+import com.mahabaleshwermart.orderservice.client.PaymentServiceClient;
+import com.mahabaleshwermart.orderservice.config.PaymentConfig;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderItem;
+import com.mahabaleshwermart.orderservice.entity.OrderPayment;
+import com.mahabaleshwermart.orderservice.entity.OrderSaga;
+import com.mahabaleshwermart.orderservice.entity.OrderSagaStep;
+import com.mahabaleshwermart.orderservice.event.CheckoutSagaFailedEvent;
+import com.mahabaleshwermart.orderservice.event.OrderLifecycleEvent;
+import com.mahabaleshwermart.orderservice.mapper.OrderMapper;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderSagaStepRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * A failed checkout step cancels the order and compensates the steps that took effect, newest first,
+ * with the stock released by the saga alone and the payment left to its own compensation.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderSagaOrchestratorTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderSagaRepository sagaRepository;
+    @Mock
+    private OrderSagaStepRepository stepRepository;
+    @Mock
+    private OrderOutboxWriter outboxWriter;
+    @Mock
+    private PaymentConfig paymentConfig;
+    @Mock
+    private PaymentServiceClient paymentServiceClient;
+    @Mock
+    private OrderMapper orderMapper;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private OrderCacheEvictor orderCacheEvictor;
+    @Mock
+    private OrderShardRouter shardRouter;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    private OrderSagaOrchestrator orchestrator;
+    private final List<OrderSagaStep> steps = new ArrayList<>();
+    private Order order;
+    private OrderSaga saga;
+
+    @BeforeEach
+    void setUp() {
+        orchestrator = new OrderSagaOrchestrator(sagaRepository, stepRepository, orderRepository, outboxWriter,
+                paymentConfig, eventPublisher, new SimpleMeterRegistry(), transactionManager, shardRouter, 60000, 2);
+        order = order();
+        saga = OrderSaga.builder().id("saga-1").orderId("order-1").build();
+        lenient().when(orderRepository.findById("order-1")).thenReturn(Optional.of(order));
+        lenient().when(orderRepository.save(order)).thenReturn(order);
+        lenient().when(sagaRepository.findById("saga-1")).thenReturn(Optional.of(saga));
+        lenient().when(sagaRepository.findByOrderId("order-1")).thenReturn(Optional.of(saga));
+        stubStepLog();
+        // Deliver application events synchronously, as the application context does
+        lenient().doAnswer(invocation -> {
+            Object event = invocation.getArgument(0);
+            if (event instanceof CheckoutSagaFailedEvent failed) {
+                orderService.onCheckoutSagaFailed(failed);
+            } else if (event instanceof OrderLifecycleEvent lifecycle) {
+                orchestrator.onOrderLifecycle(lifecycle);
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void failedStepCancelsTheOrderAndCompensatesTheStepsBeforeIt() {
+        OrderSagaStep reserve = sent(OrderSagaStep.Step.RESERVE_STOCK, SagaCommand.Action.EXECUTE);
+        orchestrator.onReply(reply(reserve, true));
+        OrderSagaStep clearCart = lastStep();
+        assertThat(clearCart.getStep()).isEqualTo(OrderSagaStep.Step.CLEAR_CART);
+
+        orchestrator.onReply(reply(clearCart, false));
+
+        assertThat(order.getOrderStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(saga.getStatus()).isEqualTo(OrderSaga.Status.COMPENSATING);
+        OrderSagaStep release = lastStep();
+        assertThat(release.getStep()).isEqualTo(OrderSagaStep.Step.RESERVE_STOCK);
+        assertThat(release.getAction()).isEqualTo(SagaCommand.Action.COMPENSATE);
+        // Released by the saga only, not again by the cancellation
+        ArgumentCaptor<Object> released = ArgumentCaptor.forClass(Object.class);
+        verify(outboxWriter, times(1)).enqueue(eq(SagaCommand.INVENTORY_TOPIC), eq("order-1"), released.capture());
+        assertThat(((SagaCommand) released.getValue()).getStepId()).isEqualTo(release.getId());
+
+        orchestrator.onReply(reply(release, true));
+
+        assertThat(saga.getStatus()).isEqualTo(OrderSaga.Status.COMPENSATED);
+    }
+
+    @Test
+    void capturedPaymentIsLeftToThePaymentCompensation() {
+        order.setPaymentStatus(Order.PaymentStatus.COMPLETED);
+        sent(OrderSagaStep.Step.RESERVE_STOCK, SagaCommand.Action.EXECUTE).setStatus(OrderSagaStep.Status.SUCCEEDED);
+        sent(OrderSagaStep.Step.CLEAR_CART, SagaCommand.Action.EXECUTE).setStatus(OrderSagaStep.Status.SUCCEEDED);
+        OrderSagaStep payment = sent(OrderSagaStep.Step.INITIATE_PAYMENT, SagaCommand.Action.EXECUTE);
+
+        orchestrator.onReply(reply(payment, false));
+
+        assertThat(order.getOrderStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(order.getPaymentStatus()).isEqualTo(Order.PaymentStatus.COMPLETED);
+        verifyNoInteractions(paymentServiceClient);
+        OrderSagaStep compensation = lastStep();
+        assertThat(compensation.getStep()).isEqualTo(OrderSagaStep.Step.INITIATE_PAYMENT);
+        assertThat(compensation.getAction()).isEqualTo(SagaCommand.Action.COMPENSATE);
+        verify(outboxWriter).enqueue(eq(SagaCommand.PAYMENT_TOPIC), eq("order-1"), any(SagaCommand.class));
+    }
+
+    @Test
+    void compensationThatKeepsFailingLeavesTheSagaStuck() {
+        OrderSagaStep reserve = sent(OrderSagaStep.Step.RESERVE_STOCK, SagaCommand.Action.EXECUTE);
+        orchestrator.onReply(reply(reserve, true));
+        orchestrator.onReply(reply(lastStep(), false));
+
+        orchestrator.onReply(reply(lastStep(), false));
+        OrderSagaStep retry = lastStep();
+        assertThat(retry.getAttempt()).isEqualTo(2);
+        orchestrator.onReply(reply(retry, false));
+
+        assertThat(saga.getStatus()).isEqualTo(OrderSaga.Status.STUCK);
+        verify(outboxWriter, times(2)).enqueue(eq(SagaCommand.INVENTORY_TOPIC), eq("order-1"), any(SagaCommand.class));
+    }
+
+    @Test
+    void duplicateReplyIsDropped() {
+        OrderSagaStep reserve = sent(OrderSagaStep.Step.RESERVE_STOCK, SagaCommand.Action.EXECUTE);
+        orchestrator.onReply(reply(reserve, true));
+        int sentSteps = steps.size();
+
+        orchestrator.onReply(reply(reserve, false));
+
+        assertThat(steps).hasSize(sentSteps);
+        assertThat(saga.getStatus()).isEqualTo(OrderSaga.Status.RUNNING);
+        verify(outboxWriter, never()).enqueue(eq(SagaCommand.INVENTORY_TOPIC), anyString(), any());
+    }
+
+    /**
+     * Keep the step log in memory, completing a step only while it is still SENT
+     */
+    private void stubStepLog() {
+        lenient().when(stepRepository.save(any(OrderSagaStep.class))).thenAnswer(invocation -> {
+            OrderSagaStep step = invocation.getArgument(0);
+            step.setId(UUID.randomUUID().toString());
+            step.setSentAt(LocalDateTime.now());
+            steps.add(step);
+            return step;
+        });
+        lenient().when(stepRepository.findById(anyString())).thenAnswer(invocation ->
+                steps.stream().filter(s -> s.getId().equals(invocation.getArgument(0))).findFirst());
+        lenient().when(stepRepository.findBySagaIdOrderBySentAtAsc("saga-1")).thenAnswer(invocation -> List.copyOf(steps));
+        lenient().when(stepRepository.complete(anyString(), any(OrderSagaStep.Status.class), any(), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    OrderSagaStep step = stepRepository.findById(invocation.getArgument(0)).orElseThrow();
+                    if (step.getStatus() != OrderSagaStep.Status.SENT) {
+                        return 0;
+                    }
+                    step.setStatus(invocation.getArgument(1));
+                    step.setMessage(invocation.getArgument(2));
+                    return 1;
+                });
+    }
+
+    private OrderSagaStep sent(OrderSagaStep.Step step, SagaCommand.Action action) {
+        return stepRepository.save(OrderSagaStep.builder().sagaId("saga-1").step(step).action(action).build());
+    }
+
+    private OrderSagaStep lastStep() {
+        return steps.get(steps.size() - 1);
+    }
+
+    private static SagaReply reply(OrderSagaStep step, boolean success) {
+        return SagaReply.builder()
+                .sagaId("saga-1")
+                .stepId(step.getId())
+                .orderId("order-1")
+                .step(step.getStep().name())
+                .action(step.getAction())
+                .success(success)
+                .message(success ? "done" : "refused")
+                .build();
+    }
+
+    private static Order order() {
+        Order order = Order.builder()
+                .id("order-1")
+                .orderNumber("MM-1")
+                .userId("user-1")
+                .orderStatus(Order.OrderStatus.CONFIRMED)
+                .paymentStatus(Order.PaymentStatus.PENDING)
+                .totalAmount(new BigDecimal("150.00"))
+                .timeline(new ArrayList<>())
+                .payment(OrderPayment.builder().paymentMethod(OrderPayment.PaymentMethod.UPI).build())
+                .build();
+        order.setItems(List.of(OrderItem.builder().order(order).productId("product-1").quantity(2).build()));
+        return order;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.id.IdGeneratorAutoConfiguration;
+import com.mahabaleshwermart.common.pricing.PricingEngine;
+import com.mahabaleshwermart.orderservice.client.PaymentServiceClient;
+import com.mahabaleshwermart.orderservice.config.PaymentConfig;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderAddress;
+import com.mahabaleshwermart.orderservice.entity.OrderItem;
+import com.mahabaleshwermart.orderservice.entity.OrderPayment;
+import com.mahabaleshwermart.orderservice.external.CartServiceClient;
+import com.mahabaleshwermart.orderservice.mapper.OrderMapper;
+import com.mahabaleshwermart.orderservice.repository.OrderLookupRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderStatusTransitionRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@link OrderService} and {@link OrderArchiveService} against the real order entities and repositories
+ * on an embedded database, with Hibernate statistics on so tests can count the SQL statements a call sends.
+ * Everything outside the database is mocked.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.id.worker-id=0"
+})
+@ContextConfiguration(classes = OrderServiceJpaTestSupport.JpaConfiguration.class)
+@ImportAutoConfiguration({IdGeneratorAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Import({OrderService.class, OrderArchiveService.class, OrderMapper.class})
+abstract class OrderServiceJpaTestSupport {
+
+    @SpringBootConfiguration
+    @EntityScan("com.mahabaleshwermart.orderservice.entity")
+    @EnableJpaRepositories("com.mahabaleshwermart.orderservice.repository")
+    @EnableJpaAuditing
+    static class JpaConfiguration {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    protected OrderStatusTransitionRepository statusTransitionRepository;
+    @MockBean
+    protected OrderLookupRepository orderLookupRepository;
+    @MockBean
+    protected NotificationService notificationService;
+    @MockBean
+    protected CartServiceClient cartServiceClient;
+    @MockBean
+    protected UserSnapshotCache userSnapshotCache;
+    @MockBean
+    protected PaymentServiceClient paymentServiceClient;
+    @MockBean
+    protected PaymentConfig paymentConfig;
+    @MockBean
+    protected CheckoutPipeline checkoutPipeline;
+    @MockBean
+    protected UserOrderStatsService userOrderStatsService;
+    @MockBean
+    protected OrderSagaOrchestrator sagaOrchestrator;
+    @MockBean
+    protected WorkerLease workerLease;
+    @MockBean
+    protected PricingEngine pricingEngine;
+    @MockBean
+    protected OrderShardRouter shardRouter;
+    @MockBean
+    protected OrderCacheEvictor orderCacheEvictor;
+
+    @Autowired
+    protected OrderService orderService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * A new, unsaved cash on delivery order with {@code itemCount} lines of one unit each
+     */
+    protected static Order newOrder(String userId, String orderNumber, int itemCount) {
+        BigDecimal lineTotal = new BigDecimal("30.00");
+        BigDecimal total = lineTotal.multiply(BigDecimal.valueOf(itemCount));
+        Order order = Order.builder()
+                .orderNumber(orderNumber)
+                .userId(userId)
+                .userName("Customer " + userId)
+                .userEmail(userId + "@example.com")
+                .deliveryAddress(OrderAddress.builder()
+                        .addressType(OrderAddress.AddressType.HOME)
+                        .addressName("Home")
+                        .street("1 Market Road")
+                        .city("Mahabaleshwar")
+                        .state("Maharashtra")
+                        .pincode("412806")
+                        .build())
+                .payment(OrderPayment.builder()
+                        .paymentMethod(OrderPayment.PaymentMethod.CASH_ON_DELIVERY)
+                        .build())
+                .subtotal(total)
+                .totalAmount(total)
+                .totalItems(itemCount)
+                .totalQuantity(itemCount)
+                .timeline(new ArrayList<>())
+                .build();
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(OrderItem.builder()
+                    .order(order)
+                    .productId("product-" + i)
+                    .productName("Product " + i)
+                    .productImage("product-" + i + ".png")
+                    .productUnit("kg")
+                    .unitPrice(lineTotal)
+                    .quantity(1)
+                    .totalPrice(lineTotal)
+                    .build());
+        }
+        order.setItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,136 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.dto.PageResponse;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.orderservice.dto.BulkStatusUpdateResult;
+import com.mahabaleshwermart.orderservice.dto.OrderSummaryDto;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.repository.OrderLookupRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderStatusTransitionRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import com.mahabaleshwermart.orderservice.shard.ShardContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Admin operations spanning shards: search pages are merged from every shard up to a bounded depth, and a
+ * bulk status update reports the orders of a failed shard apart from those the other shards committed.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderShardScatterTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderStatusTransitionRepository statusTransitionRepository;
+    @Mock
+    private OrderLookupRepository orderLookupRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private OrderCacheEvictor orderCacheEvictor;
+    @Mock
+    private OrderShardRouter shardRouter;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void searchMergesTheNewestMatchesOfEveryShard() {
+        when(shardRouter.isSharded()).thenReturn(true);
+        when(shardRouter.scatter(any())).thenAnswer(invocation -> {
+            IntFunction<?> task = invocation.getArgument(0);
+            return List.of(task.apply(0), task.apply(1));
+        });
+        when(orderLookupRepository.findByPrefix("MM-", 0, 4))
+                .thenReturn(List.of(summary("MM-4", 1), summary("MM-2", 3)))
+                .thenReturn(List.of(summary("MM-3", 2), summary("MM-1", 4)));
+        when(orderLookupRepository.countByPrefix("MM-")).thenReturn(2L, 2L);
+
+        PageResponse<OrderSummaryDto> page = orderService.searchOrders("MM-", PageRequest.of(1, 2));
+
+        assertThat(page.getContent()).extracting(OrderSummaryDto::getOrderNumber).containsExactly("MM-2", "MM-1");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void deepSearchPagesAreRefused() {
+        assertThatThrownBy(() -> orderService.searchOrders("MM-", PageRequest.of(50, 20)))
+                .isInstanceOf(BusinessException.class);
+
+        verifyNoInteractions(orderLookupRepository);
+    }
+
+    @Test
+    void failedShardIsReportedWithoutUndoingTheOthers() {
+        Map<Integer, List<String>> byShard = new LinkedHashMap<>();
+        byShard.put(0, List.of("order-a", "order-b"));
+        byShard.put(1, List.of("order-c"));
+        when(shardRouter.groupOrdersByShard(anyList())).thenReturn(byShard);
+        when(orderRepository.findStatusesByIdIn(anyList())).thenAnswer(invocation -> {
+            if (ShardContext.current() == 1) {
+                throw new DataAccessResourceFailureException("shard 1 is down");
+            }
+            return List.of(status("order-a", Order.OrderStatus.PROCESSING), status("order-b", Order.OrderStatus.DELIVERED));
+        });
+        when(statusTransitionRepository.compareAndSet(anyList())).thenReturn(new boolean[]{true});
+        when(orderRepository.findAllById(List.of("order-a"))).thenReturn(List.of(Order.builder()
+                .id("order-a")
+                .orderNumber("MM-A")
+                .orderStatus(Order.OrderStatus.PACKED)
+                .build()));
+
+        BulkStatusUpdateResult result = orderService.bulkUpdateOrderStatus(
+                List.of("order-a", "order-b", "order-c"), Order.OrderStatus.PACKED, null, "admin-1");
+
+        assertThat(result.getRequested()).isEqualTo(3);
+        assertThat(result.getUpdated()).containsExactly("order-a");
+        assertThat(result.getSkipped()).containsOnlyKeys("order-b");
+        assertThat(result.getFailed()).containsOnlyKeys("order-c");
+    }
+
+    private OrderSummaryDto summary(String orderNumber, int hoursAgo) {
+        return OrderSummaryDto.builder().orderNumber(orderNumber).createdAt(now.minusHours(hoursAgo)).build();
+    }
+
+    private static OrderRepository.OrderStatusView status(String id, Order.OrderStatus status) {
+        return new OrderRepository.OrderStatusView() {
+            @Override
+            public String getId() {
+                return id;
+            }
+
+            @Override
+            public Order.OrderStatus getOrderStatus() {
+                return status;
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent subscribers never push the number of open tracking streams past the limit, and rejected or
+ * unknown subscriptions take no slot.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderTrackingStreamServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentSubscribersStopAtTheLimit() throws Exception {
+        when(orderRepository.findStatusByOrderNumber(anyString())).thenReturn(Optional.of(Order.OrderStatus.SHIPPED));
+        OrderTrackingStreamService streams = service(10);
+        int subscribers = 64;
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                String orderNumber = "MM-" + (i % 4);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                        streams.subscribe(orderNumber);
+                        opened.incrementAndGet();
+                    } catch (BusinessException e) {
+                        rejected.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, executor));
+            }
+            start.countDown();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(opened).hasValue(10);
+        assertThat(rejected).hasValue(subscribers - 10);
+        assertThat(openStreams()).isEqualTo(10);
+    }
+
+    @Test
+    void rejectedAndUnknownSubscriptionsTakeNoSlot() {
+        when(orderRepository.findStatusByOrderNumber("MM-1")).thenReturn(Optional.of(Order.OrderStatus.SHIPPED));
+        when(orderRepository.findStatusByOrderNumber("MM-404")).thenReturn(Optional.empty());
+        OrderTrackingStreamService streams = service(1);
+
+        streams.subscribe("MM-1");
+        assertThatThrownBy(() -> streams.subscribe("MM-1")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> streams.subscribe("MM-404")).isInstanceOf(ResourceNotFoundException.class);
+
+        assertThat(openStreams()).isEqualTo(1);
+    }
+
+    private OrderTrackingStreamService service(int maxConnections) {
+        return new OrderTrackingStreamService(orderRepository, redisTemplate, new ObjectMapper(), meterRegistry,
+                60_000, maxConnections);
+    }
+
+    private double openStreams() {
+        return meterRegistry.get("order.tracking.connections").gauge().value();
+    }
+}
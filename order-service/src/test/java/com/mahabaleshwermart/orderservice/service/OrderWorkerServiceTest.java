@@ -0,0 +1,151 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.Cursor;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.SortColumn;
+import com.mahabaleshwermart.orderservice.repository.OrderWorkItemRepository.WorkItem;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A checkpointed sweep that fails part way continues after the last committed chunk when it runs again,
+ * so orders handled before the failure are not reminded twice.
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderWorkerServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Mock
+    private OrderWorkItemRepository workItemRepository;
+    @Mock
+    private WorkerLease workerLease;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private OrderShardRouter shardRouter;
+
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+    private final LocalDateTime today = LocalDate.now().atStartOfDay();
+    private final List<WorkItem> shipped = IntStream.rangeClosed(1, 5)
+            .mapToObj(i -> item("order-" + i, today.plusHours(i)))
+            .toList();
+
+    private OrderWorkerService workerService;
+
+    @BeforeEach
+    void setUp() {
+        when(shardRouter.shardCount()).thenReturn(1);
+        when(shardRouter.qualify(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(workerLease.acquire(anyString(), any(Duration.class))).thenReturn(Optional.of("token"));
+        lenient().when(workerLease.renew(anyString(), eq("token"), any(Duration.class))).thenReturn(true);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        lenient().doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(workItemRepository.nextChunk(any(Order.OrderStatus.class), eq(SortColumn.ESTIMATED_DELIVERY),
+                any(LocalDateTime.class), any(LocalDateTime.class), any(), eq(CHUNK_SIZE)))
+                .thenAnswer(invocation -> invocation.getArgument(0) == Order.OrderStatus.SHIPPED
+                        ? after(invocation.getArgument(4))
+                        : List.of());
+        workerService = new OrderWorkerService(workItemRepository, workerLease, notificationService, redisTemplate,
+                new SimpleMeterRegistry(), transactionManager, shardRouter, CHUNK_SIZE, 120000, 1800);
+    }
+
+    @AfterEach
+    void tearDown() {
+        workerService.shutdown();
+    }
+
+    @Test
+    void rerunContinuesAfterTheLastCommittedChunk() {
+        AtomicBoolean notificationsDown = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (notificationsDown.get() && invocation.<WorkItem>getArgument(0).id().equals("order-3")) {
+                throw new IllegalStateException("notification outbox unavailable");
+            }
+            return null;
+        }).when(notificationService).sendDeliveryReminder(any(WorkItem.class));
+
+        workerService.sweepDeliveriesDueToday();
+
+        assertThat(redis).hasSize(1);
+        assertThat(redis.values()).containsExactly(shipped.get(1).estimatedDelivery() + "|order-2");
+
+        notificationsDown.set(false);
+        workerService.sweepDeliveriesDueToday();
+
+        // Only the first run started from the beginning; the rerun asked for the failed chunk again
+        verify(workItemRepository, times(1)).nextChunk(eq(Order.OrderStatus.SHIPPED), eq(SortColumn.ESTIMATED_DELIVERY),
+                any(LocalDateTime.class), any(LocalDateTime.class), isNull(), eq(CHUNK_SIZE));
+        verify(workItemRepository, times(2)).nextChunk(eq(Order.OrderStatus.SHIPPED), eq(SortColumn.ESTIMATED_DELIVERY),
+                any(LocalDateTime.class), any(LocalDateTime.class),
+                eq(new Cursor(shipped.get(1).estimatedDelivery(), "order-2")), eq(CHUNK_SIZE));
+        for (WorkItem order : List.of(shipped.get(0), shipped.get(1), shipped.get(3), shipped.get(4))) {
+            verify(notificationService, times(1)).sendDeliveryReminder(order);
+        }
+        assertThat(redis.values()).containsExactly(shipped.get(4).estimatedDelivery() + "|order-5");
+    }
+
+    @Test
+    void completedRunRemindsNobodyAgain() {
+        workerService.sweepDeliveriesDueToday();
+        workerService.sweepDeliveriesDueToday();
+
+        shipped.forEach(order -> verify(notificationService, times(1)).sendDeliveryReminder(order));
+    }
+
+    /**
+     * Next keyset chunk of the shipped orders, which are already in (estimated delivery, id) order
+     */
+    private List<WorkItem> after(Cursor cursor) {
+        return shipped.stream()
+                .filter(order -> cursor == null || order.estimatedDelivery().isAfter(cursor.sortValue())
+                        || (order.estimatedDelivery().isEqual(cursor.sortValue()) && order.id().compareTo(cursor.id()) > 0))
+                .limit(CHUNK_SIZE)
+                .toList();
+    }
+
+    private static WorkItem item(String id, LocalDateTime estimatedDelivery) {
+        return new WorkItem(id, "MM-" + id, Order.OrderStatus.SHIPPED, "Asha", "asha@example.com", "9999999999",
+                "TRK-" + id, estimatedDelivery.minusDays(3), estimatedDelivery);
+    }
+}
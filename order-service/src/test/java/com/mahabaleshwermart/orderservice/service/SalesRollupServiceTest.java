@@ -0,0 +1,87 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.orderservice.entity.Order;
+import com.mahabaleshwermart.orderservice.entity.OrderPayment;
+import com.mahabaleshwermart.orderservice.event.OrderLifecycleEvent;
+import com.mahabaleshwermart.orderservice.repository.OrderSalesRollupRepository;
+import com.mahabaleshwermart.orderservice.shard.OrderShardRouter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Payment method rollups are debited from the method the order was credited to, even after the customer
+ * switched to another one.
+ */
+@ExtendWith(MockitoExtension.class)
+class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Mock
+    private OrderSalesRollupRepository rollupRepository;
+    @Mock
+    private OrderShardRouter shardRouter;
+
+    @InjectMocks
+    private SalesRollupService salesRollupService;
+
+    @Test
+    void cancellationDebitsTheCreditedMethodAfterThePaymentMethodChanged() {
+        Order order = switchedFromUpiToCard(Order.OrderStatus.CANCELLED);
+
+        salesRollupService.on(OrderLifecycleEvent.cancelled(order, Order.OrderStatus.CONFIRMED));
+
+        verify(rollupRepository).increment(DAY, "PAYMENT_METHOD", "UPI", -1, -2, new BigDecimal("-300.00"));
+        verify(rollupRepository, never()).increment(eq(DAY), eq("PAYMENT_METHOD"), eq("CREDIT_CARD"),
+                anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void refundDebitsTheCreditedMethodAfterThePaymentMethodChanged() {
+        Order order = switchedFromUpiToCard(Order.OrderStatus.RETURNED);
+
+        salesRollupService.on(OrderLifecycleEvent.refunded(order, Order.OrderStatus.DELIVERED, new BigDecimal("120.00")));
+
+        verify(rollupRepository).increment(DAY, "PAYMENT_METHOD", "UPI", 0, 0, new BigDecimal("-120.00"));
+    }
+
+    @Test
+    void ordersWithoutARecordedMethodFallBackToTheCurrentOne() {
+        Order order = switchedFromUpiToCard(Order.OrderStatus.CANCELLED);
+        order.setSalesPaymentMethod(null);
+
+        salesRollupService.on(OrderLifecycleEvent.cancelled(order, Order.OrderStatus.CONFIRMED));
+
+        verify(rollupRepository).increment(DAY, "PAYMENT_METHOD", "CREDIT_CARD", -1, -2, new BigDecimal("-300.00"));
+    }
+
+    private static Order switchedFromUpiToCard(Order.OrderStatus status) {
+        return Order.builder()
+                .id("order-1")
+                .orderStatus(status)
+                .createdAt(DAY.atStartOfDay())
+                .totalAmount(new BigDecimal("300.00"))
+                .totalQuantity(2)
+                .items(List.of())
+                .salesPaymentMethod("UPI")
+                .payment(OrderPayment.builder()
+                        .paymentMethod(OrderPayment.PaymentMethod.CREDIT_CARD)
+                        .paymentDate(LocalDateTime.now())
+                        .build())
+                .build();
+    }
+}
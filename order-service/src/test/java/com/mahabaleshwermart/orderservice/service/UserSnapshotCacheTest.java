@@ -0,0 +1,128 @@
+package com.mahabaleshwermart.orderservice.service;
+
+import com.mahabaleshwermart.common.events.UserProfileChangedEvent;
+import com.mahabaleshwermart.orderservice.dto.ApiResponse;
+import com.mahabaleshwermart.orderservice.external.UserDto;
+import com.mahabaleshwermart.orderservice.external.UserServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Snapshots come from memory while fresh, from user-service otherwise, and a fetch that raced a profile
+ * change event never replaces the newer snapshot.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserSnapshotCacheTest {
+
+    private static final String USER_ID = "user-1";
+
+    @Mock
+    private UserServiceClient userServiceClient;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void freshSnapshotIsServedFromMemory() {
+        UserSnapshotCache cache = cache(60);
+        when(userServiceClient.getUserById(USER_ID)).thenReturn(ApiResponse.success(user("Asha")));
+
+        cache.get(USER_ID);
+        Optional<UserSnapshotCache.UserSnapshot> snapshot = cache.get(USER_ID);
+
+        assertThat(snapshot).map(UserSnapshotCache.UserSnapshot::name).contains("Asha");
+        verify(userServiceClient, times(1)).getUserById(USER_ID);
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(count("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void expiredSnapshotIsServedWhenUserServiceFails() {
+        UserSnapshotCache cache = cache(0);
+        when(userServiceClient.getUserById(USER_ID))
+                .thenReturn(ApiResponse.success(user("Asha")))
+                .thenThrow(new RuntimeException("user-service down"));
+
+        cache.get(USER_ID);
+        Optional<UserSnapshotCache.UserSnapshot> snapshot = cache.get(USER_ID);
+
+        assertThat(snapshot).map(UserSnapshotCache.UserSnapshot::name).contains("Asha");
+        assertThat(count("stale")).isEqualTo(1);
+    }
+
+    @Test
+    void unknownUserIsEmptyWhenUserServiceFails() {
+        UserSnapshotCache cache = cache(60);
+        when(userServiceClient.getUserById(USER_ID)).thenThrow(new RuntimeException("user-service down"));
+
+        assertThat(cache.get(USER_ID)).isEmpty();
+    }
+
+    @Test
+    void profileChangeEventReplacesTheSnapshot() {
+        UserSnapshotCache cache = cache(60);
+
+        cache.onProfileChanged(event("Asha Patil"));
+
+        assertThat(cache.get(USER_ID)).map(UserSnapshotCache.UserSnapshot::name).contains("Asha Patil");
+        verifyNoInteractions(userServiceClient);
+    }
+
+    @Test
+    void fetchThatRacedAnEventDoesNotOverwriteIt() {
+        UserSnapshotCache cache = cache(60);
+        when(userServiceClient.getUserById(USER_ID)).thenAnswer(invocation -> {
+            cache.onProfileChanged(event("Asha Patil"));
+            return ApiResponse.success(user("Asha"));
+        });
+
+        Optional<UserSnapshotCache.UserSnapshot> fetched = cache.get(USER_ID);
+        Optional<UserSnapshotCache.UserSnapshot> cached = cache.get(USER_ID);
+
+        assertThat(fetched).map(UserSnapshotCache.UserSnapshot::name).contains("Asha Patil");
+        assertThat(cached).map(UserSnapshotCache.UserSnapshot::name).contains("Asha Patil");
+        verify(userServiceClient, times(1)).getUserById(USER_ID);
+    }
+
+    @Test
+    void fetchAfterAnEventReplacesIt() {
+        UserSnapshotCache cache = cache(0);
+        cache.onProfileChanged(event("Asha Patil"));
+        when(userServiceClient.getUserById(USER_ID)).thenReturn(ApiResponse.success(user("Asha P.")));
+
+        assertThat(cache.get(USER_ID)).map(UserSnapshotCache.UserSnapshot::name).contains("Asha P.");
+    }
+
+    private UserSnapshotCache cache(long ttlMinutes) {
+        return new UserSnapshotCache(userServiceClient, meterRegistry, 100, ttlMinutes);
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("user.snapshot.cache", "result", result).count();
+    }
+
+    private static UserDto user(String name) {
+        return new UserDto(USER_ID, name, "asha@example.com", "9800000000", null, List.of(), true);
+    }
+
+    private static UserProfileChangedEvent event(String name) {
+        return UserProfileChangedEvent.builder()
+                .userId(USER_ID)
+                .name(name)
+                .email("asha@example.com")
+                .phone("9800000000")
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.mahabaleshwermart.orderservice.shard;
+
+import com.mahabaleshwermart.orderservice.config.ShardingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starting JPA over two embedded shards creates the order tables on both, not only on the default shard.
+ */
+class ShardSchemaIntegratorTest {
+
+    private final List<EmbeddedDatabase> shards = List.of(database(), database());
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.destroy();
+        }
+        shards.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void createsTheSchemaOnEveryShard() {
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(List.copyOf(shards));
+        routing.initialize();
+        startJpa(new LazyConnectionDataSourceProxy(routing), new ShardingConfig().shardSchemaCustomizer(routing));
+
+        for (EmbeddedDatabase shard : shards) {
+            assertThat(tables(shard)).contains("ORDERS", "ORDER_ITEMS", "ORDER_OUTBOX");
+        }
+    }
+
+    private void startJpa(DataSource dataSource, HibernatePropertiesCustomizer customizer) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hbm2ddl.auto", "update");
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        customizer.customize(properties);
+
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan("com.mahabaleshwermart.orderservice.entity");
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaPropertyMap(properties);
+        entityManagerFactory.afterPropertiesSet();
+    }
+
+    private static List<String> tables(DataSource shard) {
+        return new JdbcTemplate(shard).queryForList(
+                "SELECT table_name FROM information_schema.tables WHERE table_schema = 'PUBLIC'", String.class);
+    }
+
+    private static EmbeddedDatabase database() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(UUID.randomUUID().toString())
+                .build();
+    }
+}
@@ -1,23 +1,30 @@
 package com.mahabaleshwermart.paymentservice.controller;
 
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.common.export.ExportFormat;
 import com.mahabaleshwermart.paymentservice.dto.PaymentRequest;
 import com.mahabaleshwermart.paymentservice.dto.PaymentResponse;
 import com.mahabaleshwermart.paymentservice.dto.PaymentVerificationRequest;
+import com.mahabaleshwermart.paymentservice.service.PaymentExportService;
 import com.mahabaleshwermart.paymentservice.service.PaymentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -31,6 +38,7 @@ import java.util.List;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentExportService paymentExportService;
 
     @Operation(summary = "Initiate a new payment", description = "Creates a new payment and returns payment URL for gateway")
     @ApiResponses(value = {
@@ -182,6 +190,29 @@ public class PaymentController {
         }
     }
 
+    @Operation(summary = "Export payments", description = "Streams payments created in a date range as CSV or NDJSON, gzip encoded when accepted (Admin only)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export streamed"),
+        @ApiResponse(responseCode = "400", description = "Invalid range or format")
+    })
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @Parameter(description = "First day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "csv or ndjson") @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request) {
+        
+        log.info("Received payment export request from {} to {} as {}", from, to, format);
+        
+        try {
+            return paymentExportService.exportPayments(request, from, to, ExportFormat.from(format));
+        } catch (IllegalArgumentException | BusinessException e) {
+            log.warn("Invalid payment export request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(summary = "Create refund", description = "Creates a refund for a successful payment")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Refund created successfully"),
@@ -0,0 +1,47 @@
+package com.mahabaleshwermart.paymentservice.service;
+
+import com.mahabaleshwermart.common.export.ExportFormat;
+import com.mahabaleshwermart.common.export.StreamingExportTemplate;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+/**
+ * Service for streaming payment exports to finance
+ */
+@Service
+@Slf4j
+public class PaymentExportService {
+
+    private static final String PAYMENTS_SQL =
+            "SELECT p.id AS payment_id, p.order_id AS order_id, p.user_id AS user_id, p.created_at AS created_at, " +
+            "p.payment_date AS payment_date, p.status AS status, p.payment_method AS payment_method, " +
+            "p.gateway_provider AS gateway_provider, p.gateway_order_id AS gateway_order_id, " +
+            "p.gateway_payment_id AS gateway_payment_id, p.currency AS currency, p.amount AS amount, " +
+            "p.payment_fee AS payment_fee, p.net_amount AS net_amount, p.failure_reason AS failure_reason " +
+            "FROM payments p WHERE p.created_at >= ? AND p.created_at < ? ORDER BY p.created_at, p.id";
+
+    private final StreamingExportTemplate exportTemplate;
+
+    public PaymentExportService(DataSource dataSource) {
+        this.exportTemplate = new StreamingExportTemplate(dataSource);
+    }
+
+    /**
+     * Payments created between {@code from} and {@code to} (inclusive days)
+     */
+    public ResponseEntity<StreamingResponseBody> exportPayments(HttpServletRequest request, LocalDate from, LocalDate to,
+                                                                ExportFormat format) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid export range: from must not be after to");
+        }
+        log.info("Exporting payments from {} to {} as {}", from, to, format);
+        return exportTemplate.export(request, "payments-" + from + "-" + to, format, PAYMENTS_SQL,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,48 @@
+package com.mahabaleshwermart.productservice.listener;
+
+import com.mahabaleshwermart.common.events.SagaCommand;
+import com.mahabaleshwermart.common.events.SagaReply;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.productservice.service.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inventory Command Listener
+ * Reserves and releases stock for the order-service checkout saga and replies once the change has committed.
+ * Also releases the stock of orders that are cancelled or returned.
+ * Unexpected errors are thrown so the listener retries; the saga times the step out if they persist.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryCommandListener {
+
+    private final StockReservationService reservationService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @KafkaListener(topics = SagaCommand.INVENTORY_TOPIC, groupId = "product-service")
+    public void handleInventoryCommand(@Payload SagaCommand command) {
+        log.info("Processing inventory command {} for order: {}", command.getAction(), command.getOrderId());
+        SagaReply reply;
+        if (command.getAction() == SagaCommand.Action.COMPENSATE) {
+            reservationService.release(command.getOrderId(), command.getItems());
+            reply = SagaReply.to(command, true, "Stock released");
+        } else {
+            try {
+                reservationService.reserve(command.getOrderId(), command.getItems());
+                reply = SagaReply.to(command, true, "Stock reserved");
+            } catch (BusinessException e) {
+                reply = SagaReply.to(command, false, e.getMessage());
+            }
+        }
+        // Releases for cancelled or returned orders come from outside the saga and expect no reply
+        if (command.getStepId() != null) {
+            kafkaTemplate.send(SagaReply.TOPIC, command.getOrderId(), reply);
+        }
+    }
+}
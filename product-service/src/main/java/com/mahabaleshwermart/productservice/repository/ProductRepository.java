@@ -4,6 +4,7 @@ import com.mahabaleshwermart.productservice.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -177,8 +178,33 @@ public interface ProductRepository extends JpaRepository<Product, String> {
     /**
      * Update product stock quantity
      */
+    @Modifying
     @Query("UPDATE Product p SET p.quantity = :quantity, p.inStock = :inStock WHERE p.id = :productId")
     void updateProductStock(@Param("productId") String productId, 
                           @Param("quantity") int quantity, 
                           @Param("inStock") boolean inStock);
-} 
\ No newline at end of file
+    
+    /**
+     * Take stock only if enough is left. in_stock is assigned first so it is computed from the
+     * quantity before the decrement whichever way the database evaluates the assignments.
+     *
+     * @return 1 when the stock was taken, 0 when there was not enough
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.inStock = CASE WHEN p.quantity > :quantity THEN true ELSE false END, " +
+           "p.quantity = p.quantity - :quantity WHERE p.id = :productId AND p.quantity >= :quantity")
+    int reserveStock(@Param("productId") String productId, @Param("quantity") int quantity);
+    
+    /**
+     * Give back previously taken stock
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.inStock = true, p.quantity = p.quantity + :quantity WHERE p.id = :productId")
+    int releaseStock(@Param("productId") String productId, @Param("quantity") int quantity);
+    
+    /**
+     * Current stock quantity of a product
+     */
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :productId")
+    Optional<Integer> findQuantityById(@Param("productId") String productId);
+}
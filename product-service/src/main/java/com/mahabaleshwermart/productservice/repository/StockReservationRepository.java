@@ -0,0 +1,19 @@
+package com.mahabaleshwermart.productservice.repository;
+
+import com.mahabaleshwermart.productservice.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for StockReservation entity operations
+ */
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    /**
+     * All reservations of an order
+     */
+    List<StockReservation> findByOrderId(String orderId);
+}
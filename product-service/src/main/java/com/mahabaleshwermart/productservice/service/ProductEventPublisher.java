@@ -0,0 +1,33 @@
+package com.mahabaleshwermart.productservice.service;
+
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Product Event Publisher
+ * Sends product change events to Kafka once the product update has committed, keyed by product id
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductEventPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        kafkaTemplate.send(ProductChangedEvent.TOPIC, event.getProductId(), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to publish product change for product: {}", event.getProductId(), ex);
+                    } else {
+                        log.debug("Product change published for product: {}", event.getProductId());
+                    }
+                });
+    }
+}
@@ -1,6 +1,7 @@
 package com.mahabaleshwermart.productservice.service;
 
 import com.mahabaleshwermart.common.dto.PageResponse;
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
 import com.mahabaleshwermart.common.exception.ResourceNotFoundException;
 import com.mahabaleshwermart.productservice.dto.ProductDto;
 import com.mahabaleshwermart.productservice.entity.Product;
@@ -10,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -17,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Product Service
@@ -29,6 +32,7 @@ public class ProductService {
     
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Get all products with pagination
@@ -268,11 +272,26 @@ public class ProductService {
         
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        BigDecimal oldPrice = existingProduct.getPrice();
+        BigDecimal oldOriginalPrice = existingProduct.getOriginalPrice();
+        boolean wasAvailable = existingProduct.isActive() && existingProduct.isInStock();
         
         // Update fields
         productMapper.updateEntityFromDto(productDto, existingProduct);
         existingProduct = productRepository.save(existingProduct);
         
+        boolean priceChanged = existingProduct.getPrice().compareTo(oldPrice) != 0
+                || !Objects.equals(existingProduct.getOriginalPrice(), oldOriginalPrice);
+        boolean available = existingProduct.isActive() && existingProduct.isInStock();
+        if (priceChanged || available != wasAvailable) {
+            eventPublisher.publishEvent(ProductChangedEvent.builder()
+                    .productId(id)
+                    .price(priceChanged ? existingProduct.getPrice() : null)
+                    .originalPrice(existingProduct.getOriginalPrice())
+                    .available(available)
+                    .build());
+        }
+        
         log.info("Product updated successfully: {}", id);
         return productMapper.toDto(existingProduct);
     }
@@ -290,6 +309,10 @@ public class ProductService {
         
         product.setActive(false);
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.builder()
+                .productId(id)
+                .available(false)
+                .build());
         
         log.info("Product deleted successfully: {}", id);
     }
@@ -302,8 +325,20 @@ public class ProductService {
     public void updateProductStock(String productId, int quantity) {
         log.info("Updating stock for product: {} to quantity: {}", productId, quantity);
         
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        boolean wasAvailable = product.isActive() && product.isInStock();
+        
         boolean inStock = quantity > 0;
         productRepository.updateProductStock(productId, quantity, inStock);
+        // Carts only track availability, so plain quantity changes are not worth an event
+        boolean available = product.isActive() && inStock;
+        if (available != wasAvailable) {
+            eventPublisher.publishEvent(ProductChangedEvent.builder()
+                    .productId(productId)
+                    .available(available)
+                    .build());
+        }
         
         log.info("Product stock updated successfully: {}", productId);
     }
@@ -0,0 +1,53 @@
+package com.mahabaleshwermart.productservice.service;
+
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate;
+import com.mahabaleshwermart.common.retention.ChunkedPurgeTemplate.PurgeStep;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Review Retention Job
+ * Hard-deletes reviews that have been deactivated for longer than the retention period
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReviewRetentionJob {
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.reviews.retention.inactive-days:90}")
+    private int inactiveRetentionDays;
+
+    @Value("${app.reviews.retention.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.reviews.retention.chunk-pause-ms:100}")
+    private long chunkPauseMillis;
+
+    @Scheduled(cron = "${app.reviews.retention.cron:0 45 3 * * *}")
+    public void purge() {
+        log.info("Starting review retention purge");
+
+        Map<String, Long> purged = new ChunkedPurgeTemplate(dataSource, "product-service.retention", chunkSize, chunkPauseMillis)
+                .execute(List.of(
+                        new PurgeStep("inactive-product-reviews",
+                                "DELETE FROM product_reviews WHERE active = false " +
+                                        "AND COALESCE(updated_at, created_at) < ? ORDER BY id LIMIT ?",
+                                LocalDateTime.now().minusDays(inactiveRetentionDays))));
+
+        purged.forEach((step, rows) ->
+                meterRegistry.counter("retention.rows.purged", "step", step).increment(rows));
+        log.info("Review retention purge completed: {}", purged);
+    }
+}
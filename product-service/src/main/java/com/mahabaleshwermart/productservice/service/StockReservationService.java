@@ -0,0 +1,126 @@
+package com.mahabaleshwermart.productservice.service;
+
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
+import com.mahabaleshwermart.common.events.SagaCommand;
+import com.mahabaleshwermart.common.exception.BusinessException;
+import com.mahabaleshwermart.productservice.entity.StockReservation;
+import com.mahabaleshwermart.productservice.repository.ProductRepository;
+import com.mahabaleshwermart.productservice.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Stock Reservation Service
+ * Takes and gives back stock for orders on behalf of the checkout saga. Stock is taken with a
+ * conditional update, so it never goes negative and no row is locked across a read.
+ * Both operations are idempotent per order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+
+    /**
+     * Reserve stock for every order line, or none of them.
+     *
+     * @throws BusinessException when a product does not have enough stock or the order was already released
+     */
+    @Transactional
+    public void reserve(String orderId, List<SagaCommand.Item> items) {
+        List<StockReservation> existing = reservationRepository.findByOrderId(orderId);
+        if (!existing.isEmpty()) {
+            if (existing.stream().anyMatch(r -> r.getStatus() == StockReservation.Status.RELEASED)) {
+                throw new BusinessException("Stock for order " + orderId + " was already released");
+            }
+            log.info("Stock already reserved for order: {}", orderId);
+            return;
+        }
+
+        // Fixed product order keeps concurrent reservations from deadlocking on each other's rows
+        for (Map.Entry<String, Integer> line : byProduct(items).entrySet()) {
+            String productId = line.getKey();
+            int quantity = line.getValue();
+            if (productRepository.reserveStock(productId, quantity) == 0) {
+                throw new BusinessException("Insufficient stock for product " + productId);
+            }
+            reservationRepository.save(StockReservation.builder()
+                    .orderId(orderId)
+                    .productId(productId)
+                    .quantity(quantity)
+                    .build());
+            stockChanged(productId, 0);
+        }
+        log.info("Stock reserved for order: {}", orderId);
+    }
+
+    /**
+     * Give back the order's reserved stock. Products without a reservation get a released marker,
+     * so a reserve command delivered late does not take their stock.
+     */
+    @Transactional
+    public void release(String orderId, List<SagaCommand.Item> items) {
+        List<StockReservation> existing = reservationRepository.findByOrderId(orderId);
+        for (StockReservation reservation : existing) {
+            if (reservation.getStatus() == StockReservation.Status.RESERVED) {
+                productRepository.releaseStock(reservation.getProductId(), reservation.getQuantity());
+                reservation.setStatus(StockReservation.Status.RELEASED);
+                reservationRepository.save(reservation);
+                stockChanged(reservation.getProductId(), reservation.getQuantity());
+            }
+        }
+
+        Set<String> known = existing.stream().map(StockReservation::getProductId).collect(Collectors.toSet());
+        byProduct(items).forEach((productId, quantity) -> {
+            if (!known.contains(productId)) {
+                reservationRepository.save(StockReservation.builder()
+                        .orderId(orderId)
+                        .productId(productId)
+                        .quantity(0)
+                        .status(StockReservation.Status.RELEASED)
+                        .build());
+            }
+        });
+        log.info("Stock released for order: {}", orderId);
+    }
+
+    private static Map<String, Integer> byProduct(List<SagaCommand.Item> items) {
+        Map<String, Integer> lines = new TreeMap<>();
+        for (SagaCommand.Item item : items) {
+            lines.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return lines;
+    }
+
+    /**
+     * Evict the cached product and tell carts when availability flipped, i.e. when the stock is now
+     * exactly {@code flipQuantity}: 0 after a reservation, the released quantity after a release
+     */
+    private void stockChanged(String productId, int flipQuantity) {
+        Cache cache = cacheManager.getCache("product");
+        if (cache != null) {
+            cache.evict(productId);
+        }
+        productRepository.findQuantityById(productId)
+                .filter(quantity -> quantity == flipQuantity)
+                .ifPresent(quantity -> eventPublisher.publishEvent(ProductChangedEvent.builder()
+                        .productId(productId)
+                        .available(quantity > 0)
+                        .build()));
+    }
+}
@@ -0,0 +1,127 @@
+package com.mahabaleshwermart.productservice.service;
+
+import com.mahabaleshwermart.common.events.ProductChangedEvent;
+import com.mahabaleshwermart.productservice.dto.ProductDto;
+import com.mahabaleshwermart.productservice.entity.Product;
+import com.mahabaleshwermart.productservice.mapper.ProductMapper;
+import com.mahabaleshwermart.productservice.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Carts are told about a product only when its price or its availability changes.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private ProductMapper productMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProductService productService;
+
+    @Test
+    void stockChangeWithinStockPublishesNothing() {
+        when(productRepository.findById("product-1")).thenReturn(Optional.of(product(true, true)));
+
+        productService.updateProductStock("product-1", 7);
+
+        verify(productRepository).updateProductStock("product-1", 7, true);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void runningOutOfStockPublishesUnavailable() {
+        when(productRepository.findById("product-1")).thenReturn(Optional.of(product(true, true)));
+
+        productService.updateProductStock("product-1", 0);
+
+        assertThat(publishedEvent().isAvailable()).isFalse();
+    }
+
+    @Test
+    void restockingPublishesAvailable() {
+        when(productRepository.findById("product-1")).thenReturn(Optional.of(product(true, false)));
+
+        productService.updateProductStock("product-1", 5);
+
+        assertThat(publishedEvent().isAvailable()).isTrue();
+    }
+
+    @Test
+    void restockingAnInactiveProductPublishesNothing() {
+        when(productRepository.findById("product-1")).thenReturn(Optional.of(product(false, false)));
+
+        productService.updateProductStock("product-1", 5);
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void updateWithoutPriceOrStockChangePublishesNothing() {
+        Product product = product(true, true);
+        when(productRepository.findById("product-1")).thenReturn(Optional.of(product));
+        when(productRepository.save(product)).thenReturn(product);
+        doAnswer(invocation -> {
+            product.setDescription("Fresh from Mahabaleshwar");
+            return null;
+        }).when(productMapper).updateEntityFromDto(any(), any());
+
+        productService.updateProduct("product-1", new ProductDto());
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void priceChangePublishesTheNewPrice() {
+        Product product = product(true, true);
+        when(productRepository.findById("product-1")).thenReturn(Optional.of(product));
+        when(productRepository.save(product)).thenReturn(product);
+        doAnswer(invocation -> {
+            product.setPrice(new BigDecimal("35.00"));
+            return null;
+        }).when(productMapper).updateEntityFromDto(any(), any());
+
+        productService.updateProduct("product-1", new ProductDto());
+
+        ProductChangedEvent event = publishedEvent();
+        assertThat(event.getPrice()).isEqualByComparingTo("35.00");
+        assertThat(event.isAvailable()).isTrue();
+    }
+
+    private ProductChangedEvent publishedEvent() {
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getProductId()).isEqualTo("product-1");
+        return event.getValue();
+    }
+
+    private static Product product(boolean active, boolean inStock) {
+        Product product = new Product();
+        product.setId("product-1");
+        product.setPrice(new BigDecimal("40.00"));
+        product.setOriginalPrice(new BigDecimal("45.00"));
+        product.setActive(active);
+        product.setInStock(inStock);
+        return product;
+    }
+}
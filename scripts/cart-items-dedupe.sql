@@ -0,0 +1,37 @@
+-- One-off cleanup for cart_items before the active (owner, product) unique keys are created.
+-- Folds duplicate active rows into a single row per (user, product) and (session, product),
+-- then deactivates the extra rows. Run against mahabaleshwer_mart_carts before deploying.
+
+UPDATE cart_items k
+JOIN (SELECT MIN(id) AS keep_id, SUM(quantity) AS qty
+      FROM cart_items
+      WHERE active = true AND user_id IS NOT NULL
+      GROUP BY user_id, product_id
+      HAVING COUNT(*) > 1) d ON k.id = d.keep_id
+SET k.quantity = d.qty, k.selected_quantity = d.qty, k.total_price = k.product_price * d.qty;
+
+UPDATE cart_items c
+JOIN (SELECT user_id, product_id, MIN(id) AS keep_id
+      FROM cart_items
+      WHERE active = true AND user_id IS NOT NULL
+      GROUP BY user_id, product_id
+      HAVING COUNT(*) > 1) d ON c.user_id = d.user_id AND c.product_id = d.product_id AND c.id <> d.keep_id
+SET c.active = false
+WHERE c.active = true;
+
+UPDATE cart_items k
+JOIN (SELECT MIN(id) AS keep_id, SUM(quantity) AS qty
+      FROM cart_items
+      WHERE active = true AND session_id IS NOT NULL
+      GROUP BY session_id, product_id
+      HAVING COUNT(*) > 1) d ON k.id = d.keep_id
+SET k.quantity = d.qty, k.selected_quantity = d.qty, k.total_price = k.product_price * d.qty;
+
+UPDATE cart_items c
+JOIN (SELECT session_id, product_id, MIN(id) AS keep_id
+      FROM cart_items
+      WHERE active = true AND session_id IS NOT NULL
+      GROUP BY session_id, product_id
+      HAVING COUNT(*) > 1) d ON c.session_id = d.session_id AND c.product_id = d.product_id AND c.id <> d.keep_id
+SET c.active = false
+WHERE c.active = true;
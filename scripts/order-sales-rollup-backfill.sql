@@ -0,0 +1,26 @@
+-- One-off backfill of order_sales_rollups from existing orders.
+-- Run against mahabaleshwer_mart_orders once, after deploying the service that creates the table.
+-- Mirrors the incremental updates: STATUS counts every order under its current status,
+-- CATEGORY and PAYMENT_METHOD hold net sales (cancelled orders excluded, refunds deducted by payment method).
+
+DELETE FROM order_sales_rollups;
+
+INSERT INTO order_sales_rollups (bucket_date, dimension, dimension_value, orders, quantity, amount)
+SELECT DATE(created_at), 'STATUS', order_status, COUNT(*), SUM(total_quantity), SUM(total_amount)
+FROM orders
+GROUP BY DATE(created_at), order_status;
+
+INSERT INTO order_sales_rollups (bucket_date, dimension, dimension_value, orders, quantity, amount)
+SELECT DATE(created_at), 'PAYMENT_METHOD', COALESCE(payment_method, 'UNKNOWN'),
+       COUNT(*), SUM(total_quantity), SUM(total_amount - COALESCE(refund_amount, 0))
+FROM orders
+WHERE order_status <> 'CANCELLED'
+GROUP BY DATE(created_at), COALESCE(payment_method, 'UNKNOWN');
+
+INSERT INTO order_sales_rollups (bucket_date, dimension, dimension_value, orders, quantity, amount)
+SELECT DATE(o.created_at), 'CATEGORY', COALESCE(i.product_category, 'UNKNOWN'),
+       COUNT(DISTINCT o.id), SUM(i.quantity), SUM(i.total_price)
+FROM orders o
+JOIN order_items i ON i.order_id = o.id
+WHERE o.order_status <> 'CANCELLED'
+GROUP BY DATE(o.created_at), COALESCE(i.product_category, 'UNKNOWN');
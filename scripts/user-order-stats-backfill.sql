@@ -0,0 +1,34 @@
+-- One-off backfill of the user order statistics read model from existing orders.
+-- Run against mahabaleshwer_mart_orders once, after deploying the service that creates the tables
+-- and before enabling the statistics endpoint for users with historical orders.
+-- Refunds of non-cancelled orders are taken out of the spend, matching the incremental updates.
+
+INSERT INTO user_order_stats (user_id, total_orders, cancelled_orders, total_spent, last_order_at, updated_at)
+SELECT user_id,
+       COUNT(*),
+       SUM(order_status = 'CANCELLED'),
+       SUM(CASE WHEN order_status = 'CANCELLED' THEN 0
+                ELSE total_amount - COALESCE(refund_amount, 0) END),
+       MAX(created_at),
+       NOW()
+FROM orders
+GROUP BY user_id
+ON DUPLICATE KEY UPDATE total_orders = VALUES(total_orders),
+                        cancelled_orders = VALUES(cancelled_orders),
+                        total_spent = VALUES(total_spent),
+                        last_order_at = VALUES(last_order_at),
+                        updated_at = VALUES(updated_at);
+
+INSERT INTO user_order_stats_buckets (user_id, bucket_date, orders, cancelled_orders, spent)
+SELECT user_id,
+       DATE(created_at),
+       COUNT(*),
+       SUM(order_status = 'CANCELLED'),
+       SUM(CASE WHEN order_status = 'CANCELLED' THEN 0
+                ELSE total_amount - COALESCE(refund_amount, 0) END)
+FROM orders
+WHERE created_at >= CURDATE() - INTERVAL 365 DAY
+GROUP BY user_id, DATE(created_at)
+ON DUPLICATE KEY UPDATE orders = VALUES(orders),
+                        cancelled_orders = VALUES(cancelled_orders),
+                        spent = VALUES(spent);
@@ -0,0 +1,33 @@
+package com.mahabaleshwermart.userservice.service;
+
+import com.mahabaleshwermart.common.events.UserProfileChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * User Profile Event Publisher
+ * Sends profile change events to Kafka once the profile update has committed, keyed by user id
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProfileEventPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        kafkaTemplate.send(UserProfileChangedEvent.TOPIC, event.getUserId(), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to publish profile change for user: {}", event.getUserId(), ex);
+                    } else {
+                        log.debug("Profile change published for user: {}", event.getUserId());
+                    }
+                });
+    }
+}
@@ -1,5 +1,6 @@
 package com.mahabaleshwermart.userservice.service;
 
+import com.mahabaleshwermart.common.events.UserProfileChangedEvent;
 import com.mahabaleshwermart.userservice.dto.UpdateProfileRequest;
 import com.mahabaleshwermart.userservice.dto.UserDto;
 import com.mahabaleshwermart.userservice.entity.Address;
@@ -9,6 +10,7 @@ import com.mahabaleshwermart.userservice.repository.AddressRepository;
 import com.mahabaleshwermart.userservice.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -23,6 +25,7 @@ public class UserProfileService {
     private final UserRepository userRepository;
     private final AddressRepository addressRepository;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public UserDto updateCurrentUser(String email, UpdateProfileRequest request) {
@@ -71,6 +74,7 @@ public class UserProfileService {
         }
 
         User saved = userRepository.save(user);
+        publishProfileChanged(saved);
         return userMapper.toDto(saved);
     }
 
@@ -123,6 +127,7 @@ public class UserProfileService {
         }
 
         User saved = userRepository.save(user);
+        publishProfileChanged(saved);
         return userMapper.toDto(saved);
     }
 
@@ -135,6 +140,18 @@ public class UserProfileService {
         return userMapper.toDto(user);
     }
 
+    /**
+     * Let other services refresh their copies of the profile; sent once the update commits
+     */
+    private void publishProfileChanged(User user) {
+        eventPublisher.publishEvent(UserProfileChangedEvent.builder()
+                .userId(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .phone(user.getPhone())
+                .build());
+    }
+
     private Address.AddressType parseType(String type) {
         if (type == null) return Address.AddressType.HOME;
         String t = type.toUpperCase(Locale.ROOT);